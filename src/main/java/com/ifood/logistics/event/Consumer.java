@@ -2,6 +2,8 @@ package com.lorem.logistics.event;
 
 import com.lorem.logistics.event.metrics.EventMetrics;
 
+import java.util.concurrent.CompletableFuture;
+
 public interface Consumer {
 
     /**
@@ -11,8 +13,10 @@ public interface Consumer {
 
     /**
      * Stop consume the source.
+     *
+     * @return Future completed once the consumer stopped, e.g. after draining the messages in flight.
      */
-    void stop();
+    CompletableFuture<Void> stop();
 
     /**
      * Return consumer's event metrics.
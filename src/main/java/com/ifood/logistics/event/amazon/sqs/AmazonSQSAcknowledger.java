@@ -0,0 +1,202 @@
+package com.lorem.logistics.event.amazon.sqs;
+
+import com.amazonaws.services.sqs.model.ChangeMessageVisibilityBatchResult;
+import com.amazonaws.services.sqs.model.DeleteMessageBatchResult;
+import com.amazonaws.services.sqs.model.Message;
+import com.lorem.logistics.event.amazon.sqs.configuration.AmazonSQSProperties;
+import com.lorem.logistics.event.amazon.sqs.configuration.NackPolicy;
+import com.lorem.logistics.event.amazon.sqs.handler.MessageDecorator;
+import com.lorem.logistics.event.metrics.Counter;
+import com.lorem.logistics.event.metrics.EventMetrics;
+import com.lorem.logistics.event.metrics.Timer;
+import com.newrelic.api.agent.NewRelic;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToIntFunction;
+import java.util.stream.Collectors;
+
+import static java.time.Duration.ofMillis;
+
+/**
+ * Acknowledgement stage of the consumer. It coalesces handled messages coming from all rails into
+ * batches, deleting the successfully handled ones and applying the nack policy to the failed ones off
+ * the processing threads.
+ */
+class AmazonSQSAcknowledger {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AmazonSQSAcknowledger.class);
+    private static final String DELETED_MESSAGES_METRIC = "SQS deleted messages";
+    private static final String NACKED_MESSAGES_METRIC = "SQS nacked messages";
+    private static final String DELETE_LATENCY_HISTOGRAM = "SQS delete latency";
+    private static final String MESSAGE_AGE_HISTOGRAM = "SQS message age";
+    private static final String APPROXIMATE_RECEIVE_COUNT = "ApproximateReceiveCount";
+    private static final String SENT_TIMESTAMP = "SentTimestamp";
+    private static final int MAX_BATCH_SIZE = 10;
+
+    private final AmazonSQSProvider amazonSQSProvider;
+    private final AmazonSQSProperties amazonSQSProperties;
+    private final AmazonSQSInFlightMessages amazonSQSInFlightMessages;
+    private final Counter deletedMessages;
+    private final Counter nackedMessages;
+    private final Timer deleteLatency;
+    private final Timer messageAge;
+
+    AmazonSQSAcknowledger(final AmazonSQSProvider amazonSQSProvider, final AmazonSQSProperties amazonSQSProperties,
+            final AmazonSQSInFlightMessages amazonSQSInFlightMessages, final EventMetrics eventMetrics) {
+        this.amazonSQSProvider = amazonSQSProvider;
+        this.amazonSQSProperties = amazonSQSProperties;
+        this.amazonSQSInFlightMessages = amazonSQSInFlightMessages;
+        this.deletedMessages = eventMetrics.counter(DELETED_MESSAGES_METRIC);
+        this.nackedMessages = eventMetrics.counter(NACKED_MESSAGES_METRIC);
+        this.deleteLatency = eventMetrics.timer(DELETE_LATENCY_HISTOGRAM);
+        this.messageAge = eventMetrics.timer(MESSAGE_AGE_HISTOGRAM);
+    }
+
+    /**
+     * It groups the given messages in batches of up to 10 messages, flushing a batch earlier when
+     * its first message waited longer than the configured delete max delay. Batches of successfully handled
+     * messages are deleted while batches of failed messages get their visibility timeout changed as defined
+     * by the nack policy. Requests run on {@link Schedulers#elastic()} with at most delete concurrency
+     * requests of each kind running at the same time. The messages of a batch stop being in flight once
+     * its request finishes, either successfully or not.
+     *
+     * @param messageDecorators Handled messages.
+     * @return Delete messages in batch results.
+     */
+    Flux<DeleteMessageBatchResult> acknowledge(final Flux<MessageDecorator> messageDecorators) {
+        return messageDecorators.publish(decorators -> Flux.merge(
+            decorators.filter(MessageDecorator::isSuccessfullyProcessed)
+                    .map(MessageDecorator::getMessage)
+                    .transform(messages -> batch(messages).flatMap(this::delete,
+                        amazonSQSProperties.getDeleteConcurrency())),
+            decorators.filter(messageDecorator -> !messageDecorator.isSuccessfullyProcessed())
+                    .map(MessageDecorator::getMessage)
+                    .transform(this::nack)
+                    .then(Mono.empty())));
+    }
+
+    /**
+     * It acknowledges the given messages in batches of up to 10 messages as {@link #acknowledge(Flux)}
+     * does, but one request at a time and in the order the messages were handled: the successfully handled
+     * messages of a batch are deleted before its failed messages are nacked, and a batch is only
+     * acknowledged once the previous one finished. It's used by each lane of FIFO queues, so the messages
+     * of a group are deleted in order.
+     *
+     * @param messageDecorators Handled messages.
+     * @return Delete messages in batch results.
+     */
+    Flux<DeleteMessageBatchResult> acknowledgeInOrder(final Flux<MessageDecorator> messageDecorators) {
+        return messageDecorators
+                .bufferTimeout(MAX_BATCH_SIZE, ofMillis(amazonSQSProperties.getDeleteMaxDelayMillis()))
+                .concatMap(decorators -> {
+                    final Map<Boolean, List<Message>> messages = decorators.stream()
+                            .collect(Collectors.partitioningBy(MessageDecorator::isSuccessfullyProcessed,
+                                Collectors.mapping(MessageDecorator::getMessage, Collectors.toList())));
+                    final Mono<DeleteMessageBatchResult> delete =
+                        messages.get(true).isEmpty() ? Mono.empty() : delete(messages.get(true));
+                    return delete.concatWith(nack(Flux.fromIterable(messages.get(false))).then(Mono.empty()));
+                });
+    }
+
+    private Flux<List<Message>> batch(final Flux<Message> messages) {
+        return messages.bufferTimeout(MAX_BATCH_SIZE, ofMillis(amazonSQSProperties.getDeleteMaxDelayMillis()));
+    }
+
+    private Flux<ChangeMessageVisibilityBatchResult> nack(final Flux<Message> messages) {
+        if (amazonSQSProperties.getNackPolicy() == NackPolicy.NONE) {
+            return messages.doOnNext(message -> amazonSQSInFlightMessages.completed(Collections.singletonList(message)))
+                    .thenMany(Flux.empty());
+        }
+        return batch(messages).flatMap(batch -> nack(batch, this::nackVisibilityTimeout),
+            amazonSQSProperties.getDeleteConcurrency());
+    }
+
+    /**
+     * It makes the given messages visible again right away, in batches of up to 10 messages, regardless
+     * of the nack policy. It's used for the messages left in flight by a consumer that stopped before
+     * handling them.
+     *
+     * @param messages Messages to make visible.
+     * @return Mono completing once every batch request finished.
+     */
+    Mono<Void> abandon(final List<Message> messages) {
+        return Flux.fromIterable(messages)
+                .buffer(MAX_BATCH_SIZE)
+                .flatMap(batch -> nack(batch, message -> 0), amazonSQSProperties.getDeleteConcurrency())
+                .then();
+    }
+
+    private Mono<ChangeMessageVisibilityBatchResult> nack(final List<Message> messages,
+            final ToIntFunction<Message> visibilityTimeoutSeconds) {
+        return Mono.fromCallable(() -> amazonSQSProvider.changeVisibility(messages, visibilityTimeoutSeconds))
+                .subscribeOn(Schedulers.elastic())
+                .doOnNext(result -> {
+                    nackedMessages.add(result.getSuccessful().size());
+                    LOGGER.debug("{} messages was nacked in batch after processing.", result.getSuccessful().size());
+                })
+                .onErrorResume(throwable -> {
+                    NewRelic.noticeError(throwable);
+                    LOGGER.error("An unexpected error occurred while nacking messages in batch.", throwable);
+                    return Mono.empty();
+                })
+                .doFinally(signalType -> amazonSQSInFlightMessages.completed(messages));
+    }
+
+    private int nackVisibilityTimeout(final Message message) {
+        final int receiveCount =
+            Integer.parseInt(message.getAttributes().getOrDefault(APPROXIMATE_RECEIVE_COUNT, "1"));
+        return amazonSQSProperties.getNackPolicy()
+                .visibilityTimeout(receiveCount, amazonSQSProperties.getNackDelaySeconds(),
+                    amazonSQSProperties.getNackMaxDelaySeconds())
+                .orElse(0);
+    }
+
+    private Mono<DeleteMessageBatchResult> delete(final List<Message> messages) {
+        return Mono.fromCallable(() -> timedDelete(messages))
+                .subscribeOn(Schedulers.elastic())
+                .doOnNext(deleteMessageBatchResult -> {
+                    deletedMessages.add(deleteMessageBatchResult.getSuccessful().size());
+                    recordAge(messages, deleteMessageBatchResult);
+                    LOGGER.debug("{} messages was deleted in batch after processing.",
+                        deleteMessageBatchResult.getSuccessful().size());
+                })
+                .onErrorResume(throwable -> {
+                    NewRelic.noticeError(throwable);
+                    LOGGER.error("An unexpected error occurred while deleting messages in batch.", throwable);
+                    return Mono.empty();
+                })
+                .doFinally(signalType -> amazonSQSInFlightMessages.completed(messages));
+    }
+
+    private DeleteMessageBatchResult timedDelete(final List<Message> messages) {
+        final long start = System.nanoTime();
+        try {
+            return amazonSQSProvider.delete(messages);
+        } finally {
+            deleteLatency.recordSince(start);
+        }
+    }
+
+    /**
+     * It records the age, since it was sent to the queue, of every successfully deleted message.
+     */
+    private void recordAge(final List<Message> messages, final DeleteMessageBatchResult deleteMessageBatchResult) {
+        final long now = System.currentTimeMillis();
+        deleteMessageBatchResult.getSuccessful()
+                .stream()
+                .map(entry -> AmazonSQSProvider.entryMessage(messages, entry.getId()))
+                .map(message -> message.getAttributes().get(SENT_TIMESTAMP))
+                .filter(Objects::nonNull)
+                .forEach(sentTimestamp -> messageAge.record(now - Long.parseLong(sentTimestamp),
+                    TimeUnit.MILLISECONDS));
+    }
+}
@@ -1,21 +1,26 @@
 package com.lorem.logistics.event.amazon.sqs;
 
 import com.amazonaws.services.sqs.AmazonSQS;
+import com.amazonaws.services.sqs.AmazonSQSAsync;
+import com.amazonaws.services.sqs.model.Message;
 import com.lorem.logistics.event.Consumer;
 import com.lorem.logistics.event.amazon.sqs.configuration.AmazonSQSProperties;
 import com.lorem.logistics.event.amazon.sqs.handler.AmazonSQSMessageHandler;
+import com.lorem.logistics.event.amazon.sqs.handler.HandlerConcurrencyLimiter;
 import com.lorem.logistics.event.metrics.EventMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import reactor.core.Disposable;
 import reactor.core.Disposables;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoProcessor;
 import reactor.core.scheduler.Scheduler;
 import reactor.core.scheduler.Schedulers;
 
+import java.util.List;
 import java.util.Objects;
-import java.util.Optional;
-
-import static java.util.Optional.ofNullable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Reactive executor of SQS consumers.
@@ -26,39 +31,120 @@ public class AmazonSQSConsumer implements Consumer {
 
     private static final String PARALLEL_PUBLISHER = "ParallelPublisher";
 
-    private final Scheduler publisherScheduler;
+    private final AmazonSQSProperties amazonSQSProperties;
+    private final AmazonSQSPollerPool pollerPool;
+    private final boolean ownsPublisherScheduler;
     private final AmazonSQSConsumerHelper helper;
+    private final AmazonSQSInFlightMessages amazonSQSInFlightMessages;
+    private final AmazonSQSAcknowledger amazonSQSAcknowledger;
+    private final AmazonSQSVisibilityExtender visibilityExtender;
     private final EventMetrics eventMetrics;
 
+    private Scheduler publisherScheduler;
     private Disposable publisherDisposable;
+    private CompletableFuture<Void> consumed;
+    private MonoProcessor<Void> pollingStopped;
+    private volatile boolean running;
+    private volatile boolean stopping;
 
     /**
      * It constructs a SQS consumer executor based on its properties and other parameters.
      *
-     * @param amazonSQS SQS Async client.
+     * @param amazonSQS SQS client, it must be an {@link AmazonSQSAsync} when asynchronous receive is
+     *        enabled.
      * @param amazonSQSProperties Properties of SQS consumer.
      * @param amazonSQSMessageHandler SQS message handler.
      */
     public AmazonSQSConsumer(final AmazonSQS amazonSQS, final AmazonSQSProperties amazonSQSProperties,
             final AmazonSQSMessageHandler amazonSQSMessageHandler) {
-        this.validate(amazonSQS, amazonSQSProperties, amazonSQSMessageHandler);
+        this(amazonSQS, amazonSQSProperties, amazonSQSMessageHandler, null);
+    }
+
+    /**
+     * It constructs a SQS consumer executor routing messages with the same key to the same processing
+     * lane.
+     *
+     * @param amazonSQS SQS client, it must be an {@link AmazonSQSAsync} when asynchronous receive is
+     *        enabled.
+     * @param amazonSQSProperties Properties of SQS consumer.
+     * @param amazonSQSMessageHandler SQS message handler.
+     * @param messageKeyExtractor Key extractor of the messages, {@code null} to not route messages to
+     *        lanes. It is ignored for FIFO queues, whose messages are routed by message group, and it
+     *        can't be set along with a handler batch size.
+     */
+    public AmazonSQSConsumer(final AmazonSQS amazonSQS, final AmazonSQSProperties amazonSQSProperties,
+            final AmazonSQSMessageHandler amazonSQSMessageHandler, final MessageKeyExtractor messageKeyExtractor) {
+        this(amazonSQS, amazonSQSProperties, amazonSQSMessageHandler, messageKeyExtractor, null, 1, 0);
+    }
+
+    /**
+     * It constructs a SQS consumer executor of an {@link AmazonSQSConsumerGroup}, whose receives take the
+     * pollers of the group.
+     *
+     * @param pollerPool Poller pool of the group, {@code null} when the consumer isn't part of a group.
+     * @param weight Weight of the consumer on the poller pool.
+     * @param priority Priority of the consumer on the poller pool.
+     */
+    AmazonSQSConsumer(final AmazonSQS amazonSQS, final AmazonSQSProperties amazonSQSProperties,
+            final AmazonSQSMessageHandler amazonSQSMessageHandler, final MessageKeyExtractor messageKeyExtractor,
+            final AmazonSQSPollerPool pollerPool, final int weight, final int priority) {
+        this.validate(amazonSQS, amazonSQSProperties, amazonSQSMessageHandler, messageKeyExtractor);
+        this.amazonSQSProperties = amazonSQSProperties;
         this.eventMetrics = new EventMetrics(getEventMetricsName(amazonSQSProperties));
 
         final AmazonSQSProvider amazonSQSProvider = new AmazonSQSProvider(amazonSQS, amazonSQSProperties);
-        final AmazonSQSSource amazonSQSSource = new AmazonSQSSource(amazonSQSProvider, amazonSQSProperties);
-        this.helper = new AmazonSQSConsumerHelper(amazonSQSProperties, amazonSQSMessageHandler, amazonSQSProvider,
-            amazonSQSSource, eventMetrics);
+        this.amazonSQSInFlightMessages = new AmazonSQSInFlightMessages(amazonSQSProperties, eventMetrics);
+        final AmazonSQSPublisherScaler amazonSQSPublisherScaler =
+            new AmazonSQSPublisherScaler(amazonSQSProperties, amazonSQSInFlightMessages, eventMetrics);
+        this.amazonSQSAcknowledger = new AmazonSQSAcknowledger(amazonSQSProvider, amazonSQSProperties,
+            amazonSQSInFlightMessages, eventMetrics);
+        final AmazonSQSPrefetchBuffer amazonSQSPrefetchBuffer = new AmazonSQSPrefetchBuffer(amazonSQSProperties,
+            amazonSQSInFlightMessages, amazonSQSAcknowledger, eventMetrics);
+        final AmazonSQSSource amazonSQSSource = new AmazonSQSSource(amazonSQSProvider, amazonSQSProperties,
+            amazonSQSInFlightMessages, amazonSQSPublisherScaler,
+            pollerPool == null ? null : pollerPool.share(weight, priority, eventMetrics), amazonSQSPrefetchBuffer);
+        this.visibilityExtender = new AmazonSQSVisibilityExtender(amazonSQSProvider, amazonSQSProperties,
+            amazonSQSInFlightMessages, eventMetrics);
+        this.helper = new AmazonSQSConsumerHelper(amazonSQSProperties, amazonSQSMessageHandler, amazonSQSSource,
+            amazonSQSAcknowledger, amazonSQSPublisherScaler,
+            new AmazonSQSLanes(amazonSQSProperties, messageKeyExtractor, eventMetrics), amazonSQSPrefetchBuffer,
+            new AmazonSQSDeduplicator(amazonSQSProperties, eventMetrics),
+            new HandlerConcurrencyLimiter(amazonSQSProperties.getMaxConcurrentHandlers(),
+                amazonSQSPrefetchBuffer::take, eventMetrics),
+            eventMetrics);
 
-        this.publisherScheduler = Schedulers.newParallel(PARALLEL_PUBLISHER,
-            Math.max(amazonSQSProperties.getNumberOfPublishers(), Runtime.getRuntime().availableProcessors()));
+        this.pollerPool = pollerPool;
+        this.ownsPublisherScheduler = pollerPool == null && !amazonSQSProperties.getAsynchronousReceive();
 
         if (amazonSQSProperties.getAutoStart()) {
             start();
         }
     }
 
+    /**
+     * Publishers receiving synchronously block a thread of their own during each long poll, unless they're
+     * part of a group, whose pollers run their receives while they're subscribed on the bounded scheduler
+     * of the group. Publishers receiving asynchronously don't take any thread: they're subscribed by the
+     * thread starting the consumer and then driven by the callback threads of the SQS client. A scheduler
+     * of the consumer is created again when it starts after being stopped.
+     */
+    private Scheduler publisherScheduler() {
+        if (pollerPool != null) {
+            return pollerPool.getPublisherScheduler();
+        }
+        if (amazonSQSProperties.getAsynchronousReceive()) {
+            return Schedulers.immediate();
+        }
+        if (publisherScheduler != null && !publisherScheduler.isDisposed()) {
+            return publisherScheduler;
+        }
+        return Schedulers.newParallel(PARALLEL_PUBLISHER,
+            Math.max(amazonSQSProperties.getMaxNumberOfPublishers(), Runtime.getRuntime().availableProcessors()));
+    }
+
     private void validate(final AmazonSQS amazonSQS, final AmazonSQSProperties amazonSQSProperties,
-                          final AmazonSQSMessageHandler amazonSQSMessageHandler) {
+                          final AmazonSQSMessageHandler amazonSQSMessageHandler,
+                          final MessageKeyExtractor messageKeyExtractor) {
         if (Objects.isNull(amazonSQS)) {
             throw new IllegalArgumentException("AmazonSQS cannot be null");
         }
@@ -69,6 +155,12 @@ public class AmazonSQSConsumer implements Consumer {
             throw new IllegalArgumentException("AmazonSQSMessageHandler cannot be null");
         }
         amazonSQSProperties.validate();
+        if (amazonSQSProperties.getAsynchronousReceive() && !(amazonSQS instanceof AmazonSQSAsync)) {
+            throw new IllegalArgumentException("AmazonSQS must be an AmazonSQSAsync to receive asynchronously");
+        }
+        if (messageKeyExtractor != null && amazonSQSProperties.getHandlerBatchSize() != null) {
+            throw new IllegalArgumentException("Messages routed to lanes can't be batched by handlerBatchSize");
+        }
     }
 
     private String getEventMetricsName(final AmazonSQSProperties amazonSQSProperties) {
@@ -78,14 +170,74 @@ public class AmazonSQSConsumer implements Consumer {
     @Override
     public void start() {
         LOGGER.debug("Starting to consume");
-        this.publisherDisposable =
-            helper.createConsumer(helper.createSources(this::isRunning, publisherScheduler)).subscribe();
+        final CompletableFuture<Void> consumerCompletion = new CompletableFuture<>();
+        this.stopping = false;
+        this.consumed = consumerCompletion;
+        this.pollingStopped = MonoProcessor.create();
+        this.publisherScheduler = publisherScheduler();
+        this.running = true;
+        this.publisherDisposable = Disposables.composite(
+            helper.createConsumer(helper.createSources(this::isPolling, pollingStopped, publisherScheduler))
+                    .doFinally(signalType -> consumerCompletion.complete(null))
+                    .subscribe(),
+            visibilityExtender.create().subscribe());
     }
 
+    /**
+     * It stops polling, cancelling the receives under way, and drains the consumer: the messages in flight
+     * are handled and acknowledged, with pending deletes flushed, while their visibility timeouts keep
+     * being extended. Once they're all done or the drain timeout expires, the consumer is disposed. The
+     * messages still in flight after the drain timeout are made visible again right away when
+     * {@link AmazonSQSProperties#getNackOnDrainTimeout()} is enabled. <br>
+     * The consumer is disposed right away when the drain timeout is 0. It's reported as running until it's
+     * disposed.
+     *
+     * @return Future completed once the consumer is disposed.
+     */
     @Override
-    public void stop() {
+    public CompletableFuture<Void> stop() {
+        if (publisherDisposable == null) {
+            disposePublisherScheduler();
+            return CompletableFuture.completedFuture(null);
+        }
+        stopping = true;
+        final int drainTimeoutSeconds = amazonSQSProperties.getDrainTimeoutSeconds();
+        if (drainTimeoutSeconds == 0) {
+            return terminate(false);
+        }
+        pollingStopped.onComplete();
+        LOGGER.debug("Draining {} in-flight messages", amazonSQSInFlightMessages.size());
+        return consumed.copy()
+                .orTimeout(drainTimeoutSeconds, TimeUnit.SECONDS)
+                .handle((ignored, throwable) -> throwable == null)
+                .thenCompose(this::terminate);
+    }
+
+    /**
+     * It disposes the consumer, warning about the messages left in flight only when a drain timed out.
+     */
+    private CompletableFuture<Void> terminate(final boolean drained) {
         publisherDisposable.dispose();
-        publisherScheduler.dispose();
+        final List<Message> unfinished = amazonSQSInFlightMessages.getMessages();
+        if (!drained && amazonSQSProperties.getDrainTimeoutSeconds() > 0 && !unfinished.isEmpty()) {
+            LOGGER.warn("Drain timed out with {} messages in flight", unfinished.size());
+        }
+        final Mono<Void> abandon = !drained && amazonSQSProperties.getNackOnDrainTimeout()
+            ? amazonSQSAcknowledger.abandon(unfinished) : Mono.empty();
+        return abandon.doFinally(signalType -> {
+            disposePublisherScheduler();
+            running = false;
+        }).toFuture();
+    }
+
+    private boolean isPolling() {
+        return running && !stopping;
+    }
+
+    private void disposePublisherScheduler() {
+        if (ownsPublisherScheduler && publisherScheduler != null) {
+            publisherScheduler.dispose();
+        }
     }
 
     @Override
@@ -93,9 +245,14 @@ public class AmazonSQSConsumer implements Consumer {
         return eventMetrics;
     }
 
+    /**
+     * @return If the consumer was started and isn't disposed yet, draining included, so that it isn't started
+     *         again while it stops. It's already running while the publishers are being subscribed on start,
+     *         so they don't stop polling before start returns.
+     */
     @Override
     public boolean isRunning() {
-        return !ofNullable(publisherDisposable).orElse(Disposables.never()).isDisposed();
+        return running;
     }
 
 }
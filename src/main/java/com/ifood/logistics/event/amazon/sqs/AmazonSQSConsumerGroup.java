@@ -0,0 +1,130 @@
+package com.lorem.logistics.event.amazon.sqs;
+
+import com.amazonaws.services.sqs.AmazonSQS;
+import com.lorem.logistics.event.Consumer;
+import com.lorem.logistics.event.amazon.sqs.configuration.AmazonSQSProperties;
+import com.lorem.logistics.event.amazon.sqs.handler.AmazonSQSMessageHandler;
+import com.lorem.logistics.event.metrics.ConsumerMetricsLogger;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Group of SQS consumers, one per queue with its own handler and properties, sharing one bounded pool of
+ * pollers instead of a publisher scheduler per consumer. <br>
+ * Receives of all consumers of the group run on the pollers, handed to the consumers by weighted fair
+ * queueing when they wait for one, see {@link AmazonSQSPollerPool}. Each consumer keeps its own
+ * {@link com.lorem.logistics.event.metrics.EventMetrics}. <br>
+ * Queues split by priority, e.g. urgent and bulk events, are consumed by adding a consumer per queue with
+ * the same handler and a higher priority for the urgent queue, which then takes the pollers over whenever
+ * it has a backlog.
+ */
+public class AmazonSQSConsumerGroup {
+
+    private final AmazonSQSPollerPool pollerPool;
+    private final List<Consumer> consumers = new CopyOnWriteArrayList<>();
+
+    /**
+     * It constructs an empty consumer group.
+     *
+     * @param numberOfPollers Number of pollers, i.e. of receives of all consumers running at the same time.
+     *        Priorities and weights only apply while there are fewer pollers than publishers.
+     */
+    public AmazonSQSConsumerGroup(final int numberOfPollers) {
+        if (numberOfPollers < 1) {
+            throw new IllegalArgumentException("numberOfPollers must be greater than or equal to 1");
+        }
+        this.pollerPool = new AmazonSQSPollerPool(numberOfPollers);
+    }
+
+    /**
+     * It adds a consumer of weight 1 to the group.
+     *
+     * @see #add(AmazonSQS, AmazonSQSProperties, AmazonSQSMessageHandler, MessageKeyExtractor, int, int)
+     */
+    public AmazonSQSConsumer add(final AmazonSQS amazonSQS, final AmazonSQSProperties amazonSQSProperties,
+            final AmazonSQSMessageHandler amazonSQSMessageHandler) {
+        return add(amazonSQS, amazonSQSProperties, amazonSQSMessageHandler, null, 1, 0);
+    }
+
+    /**
+     * It adds a consumer of priority 0 to the group.
+     *
+     * @see #add(AmazonSQS, AmazonSQSProperties, AmazonSQSMessageHandler, MessageKeyExtractor, int, int)
+     */
+    public AmazonSQSConsumer add(final AmazonSQS amazonSQS, final AmazonSQSProperties amazonSQSProperties,
+            final AmazonSQSMessageHandler amazonSQSMessageHandler, final MessageKeyExtractor messageKeyExtractor,
+            final int weight) {
+        return add(amazonSQS, amazonSQSProperties, amazonSQSMessageHandler, messageKeyExtractor, weight, 0);
+    }
+
+    /**
+     * It adds a consumer to the group, started right away when auto start is enabled.
+     *
+     * @param amazonSQS SQS client.
+     * @param amazonSQSProperties Properties of SQS consumer.
+     * @param amazonSQSMessageHandler SQS message handler.
+     * @param messageKeyExtractor Key extractor of the messages, {@code null} to not route messages to
+     *        lanes.
+     * @param weight Weight of the consumer: while receives of consumers of the same priority wait for a
+     *        poller, a consumer gets poller time in proportion to its weight.
+     * @param priority Priority of the consumer, from 0: while its queue has a backlog, i.e. its last
+     *        receive returned messages, its waiting receives get pollers before those of consumers of a
+     *        lower priority. It only orders receives waiting for a poller, so it has no effect unless the
+     *        publishers of the group outnumber its pollers, nor once the last receive of the consumer was
+     *        empty, when it competes at priority 0.
+     * @return Consumer added.
+     * @see AmazonSQSConsumer#AmazonSQSConsumer(AmazonSQS, AmazonSQSProperties, AmazonSQSMessageHandler,
+     *      MessageKeyExtractor)
+     */
+    public AmazonSQSConsumer add(final AmazonSQS amazonSQS, final AmazonSQSProperties amazonSQSProperties,
+            final AmazonSQSMessageHandler amazonSQSMessageHandler, final MessageKeyExtractor messageKeyExtractor,
+            final int weight, final int priority) {
+        if (weight < 1) {
+            throw new IllegalArgumentException("weight must be greater than or equal to 1");
+        }
+        if (priority < 0) {
+            throw new IllegalArgumentException("priority must be greater than or equal to 0");
+        }
+        final AmazonSQSConsumer consumer = new AmazonSQSConsumer(amazonSQS, amazonSQSProperties,
+            amazonSQSMessageHandler, messageKeyExtractor, pollerPool, weight, priority);
+        consumers.add(consumer);
+        return consumer;
+    }
+
+    /**
+     * It starts the consumers of the group which aren't running, starting the pollers again when the group
+     * was stopped.
+     */
+    public void start() {
+        pollerPool.start();
+        consumers.stream().filter(consumer -> !consumer.isRunning()).forEach(Consumer::start);
+    }
+
+    /**
+     * It stops all consumers of the group, see {@link AmazonSQSConsumer#stop()}, and then disposes the
+     * pollers until the group is started again.
+     *
+     * @return Future completed once all consumers are stopped and the pollers disposed.
+     */
+    public CompletableFuture<Void> stop() {
+        return CompletableFuture.allOf(consumers.stream().map(Consumer::stop).toArray(CompletableFuture[]::new))
+                .whenComplete((ignored, throwable) -> pollerPool.dispose());
+    }
+
+    /**
+     * @return Consumers of the group.
+     */
+    public List<Consumer> getConsumers() {
+        return Collections.unmodifiableList(consumers);
+    }
+
+    /**
+     * @return Logger of the metrics of all consumers of the group, including those added later.
+     */
+    public ConsumerMetricsLogger getMetricsLogger() {
+        return new ConsumerMetricsLogger(getConsumers());
+    }
+}
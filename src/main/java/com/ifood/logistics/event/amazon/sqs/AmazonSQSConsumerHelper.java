@@ -3,71 +3,193 @@ package com.lorem.logistics.event.amazon.sqs;
 import com.amazonaws.services.sqs.model.DeleteMessageBatchResult;
 import com.amazonaws.services.sqs.model.Message;
 import com.lorem.logistics.event.amazon.sqs.configuration.AmazonSQSProperties;
+import com.lorem.logistics.event.amazon.sqs.handler.AbstractSingleAmazonSQSMessageHandler;
 import com.lorem.logistics.event.amazon.sqs.handler.AmazonSQSMessageHandler;
+import com.lorem.logistics.event.amazon.sqs.handler.HandlerConcurrencyLimiter;
 import com.lorem.logistics.event.amazon.sqs.handler.MessageDecorator;
 import com.lorem.logistics.event.metrics.EventMetrics;
+import com.lorem.logistics.event.metrics.Gauge;
+import com.lorem.logistics.event.metrics.Timer;
 import com.newrelic.api.agent.NewRelic;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 import reactor.core.publisher.ParallelFlux;
 import reactor.core.scheduler.Scheduler;
 import reactor.core.scheduler.Schedulers;
+import reactor.util.context.Context;
 
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.BooleanSupplier;
-import java.util.function.Predicate;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
+import static java.time.Duration.ofMillis;
+
 class AmazonSQSConsumerHelper {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(AmazonSQSConsumerHelper.class);
-    private static final String DELETED_MESSAGES_METRIC = "SQS deleted messages";
+    private static final String HANDLE_LATENCY_HISTOGRAM = "SQS handle latency";
+    private static final String RAIL_QUEUED_MESSAGES_GAUGE = "SQS rail queued messages";
 
     private final AmazonSQSProperties amazonSQSProperties;
     private final AmazonSQSMessageHandler amazonSQSMessageHandler;
-    private final AmazonSQSProvider amazonSQSProvider;
     private final AmazonSQSSource amazonSQSSource;
+    private final AmazonSQSAcknowledger amazonSQSAcknowledger;
+    private final AmazonSQSPublisherScaler amazonSQSPublisherScaler;
+    private final AmazonSQSLanes amazonSQSLanes;
+    private final AmazonSQSPrefetchBuffer amazonSQSPrefetchBuffer;
+    private final AmazonSQSDeduplicator amazonSQSDeduplicator;
+    private final HandlerConcurrencyLimiter handlerConcurrencyLimiter;
     private final EventMetrics eventMetrics;
+    private final Timer handleLatency;
+    private final Gauge railQueuedMessages;
 
     AmazonSQSConsumerHelper(final AmazonSQSProperties amazonSQSProperties,
-            final AmazonSQSMessageHandler amazonSQSMessageHandler, final AmazonSQSProvider amazonSQSProvider,
-            final AmazonSQSSource amazonSQSSource, final EventMetrics eventMetrics) {
+            final AmazonSQSMessageHandler amazonSQSMessageHandler, final AmazonSQSSource amazonSQSSource,
+            final AmazonSQSAcknowledger amazonSQSAcknowledger, final AmazonSQSPublisherScaler amazonSQSPublisherScaler,
+            final AmazonSQSLanes amazonSQSLanes, final AmazonSQSPrefetchBuffer amazonSQSPrefetchBuffer,
+            final AmazonSQSDeduplicator amazonSQSDeduplicator,
+            final HandlerConcurrencyLimiter handlerConcurrencyLimiter, final EventMetrics eventMetrics) {
         this.amazonSQSProperties = amazonSQSProperties;
         this.amazonSQSMessageHandler = amazonSQSMessageHandler;
-        this.amazonSQSProvider = amazonSQSProvider;
         this.amazonSQSSource = amazonSQSSource;
+        this.amazonSQSAcknowledger = amazonSQSAcknowledger;
+        this.amazonSQSPublisherScaler = amazonSQSPublisherScaler;
+        this.amazonSQSLanes = amazonSQSLanes;
+        this.amazonSQSPrefetchBuffer = amazonSQSPrefetchBuffer;
+        this.amazonSQSDeduplicator = amazonSQSDeduplicator;
+        this.handlerConcurrencyLimiter = handlerConcurrencyLimiter;
         this.eventMetrics = eventMetrics;
+        this.handleLatency = eventMetrics.timer(HANDLE_LATENCY_HISTOGRAM);
+        this.railQueuedMessages = eventMetrics.gauge(RAIL_QUEUED_MESSAGES_GAUGE);
     }
 
     Flux<DeleteMessageBatchResult> createConsumer(final ParallelFlux<List<Message>> sources) {
-        return sources.flatMap(amazonSQSMessageHandler::handle)
-                .map(this::filterAndMapMessageDecorators)
-                .filter(m -> !m.isEmpty())
-                .flatMap(messages -> Flux.just(amazonSQSProvider.delete(messages)))
-                .sequential()
-                .doOnNext(deleteMessageBatchResult -> {
-                    eventMetrics.addToMetric(DELETED_MESSAGES_METRIC, deleteMessageBatchResult.getSuccessful().size());
-                    LOGGER.debug("{} messages was deleted in batch after processing.",
-                        deleteMessageBatchResult.getSuccessful().size());
-                })
+        return acknowledge(sources).transform(amazonSQSPrefetchBuffer::abandoningEvicted)
                 .onErrorContinue((throwable, o) -> {
                     NewRelic.noticeError(throwable);
-                    LOGGER.error("An unexpected error occurred while deleting messages in batch.", throwable);
+                    LOGGER.error("An unexpected error occurred while consuming messages.", throwable);
                 });
     }
 
-    private List<Message> filterAndMapMessageDecorators(final List<MessageDecorator> messageDecorators) {
-        return messageDecorators.stream()
-                .filter(MessageDecorator::isSuccessfullyProcessed)
-                .map(MessageDecorator::getMessage)
-                .collect(Collectors.toList());
+    /**
+     * It acknowledges the handled messages in the shared acknowledgement stage, except for FIFO queues,
+     * whose lanes acknowledge their own messages in order.
+     */
+    private Flux<DeleteMessageBatchResult> acknowledge(final ParallelFlux<List<Message>> sources) {
+        if (amazonSQSLanes.isEnabled() && amazonSQSProperties.getFifo()) {
+            return amazonSQSLanes.route(sources.sequential(), this::handle,
+                handled -> amazonSQSAcknowledger.acknowledgeInOrder(handled.flatMapIterable(Function.identity())));
+        }
+        return handle(sources).flatMapIterable(Function.identity()).transform(amazonSQSAcknowledger::acknowledge);
+    }
+
+    private Flux<List<MessageDecorator>> handle(final ParallelFlux<List<Message>> sources) {
+        if (amazonSQSLanes.isEnabled()) {
+            return amazonSQSLanes.route(sources.sequential(), this::handle);
+        }
+        if (amazonSQSProperties.getHandlerBatchSize() != null) {
+            return handleBatches(sources.sequential());
+        }
+        return sources.flatMap(this::handle).sequential();
+    }
+
+    /**
+     * It aggregates the messages of all rails into batches of up to handler batch size messages, flushing
+     * a batch earlier when its first message waited longer than the handler batch max delay. Batches are
+     * handled on {@link Schedulers#elastic()}, as many at the same time as there are rails, the batches
+     * ready meanwhile waiting in order.
+     */
+    private Flux<List<MessageDecorator>> handleBatches(final Flux<List<Message>> batches) {
+        return batches.flatMapIterable(Function.identity())
+                .bufferTimeout(amazonSQSProperties.getHandlerBatchSize(),
+                    ofMillis(amazonSQSProperties.getHandlerBatchMaxDelayMillis()))
+                .onBackpressureBuffer()
+                .flatMap(messages -> handle(messages).subscribeOn(Schedulers.elastic()),
+                    amazonSQSProperties.getMaxNumberOfPublishers());
+    }
+
+    /**
+     * It acknowledges the messages already handled within the deduplication window without handling them
+     * again, remembering the messages handled successfully.
+     */
+    private Flux<List<MessageDecorator>> handle(final List<Message> messages) {
+        final List<Message> duplicates = amazonSQSDeduplicator.duplicates(messages);
+        if (duplicates.isEmpty()) {
+            return handleOnce(messages);
+        }
+        amazonSQSPrefetchBuffer.giveBack(duplicates);
+        final Flux<List<MessageDecorator>> acknowledged =
+            Flux.just(duplicates.stream().map(MessageDecorator::withSuccess).collect(Collectors.toList()));
+        if (duplicates.size() == messages.size()) {
+            return acknowledged;
+        }
+        final Set<Message> duplicated = Collections.newSetFromMap(new IdentityHashMap<>());
+        duplicated.addAll(duplicates);
+        return acknowledged.concatWith(handleOnce(
+            messages.stream().filter(message -> !duplicated.contains(message)).collect(Collectors.toList())));
+    }
+
+    private Flux<List<MessageDecorator>> handleOnce(final List<Message> messages) {
+        return Flux.defer(() -> timedHandle(messages))
+                .onErrorResume(throwable -> {
+                    NewRelic.noticeError(throwable);
+                    LOGGER.error("An unexpected error occurred while handling messages.", throwable);
+                    return Flux.just(messages.stream().map(MessageDecorator::withFail).collect(Collectors.toList()));
+                })
+                .doOnNext(amazonSQSDeduplicator::handled)
+                .doFinally(signalType -> amazonSQSPrefetchBuffer.giveBack(messages))
+                .subscriberContext(Context.of(HandlerConcurrencyLimiter.class, handlerConcurrencyLimiter,
+                    AbstractSingleAmazonSQSMessageHandler.STREAMING_ACKNOWLEDGEMENT,
+                    amazonSQSProperties.getStreamingAcknowledgement()));
+    }
+
+    private Flux<List<MessageDecorator>> timedHandle(final List<Message> messages) {
+        final long start = System.nanoTime();
+        return amazonSQSMessageHandler.handle(messages)
+                .doFinally(signalType -> handleLatency.recordSince(start));
+    }
+
+    /**
+     * It creates the rails of the messages received by the publishers, which keep polling while
+     * {@code repeat} holds and are cancelled, along with their receives under way, once
+     * {@code pollingStopped} completes.
+     */
+    ParallelFlux<List<Message>> createSources(final BooleanSupplier repeat, final Mono<Void> pollingStopped,
+            final Scheduler publisherScheduler) {
+        return amazonSQSPublisherScaler.publishers()
+                .flatMap(i -> publisher(repeat).subscribeOn(publisherScheduler),
+                    amazonSQSProperties.getMaxNumberOfPublishers())
+                .takeUntilOther(pollingStopped)
+                .doOnNext(messages -> railQueuedMessages.add(messages.size()))
+                .parallel(amazonSQSProperties.getMaxNumberOfPublishers())
+                .runOn(Schedulers.elastic())
+                .doOnNext(messages -> railQueuedMessages.add(-messages.size()));
     }
 
-    ParallelFlux<List<Message>> createSources(final BooleanSupplier repeat, final Scheduler publisherScheduler) {
-        return Flux.range(0, amazonSQSProperties.getNumberOfPublishers())
-                .flatMap(i -> amazonSQSSource.create(repeat, eventMetrics).subscribeOn(publisherScheduler))
-                .parallel(amazonSQSProperties.getNumberOfPublishers())
-                .runOn(Schedulers.elastic());
+    /**
+     * A publisher keeps polling until {@code repeat} stops holding or the scaler retires it. However it
+     * finishes, retired, stopped or failed once its retries run out, it tells the scaler whether it was
+     * retired.
+     */
+    private Flux<List<Message>> publisher(final BooleanSupplier repeat) {
+        return Flux.defer(() -> {
+            final AtomicBoolean retired = new AtomicBoolean();
+            final BooleanSupplier keepPublishing = () -> {
+                if (!repeat.getAsBoolean()) {
+                    return false;
+                }
+                retired.set(!amazonSQSPublisherScaler.keepPublishing());
+                return !retired.get();
+            };
+            return amazonSQSSource.create(keepPublishing, eventMetrics)
+                    .doFinally(signalType -> amazonSQSPublisherScaler.publisherFinished(retired.get()));
+        });
     }
 }
@@ -0,0 +1,204 @@
+package com.lorem.logistics.event.amazon.sqs;
+
+import com.amazonaws.services.sqs.model.Message;
+import com.amazonaws.services.sqs.model.MessageAttributeValue;
+import com.lorem.logistics.event.amazon.sqs.configuration.AmazonSQSProperties;
+import com.lorem.logistics.event.amazon.sqs.handler.MessageDecorator;
+import com.lorem.logistics.event.metrics.Counter;
+import com.lorem.logistics.event.metrics.EventMetrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Remembers the messages handled successfully within the deduplication window, so that their redeliveries
+ * are acknowledged without being handled again. <br>
+ * Messages are identified by a 64-bit hash of their deduplication attribute, or of their {@code MessageId},
+ * kept in an open addressing hash set of primitive longs along with a ring of the hashes in the order they
+ * were remembered, so the cache takes the same memory whatever the ids: 16 bytes per message for the ring
+ * and the remembering times, plus 16 to 32 bytes per message for the hash set, whose size is 4 times the
+ * cache size rounded down to a power of 2. That's about 37 bytes per message for a cache of 100000
+ * messages, as reported by the cache bytes gauge. The oldest messages are forgotten once the window
+ * elapsed or when the cache is full. <br>
+ * It's disabled when no deduplication window is configured.
+ */
+class AmazonSQSDeduplicator {
+
+    private static final String LOOKUPS_METRIC = "SQS deduplication lookups";
+    private static final String DUPLICATES_METRIC = "SQS duplicate messages";
+    private static final String CACHE_SIZE_GAUGE = "SQS deduplication cache size";
+    private static final String CACHE_BYTES_GAUGE = "SQS deduplication cache bytes";
+    private static final long EMPTY = 0L;
+
+    private final String deduplicationAttribute;
+    private final long windowNanos;
+    private final long[] table;
+    private final long[] ring;
+    private final long[] rememberedAt;
+    private final int mask;
+    private final Counter lookups;
+    private final Counter duplicates;
+
+    private int head;
+    private int size;
+
+    AmazonSQSDeduplicator(final AmazonSQSProperties amazonSQSProperties, final EventMetrics eventMetrics) {
+        final Integer windowSeconds = amazonSQSProperties.getDeduplicationWindowSeconds();
+        final int capacity = windowSeconds == null ? 0 : amazonSQSProperties.getDeduplicationCacheSize();
+        this.deduplicationAttribute = amazonSQSProperties.getDeduplicationAttribute();
+        this.windowNanos = windowSeconds == null ? 0L : TimeUnit.SECONDS.toNanos(windowSeconds);
+        this.table = new long[capacity == 0 ? 0 : Integer.highestOneBit(capacity) << 2];
+        this.ring = new long[capacity];
+        this.rememberedAt = new long[capacity];
+        this.mask = table.length - 1;
+        this.lookups = eventMetrics.counter(LOOKUPS_METRIC);
+        this.duplicates = eventMetrics.counter(DUPLICATES_METRIC);
+        if (isEnabled()) {
+            final long bytes = Long.BYTES * (long) (table.length + ring.length + rememberedAt.length);
+            eventMetrics.registerGauge(CACHE_SIZE_GAUGE, this::size);
+            eventMetrics.registerGauge(CACHE_BYTES_GAUGE, () -> bytes);
+        }
+    }
+
+    boolean isEnabled() {
+        return ring.length > 0;
+    }
+
+    /**
+     * It returns the messages already handled within the deduplication window.
+     *
+     * @param messages Received messages.
+     * @return Duplicate messages, empty when deduplication is disabled.
+     */
+    List<Message> duplicates(final List<Message> messages) {
+        if (!isEnabled()) {
+            return Collections.emptyList();
+        }
+        final List<Message> found = new ArrayList<>();
+        synchronized (this) {
+            expire(System.nanoTime());
+            for (final Message message : messages) {
+                if (indexOf(hash(message)) >= 0) {
+                    found.add(message);
+                }
+            }
+        }
+        lookups.add(messages.size());
+        duplicates.add(found.size());
+        return found;
+    }
+
+    /**
+     * It remembers the messages handled successfully.
+     *
+     * @param handledMessages Handled messages.
+     */
+    void handled(final List<MessageDecorator> handledMessages) {
+        if (!isEnabled()) {
+            return;
+        }
+        synchronized (this) {
+            final long now = System.nanoTime();
+            expire(now);
+            for (final MessageDecorator handled : handledMessages) {
+                if (handled.isSuccessfullyProcessed()) {
+                    remember(hash(handled.getMessage()), now);
+                }
+            }
+        }
+    }
+
+    synchronized long size() {
+        return size;
+    }
+
+    private void remember(final long hash, final long now) {
+        int index = slot(hash);
+        while (table[index] != EMPTY) {
+            if (table[index] == hash) {
+                return;
+            }
+            index = (index + 1) & mask;
+        }
+        if (size == ring.length) {
+            forgetOldest();
+            remember(hash, now);
+            return;
+        }
+        table[index] = hash;
+        final int tail = (head + size) % ring.length;
+        ring[tail] = hash;
+        rememberedAt[tail] = now;
+        size++;
+    }
+
+    private void expire(final long now) {
+        while (size > 0 && now - rememberedAt[head] > windowNanos) {
+            forgetOldest();
+        }
+    }
+
+    private void forgetOldest() {
+        remove(ring[head]);
+        head = (head + 1) % ring.length;
+        size--;
+    }
+
+    private int indexOf(final long hash) {
+        int index = slot(hash);
+        while (table[index] != EMPTY) {
+            if (table[index] == hash) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * It removes a hash by shifting back the following hashes of its cluster, so lookups never need
+     * tombstones.
+     */
+    private void remove(final long hash) {
+        int hole = indexOf(hash);
+        if (hole < 0) {
+            return;
+        }
+        int index = hole;
+        while (true) {
+            index = (index + 1) & mask;
+            if (table[index] == EMPTY) {
+                break;
+            }
+            final int home = slot(table[index]);
+            final boolean reachable = hole <= index ? hole < home && home <= index : hole < home || home <= index;
+            if (!reachable) {
+                table[hole] = table[index];
+                hole = index;
+            }
+        }
+        table[hole] = EMPTY;
+    }
+
+    private int slot(final long hash) {
+        return (int) (hash ^ hash >>> 32) & mask;
+    }
+
+    private long hash(final Message message) {
+        final MessageAttributeValue attribute =
+            deduplicationAttribute == null ? null : message.getMessageAttributes().get(deduplicationAttribute);
+        final String key = attribute == null || attribute.getStringValue() == null ? message.getMessageId()
+            : attribute.getStringValue();
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return hash == EMPTY ? 1L : hash;
+    }
+}
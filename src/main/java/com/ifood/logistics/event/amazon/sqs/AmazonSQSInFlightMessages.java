@@ -0,0 +1,165 @@
+package com.lorem.logistics.event.amazon.sqs;
+
+import com.amazonaws.services.sqs.model.Message;
+import com.lorem.logistics.event.amazon.sqs.configuration.AmazonSQSProperties;
+import com.lorem.logistics.event.metrics.EventMetrics;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps track of the in-flight messages of a consumer, i.e. messages received but not acknowledged yet,
+ * bounding them to the configured max in-flight messages. <br>
+ * A publisher reserves room for a whole receive batch before calling SQS, the room not used by the
+ * received messages is given back right after the receive and the room of each message is given back
+ * once the message is completed (deleted or failed). <br>
+ * Each message is tracked with the time its visibility timeout expires, when the consumer sets a
+ * visibility timeout for its receives. Messages are tracked by identity, not by the {@link Message#equals}
+ * of the SDK, which compares their whole body and attributes and changes when a handler changes them.
+ */
+class AmazonSQSInFlightMessages {
+
+    private static final String IN_FLIGHT_MESSAGES_GAUGE = "SQS in-flight messages";
+
+    private final ConcurrentMap<Key, Long> messages = new ConcurrentHashMap<>();
+    private final AmazonSQSProperties amazonSQSProperties;
+    private final AmazonSQSRoom room;
+
+    AmazonSQSInFlightMessages(final AmazonSQSProperties amazonSQSProperties, final EventMetrics eventMetrics) {
+        this.amazonSQSProperties = amazonSQSProperties;
+        this.room = new AmazonSQSRoom(amazonSQSProperties.getMaxInFlightMessages());
+        eventMetrics.registerGauge(IN_FLIGHT_MESSAGES_GAUGE, this::size);
+    }
+
+    /**
+     * It tries to reserve room for {@code permits} messages without waiting.
+     *
+     * @param permits Number of messages.
+     * @return If the room was reserved.
+     */
+    boolean tryReserve(final int permits) {
+        return room.tryReserve(permits);
+    }
+
+    /**
+     * It reserves room for {@code permits} messages, completing once enough room was given back. Pending
+     * reservations are served in order.
+     *
+     * @param permits Number of messages.
+     * @return Mono completing when the room is reserved.
+     */
+    Mono<Void> reserve(final int permits) {
+        return room.reserve(permits);
+    }
+
+    /**
+     * It starts tracking the received messages and gives back the reserved room they didn't use.
+     *
+     * @param permits Reserved room for the receive.
+     * @param receivedMessages Received messages.
+     */
+    void received(final int permits, final List<Message> receivedMessages) {
+        final Long visibleUntil = visibleUntil(System.currentTimeMillis());
+        receivedMessages.forEach(message -> messages.put(new Key(message), visibleUntil));
+        release(permits - receivedMessages.size());
+    }
+
+    /**
+     * It returns the in-flight messages whose visibility timeout expires before {@code time}.
+     *
+     * @param time Time in milliseconds.
+     * @return In-flight messages expiring before the given time.
+     */
+    List<Message> expiringBefore(final long time) {
+        return messages.entrySet()
+                .stream()
+                .filter(entry -> entry.getValue() < time)
+                .map(entry -> entry.getKey().message)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * It checks whether the visibility timeout of an in-flight message expires before {@code time}.
+     *
+     * @param message In-flight message.
+     * @param time Time in milliseconds.
+     * @return If the message is in flight and expiring before the given time.
+     */
+    boolean isExpiringBefore(final Message message, final long time) {
+        return messages.getOrDefault(new Key(message), Long.MAX_VALUE) < time;
+    }
+
+    /**
+     * @return Messages in flight.
+     */
+    List<Message> getMessages() {
+        return messages.keySet().stream().map(key -> key.message).collect(Collectors.toList());
+    }
+
+    /**
+     * It accounts a visibility timeout extension made at {@code extendedAt}, if the message is still in
+     * flight.
+     *
+     * @param message Extended message.
+     * @param extendedAt Time in milliseconds the extension was requested.
+     */
+    void extended(final Message message, final long extendedAt) {
+        messages.replace(new Key(message), visibleUntil(extendedAt));
+    }
+
+    /**
+     * It gives back reserved room that won't be used, e.g. when a receive fails or is cancelled.
+     *
+     * @param permits Reserved room.
+     */
+    void release(final int permits) {
+        room.release(permits);
+    }
+
+    /**
+     * It stops tracking the given messages, giving back their room.
+     *
+     * @param completedMessages Deleted or failed messages.
+     */
+    void completed(final Collection<Message> completedMessages) {
+        release((int) completedMessages.stream().filter(message -> messages.remove(new Key(message)) != null).count());
+    }
+
+    /**
+     * @return Number of in-flight messages.
+     */
+    int size() {
+        return messages.size();
+    }
+
+    private Long visibleUntil(final long time) {
+        final Integer visibilityTimeoutSeconds = amazonSQSProperties.getVisibilityTimeoutSeconds();
+        return visibilityTimeoutSeconds == null ? Long.MAX_VALUE : time + visibilityTimeoutSeconds * 1000L;
+    }
+
+    /**
+     * Identity of a received message.
+     */
+    private static final class Key {
+
+        private final Message message;
+
+        private Key(final Message message) {
+            this.message = message;
+        }
+
+        @Override
+        public boolean equals(final Object other) {
+            return other instanceof Key && ((Key) other).message == message;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(message);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.lorem.logistics.event.amazon.sqs;
+
+import com.amazonaws.services.sqs.model.Message;
+import com.amazonaws.services.sqs.model.MessageSystemAttributeName;
+import com.lorem.logistics.event.amazon.sqs.configuration.AmazonSQSProperties;
+import com.lorem.logistics.event.amazon.sqs.handler.MessageDecorator;
+import com.lorem.logistics.event.metrics.EventMetrics;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Routes received messages to a fixed set of serial lanes by their key. <br>
+ * The messages of a receive batch are split by key and each key goes to the lane given by its hash, so
+ * messages with the same key are always handled by the same lane, while different lanes run concurrently.
+ * A lane handles the messages of one key of a batch at a time. <br>
+ * For FIFO queues the key is the message group id and the messages of a group are handled one at a time
+ * and in the order they were received. Once a message of a group fails, the following messages of the
+ * group are failed without being handled, so they are redelivered in order, and each lane acknowledges
+ * its messages in order, see {@link AmazonSQSAcknowledger#acknowledgeInOrder(Flux)}. Otherwise the key is given by
+ * the {@link MessageKeyExtractor} of the consumer, if any.
+ */
+class AmazonSQSLanes {
+
+    private static final String LANE_DEPTH_GAUGE = "SQS lane %d depth";
+    private static final MessageKeyExtractor MESSAGE_GROUP_ID =
+        message -> message.getAttributes().get(MessageSystemAttributeName.MessageGroupId.toString());
+
+    private final AmazonSQSProperties amazonSQSProperties;
+    private final MessageKeyExtractor messageKeyExtractor;
+    private final AtomicIntegerArray depths;
+
+    AmazonSQSLanes(final AmazonSQSProperties amazonSQSProperties, final MessageKeyExtractor messageKeyExtractor,
+            final EventMetrics eventMetrics) {
+        this.amazonSQSProperties = amazonSQSProperties;
+        this.messageKeyExtractor = amazonSQSProperties.getFifo() ? MESSAGE_GROUP_ID : messageKeyExtractor;
+        this.depths = new AtomicIntegerArray(amazonSQSProperties.getNumberOfLanes());
+        if (isEnabled()) {
+            for (int lane = 0; lane < depths.length(); lane++) {
+                final int index = lane;
+                eventMetrics.registerGauge(String.format(LANE_DEPTH_GAUGE, lane), () -> depths.get(index));
+            }
+        }
+    }
+
+    /**
+     * @return If messages are routed to lanes, i.e. for FIFO queues or when there is a key extractor.
+     */
+    boolean isEnabled() {
+        return messageKeyExtractor != null;
+    }
+
+    /**
+     * It routes the received batches to the lanes, each lane running on its own worker.
+     *
+     * @param batches Received batches.
+     * @param handle Handling of a list of messages.
+     * @return Flux of handled messages.
+     */
+    Flux<List<MessageDecorator>> route(final Flux<List<Message>> batches,
+            final Function<List<Message>, Flux<List<MessageDecorator>>> handle) {
+        return route(batches, handle, Function.identity());
+    }
+
+    /**
+     * It routes the received batches to the lanes, each lane running on its own worker and applying the
+     * given transformation to its own handled messages, e.g. to acknowledge them in order.
+     *
+     * @param batches Received batches.
+     * @param handle Handling of a list of messages.
+     * @param laneTransformation Transformation of the handled messages of each lane.
+     * @param <T> Type of the elements of the transformed lanes.
+     * @return Flux of the transformed lanes merged.
+     */
+    <T> Flux<T> route(final Flux<List<Message>> batches,
+            final Function<List<Message>, Flux<List<MessageDecorator>>> handle,
+            final Function<Flux<List<MessageDecorator>>, Flux<T>> laneTransformation) {
+        final int numberOfLanes = depths.length();
+        return batches.flatMapIterable(this::splitByKey)
+                .groupBy(messages -> lane(messages.get(0), numberOfLanes))
+                .flatMap(lane -> {
+                    final int index = lane.key();
+                    return lane.doOnNext(messages -> depths.addAndGet(index, messages.size()))
+                            .publishOn(Schedulers.elastic())
+                            .concatMap(messages -> handle(messages, handle)
+                                    .doFinally(signalType -> depths.addAndGet(index, -messages.size())))
+                            .transform(laneTransformation);
+                }, numberOfLanes);
+    }
+
+    /**
+     * @param lane Lane index.
+     * @return Number of messages routed to the lane and not handled yet.
+     */
+    int getDepth(final int lane) {
+        return depths.get(lane);
+    }
+
+    private Collection<List<Message>> splitByKey(final List<Message> messages) {
+        return messages.stream()
+                .collect(Collectors.groupingBy(this::key, LinkedHashMap::new, Collectors.toList()))
+                .values();
+    }
+
+    private int lane(final Message message, final int numberOfLanes) {
+        return Math.floorMod(key(message).hashCode(), numberOfLanes);
+    }
+
+    private String key(final Message message) {
+        return Objects.toString(messageKeyExtractor.extract(message), "");
+    }
+
+    private Flux<List<MessageDecorator>> handle(final List<Message> messages,
+            final Function<List<Message>, Flux<List<MessageDecorator>>> handle) {
+        if (!amazonSQSProperties.getFifo()) {
+            return handle.apply(messages);
+        }
+        final AtomicBoolean failed = new AtomicBoolean();
+        return Flux.fromIterable(messages).concatMap(message -> {
+            if (failed.get()) {
+                return Flux.just(Collections.singletonList(MessageDecorator.withFail(message)));
+            }
+            return handle.apply(Collections.singletonList(message))
+                    .doOnNext(messageDecorators -> {
+                        if (messageDecorators.stream().anyMatch(decorator -> !decorator.isSuccessfullyProcessed())) {
+                            failed.set(true);
+                        }
+                    });
+        });
+    }
+}
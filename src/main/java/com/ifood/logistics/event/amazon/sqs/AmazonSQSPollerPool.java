@@ -0,0 +1,253 @@
+package com.lorem.logistics.event.amazon.sqs;
+
+import com.lorem.logistics.event.metrics.EventMetrics;
+import com.lorem.logistics.event.metrics.Timer;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pool of pollers shared by the consumers of an {@link AmazonSQSConsumerGroup}. <br>
+ * Each receive of a consumer takes a poller for as long as it runs, on a fixed thread pool of as many
+ * threads as pollers, so the consumers of a group never run more receives at the same time than there
+ * are pollers. <br>
+ * When receives wait for a poller, they are handed to the waiting consumers of the highest priority whose
+ * last receive returned messages, so a consumer of a high priority queue takes the pollers over whenever its
+ * queue has a backlog. A consumer whose last receive was empty competes at priority 0, so it can't hold the
+ * pollers with long polls of an empty queue. Among consumers of the same priority, pollers are handed by
+ * weighted fair queueing: each
+ * consumer has a share with a weight and a virtual time, which grows by the time it holds a poller divided
+ * by its weight, and the waiting share with the lowest virtual time gets the next poller. Long polls of
+ * empty queues are thus charged for the time they take, and a share starting to wait catches up with the
+ * virtual time of the pool, so idle consumers don't save up pollers. <br>
+ * The publishers of the consumers are subscribed on a bounded scheduler shared by the group, as they only
+ * block the pollers. The threads of the pool are disposed when its group stops and created again when it
+ * starts.
+ */
+class AmazonSQSPollerPool {
+
+    private static final String POLLER = "ConsumerGroupPoller";
+    private static final String PUBLISHER = "ConsumerGroupPublisher";
+    private static final String WAITING_PUBLISHERS_GAUGE = "SQS publishers waiting for a poller";
+    private static final String POLLER_WAIT_LATENCY_HISTOGRAM = "SQS poller wait latency";
+    private static final long NOT_ACQUIRED = Long.MIN_VALUE;
+
+    private final List<Share> shares = new ArrayList<>();
+    private final int numberOfPollers;
+
+    private ExecutorService executorService;
+    private volatile Scheduler scheduler;
+    private Scheduler publisherScheduler;
+    private int available;
+    private long virtualTime;
+
+    /**
+     * It constructs a started pool.
+     *
+     * @param numberOfPollers Number of pollers, i.e. of receives running at the same time.
+     */
+    AmazonSQSPollerPool(final int numberOfPollers) {
+        this.numberOfPollers = numberOfPollers;
+        this.available = numberOfPollers;
+        start();
+    }
+
+    /**
+     * It creates the threads of the pollers and of the publishers, unless they're already running.
+     */
+    synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        final AtomicInteger threads = new AtomicInteger();
+        executorService = Executors.newFixedThreadPool(numberOfPollers, runnable -> {
+            final Thread thread = new Thread(runnable, POLLER + "-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler = Schedulers.fromExecutorService(executorService);
+        publisherScheduler = Schedulers.newParallel(PUBLISHER, Runtime.getRuntime().availableProcessors(), true);
+    }
+
+    /**
+     * It creates the share of a consumer, reporting its publishers waiting for a poller by a gauge and the
+     * time its receives wait for a poller by a histogram.
+     *
+     * @param weight Weight of the consumer among the consumers of the same priority.
+     * @param priority Priority of the consumer, from 0, the higher the sooner it gets pollers.
+     * @param eventMetrics Metrics of the consumer.
+     * @return Share of the consumer.
+     */
+    synchronized Share share(final int weight, final int priority, final EventMetrics eventMetrics) {
+        final Share share = new Share(weight, priority, eventMetrics.timer(POLLER_WAIT_LATENCY_HISTOGRAM));
+        shares.add(share);
+        eventMetrics.registerGauge(WAITING_PUBLISHERS_GAUGE, share::getWaiting);
+        return share;
+    }
+
+    /**
+     * @return Scheduler the publishers of the consumers are subscribed on.
+     * @throws IllegalStateException When the pool is disposed.
+     */
+    synchronized Scheduler getPublisherScheduler() {
+        if (publisherScheduler == null) {
+            throw new IllegalStateException("The consumer group is stopped");
+        }
+        return publisherScheduler;
+    }
+
+    /**
+     * It disposes the threads of the pollers and of the publishers, until the pool is started again.
+     */
+    synchronized void dispose() {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.dispose();
+        executorService.shutdownNow();
+        publisherScheduler.dispose();
+        scheduler = null;
+        publisherScheduler = null;
+    }
+
+    private void grant() {
+        final List<MonoSink<Void>> granted = new ArrayList<>();
+        synchronized (this) {
+            while (available > 0) {
+                final Share next = next();
+                if (next == null) {
+                    break;
+                }
+                available--;
+                virtualTime = next.virtualTime;
+                granted.add(next.waiting.poll());
+            }
+        }
+        granted.forEach(MonoSink::success);
+    }
+
+    private Share next() {
+        Share next = null;
+        for (final Share share : shares) {
+            if (!share.waiting.isEmpty() && (next == null || share.priority() > next.priority()
+                    || share.priority() == next.priority() && share.virtualTime < next.virtualTime)) {
+                next = share;
+            }
+        }
+        return next;
+    }
+
+    private synchronized boolean isWaiting() {
+        return shares.stream().anyMatch(share -> !share.waiting.isEmpty());
+    }
+
+    /**
+     * Share of the pollers of a consumer.
+     */
+    final class Share {
+
+        private final Queue<MonoSink<Void>> waiting = new ArrayDeque<>();
+        private final int weight;
+        private final int priority;
+        private final Timer pollerWaitLatency;
+
+        private long virtualTime;
+        private volatile boolean backlogged = true;
+
+        private Share(final int weight, final int priority, final Timer pollerWaitLatency) {
+            this.weight = weight;
+            this.priority = priority;
+            this.pollerWaitLatency = pollerWaitLatency;
+        }
+
+        /**
+         * It runs {@code receive} on the pool once a poller is available, giving the poller back when the
+         * receive terminates or is cancelled. The share is backlogged as long as its receives return some
+         * messages.
+         *
+         * @param receive Receive call.
+         * @param <T> Type of the receive result.
+         * @return Flux of the receive result.
+         */
+        <T extends Collection<?>> Flux<T> poll(final Flux<T> receive) {
+            return Flux.defer(() -> {
+                final long start = System.nanoTime();
+                final AtomicLong acquiredAt = new AtomicLong(NOT_ACQUIRED);
+                return acquire().doOnSuccess(ignored -> {
+                    pollerWaitLatency.recordSince(start);
+                    acquiredAt.set(System.nanoTime());
+                })
+                        .thenMany(receive.subscribeOn(scheduler))
+                        .doOnNext(messages -> backlogged = !messages.isEmpty())
+                        .doFinally(signalType -> {
+                            final long acquired = acquiredAt.getAndSet(NOT_ACQUIRED);
+                            if (acquired != NOT_ACQUIRED) {
+                                release(System.nanoTime() - acquired);
+                            }
+                        });
+            });
+        }
+
+        private int priority() {
+            return backlogged ? priority : 0;
+        }
+
+        private Mono<Void> acquire() {
+            return Mono.create(sink -> {
+                synchronized (AmazonSQSPollerPool.this) {
+                    if (waiting.isEmpty()) {
+                        virtualTime = Math.max(virtualTime, AmazonSQSPollerPool.this.virtualTime);
+                    }
+                    if (available > 0 && !isWaiting()) {
+                        available--;
+                    } else {
+                        waiting.add(sink);
+                        sink.onCancel(() -> cancel(sink));
+                        return;
+                    }
+                }
+                sink.success();
+            });
+        }
+
+        private void release(final long heldNanos) {
+            synchronized (AmazonSQSPollerPool.this) {
+                available++;
+                virtualTime += heldNanos / weight;
+            }
+            grant();
+        }
+
+        /**
+         * A cancelled receive either leaves the queue or, when its poller was already handed over, gives
+         * it back.
+         */
+        private void cancel(final MonoSink<Void> sink) {
+            final boolean removed;
+            synchronized (AmazonSQSPollerPool.this) {
+                removed = waiting.remove(sink);
+            }
+            if (!removed) {
+                release(0);
+            }
+        }
+
+        private long getWaiting() {
+            synchronized (AmazonSQSPollerPool.this) {
+                return waiting.size();
+            }
+        }
+    }
+}
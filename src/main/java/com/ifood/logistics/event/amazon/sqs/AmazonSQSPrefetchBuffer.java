@@ -0,0 +1,184 @@
+package com.lorem.logistics.event.amazon.sqs;
+
+import com.amazonaws.services.sqs.model.Message;
+import com.lorem.logistics.event.amazon.sqs.configuration.AmazonSQSProperties;
+import com.lorem.logistics.event.metrics.Counter;
+import com.lorem.logistics.event.metrics.EventMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.UnicastProcessor;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Bounds the messages received ahead of the handlers, i.e. received and waiting on the rails, the lanes,
+ * the handler batches or the handler concurrency limiter, to the configured prefetch messages. <br>
+ * A publisher reserves room for a whole receive batch before calling SQS, along with its in-flight room,
+ * and the room of each message is given back once it's taken, right before its handler is invoked. When
+ * the consumer sets a visibility timeout for its receives, messages taken with less than half of their
+ * visibility timeout left are evicted instead of handled: they are made visible again right away, so a
+ * message waiting too long in the buffer is redelivered at once rather than handled while its receipt
+ * expires. Evicted messages are abandoned within the consumer stream, see {@link #abandoningEvicted(Flux)}.
+ * <br>
+ * It's disabled when no prefetch messages are configured.
+ */
+class AmazonSQSPrefetchBuffer {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AmazonSQSPrefetchBuffer.class);
+    private static final String EVICTED_MESSAGES_METRIC = "SQS evicted messages";
+
+    private final AmazonSQSProperties amazonSQSProperties;
+    private final AmazonSQSInFlightMessages amazonSQSInFlightMessages;
+    private final AmazonSQSAcknowledger amazonSQSAcknowledger;
+    private final AmazonSQSRoom room;
+    private final Counter evictedMessages;
+    private final Set<Message> prefetched =
+        Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<>()));
+
+    private volatile FluxSink<List<Message>> evictions;
+
+    AmazonSQSPrefetchBuffer(final AmazonSQSProperties amazonSQSProperties,
+            final AmazonSQSInFlightMessages amazonSQSInFlightMessages,
+            final AmazonSQSAcknowledger amazonSQSAcknowledger, final EventMetrics eventMetrics) {
+        this.amazonSQSProperties = amazonSQSProperties;
+        this.amazonSQSInFlightMessages = amazonSQSInFlightMessages;
+        this.amazonSQSAcknowledger = amazonSQSAcknowledger;
+        final Integer prefetchMessages = amazonSQSProperties.getPrefetchMessages();
+        this.room = prefetchMessages == null ? null : new AmazonSQSRoom(prefetchMessages);
+        this.evictedMessages = eventMetrics.counter(EVICTED_MESSAGES_METRIC);
+    }
+
+    /**
+     * It tries to reserve room for {@code permits} messages without waiting.
+     *
+     * @param permits Number of messages.
+     * @return If the room was reserved, always when the buffer is disabled.
+     */
+    boolean tryReserve(final int permits) {
+        return room == null || room.tryReserve(permits);
+    }
+
+    /**
+     * It reserves room for {@code permits} messages, completing once enough messages were taken.
+     *
+     * @param permits Number of messages.
+     * @return Mono completing when the room is reserved.
+     */
+    Mono<Void> reserve(final int permits) {
+        return room == null ? Mono.empty() : room.reserve(permits);
+    }
+
+    /**
+     * It gives back the reserved room the received messages didn't use.
+     *
+     * @param permits Reserved room for the receive.
+     * @param receivedMessages Received messages.
+     */
+    void received(final int permits, final List<Message> receivedMessages) {
+        release(permits - receivedMessages.size());
+        if (room != null) {
+            prefetched.addAll(receivedMessages);
+        }
+    }
+
+    /**
+     * It gives back reserved room that won't be used, e.g. when a receive fails or is cancelled.
+     *
+     * @param permits Reserved room.
+     */
+    void release(final int permits) {
+        if (room != null) {
+            room.release(permits);
+        }
+    }
+
+    /**
+     * It takes messages out of the buffer right before they are handled, giving back their room and
+     * evicting those left with less than half of their visibility timeout. Messages already taken are
+     * handled as they are.
+     *
+     * @param messages Messages about to be handled.
+     * @return Messages to be handled.
+     */
+    List<Message> take(final List<Message> messages) {
+        if (room == null) {
+            return messages;
+        }
+        final List<Message> taken = giveBack(messages);
+        final Integer visibilityTimeoutSeconds = amazonSQSProperties.getVisibilityTimeoutSeconds();
+        if (visibilityTimeoutSeconds == null || taken.isEmpty()) {
+            return messages;
+        }
+        final long evictBefore = System.currentTimeMillis() + visibilityTimeoutSeconds * 500L;
+        final Set<Message> evicted = Collections.newSetFromMap(new IdentityHashMap<>());
+        taken.stream()
+                .filter(message -> amazonSQSInFlightMessages.isExpiringBefore(message, evictBefore))
+                .forEach(evicted::add);
+        if (evicted.isEmpty()) {
+            return messages;
+        }
+        LOGGER.debug("Evicting {} prefetched messages close to their visibility timeout", evicted.size());
+        evictedMessages.add(evicted.size());
+        final FluxSink<List<Message>> sink = evictions;
+        if (sink != null) {
+            sink.next(List.copyOf(evicted));
+        }
+        return messages.stream().filter(message -> !evicted.contains(message)).collect(Collectors.toList());
+    }
+
+    /**
+     * It gives back the room of the messages still in the buffer, e.g. duplicates acknowledged without
+     * being handled or messages of a handler that doesn't take them itself.
+     *
+     * @param messages Messages leaving the buffer.
+     * @return Messages which were still in the buffer.
+     */
+    List<Message> giveBack(final Collection<Message> messages) {
+        if (room == null) {
+            return Collections.emptyList();
+        }
+        final List<Message> left = messages.stream().filter(prefetched::remove).collect(Collectors.toList());
+        room.release(left.size());
+        return left;
+    }
+
+    /**
+     * It abandons the messages evicted while {@code consumer} runs as part of it, so that they are awaited
+     * and cancelled along with the consumer, and empties the buffer once the consumer terminates.
+     *
+     * @param consumer Consumer stream.
+     * @param <T> Type of the consumer elements.
+     * @return Consumer stream abandoning the evicted messages.
+     */
+    <T> Flux<T> abandoningEvicted(final Flux<T> consumer) {
+        if (room == null) {
+            return consumer;
+        }
+        return Flux.defer(() -> {
+            final UnicastProcessor<List<Message>> evicted = UnicastProcessor.create();
+            evictions = evicted.sink();
+            return consumer.doFinally(signalType -> evicted.onComplete())
+                    .mergeWith(evicted
+                            .flatMap(amazonSQSAcknowledger::abandon, amazonSQSProperties.getDeleteConcurrency())
+                            .then(Mono.empty()))
+                    .doFinally(signalType -> clear());
+        });
+    }
+
+    private void clear() {
+        final int left;
+        synchronized (prefetched) {
+            left = prefetched.size();
+            prefetched.clear();
+        }
+        room.release(left);
+    }
+}
@@ -1,6 +1,11 @@
 package com.lorem.logistics.event.amazon.sqs;
 
+import com.amazonaws.handlers.AsyncHandler;
 import com.amazonaws.services.sqs.AmazonSQS;
+import com.amazonaws.services.sqs.AmazonSQSAsync;
+import com.amazonaws.services.sqs.model.ChangeMessageVisibilityBatchRequest;
+import com.amazonaws.services.sqs.model.ChangeMessageVisibilityBatchRequestEntry;
+import com.amazonaws.services.sqs.model.ChangeMessageVisibilityBatchResult;
 import com.amazonaws.services.sqs.model.DeleteMessageBatchRequest;
 import com.amazonaws.services.sqs.model.DeleteMessageBatchRequestEntry;
 import com.amazonaws.services.sqs.model.DeleteMessageBatchResult;
@@ -8,15 +13,27 @@ import com.amazonaws.services.sqs.model.Message;
 import com.amazonaws.services.sqs.model.ReceiveMessageRequest;
 import com.amazonaws.services.sqs.model.ReceiveMessageResult;
 import com.lorem.logistics.event.amazon.sqs.configuration.AmazonSQSProperties;
+import com.lorem.logistics.event.amazon.sqs.configuration.NackPolicy;
 import com.newrelic.api.agent.Trace;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Mono;
 
-import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.ToIntFunction;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 class AmazonSQSProvider {
 
-    private static final String ALL_MESSAGE_ATTRIBUTES = "All";
+    private static final Logger LOGGER = LoggerFactory.getLogger(AmazonSQSProvider.class);
+    private static final String APPROXIMATE_RECEIVE_COUNT = "ApproximateReceiveCount";
+    private static final String MESSAGE_GROUP_ID = "MessageGroupId";
+    private static final String SENT_TIMESTAMP = "SentTimestamp";
 
     private final AmazonSQS amazonSQS;
     private final AmazonSQSProperties amazonSQSProperties;
@@ -42,11 +59,84 @@ class AmazonSQSProvider {
         return amazonSQS.receiveMessage(getReceiveMessageRequest());
     }
 
+    /**
+     * It receive message from SQS without blocking the calling thread. The request is only sent on
+     * subscription and it is cancelled if the subscription is disposed while polling. Messages received
+     * anyway after the cancellation are released, see {@link #releaseCancelled(List)}. It requires the SQS
+     * client to be an {@link AmazonSQSAsync}.
+     *
+     * @return Mono of the received message result
+     */
+    Mono<ReceiveMessageResult> receiveAsync() {
+        final AmazonSQSAsync amazonSQSAsync = (AmazonSQSAsync) amazonSQS;
+        return Mono.create(sink -> {
+            final AtomicBoolean done = new AtomicBoolean();
+            final Future<ReceiveMessageResult> future = amazonSQSAsync.receiveMessageAsync(getReceiveMessageRequest(),
+                new AsyncHandler<>() {
+
+                    @Override
+                    public void onError(final Exception exception) {
+                        sink.error(exception);
+                    }
+
+                    @Override
+                    public void onSuccess(final ReceiveMessageRequest request, final ReceiveMessageResult result) {
+                        if (done.compareAndSet(false, true)) {
+                            sink.success(result);
+                        } else {
+                            releaseCancelled(result.getMessages());
+                        }
+                    }
+                });
+            sink.onCancel(() -> {
+                if (done.compareAndSet(false, true)) {
+                    future.cancel(true);
+                }
+            });
+        });
+    }
+
+    /**
+     * It makes the messages of a receive cancelled while polling visible again right away, as nobody is
+     * left to handle them, instead of leaving them invisible until their visibility timeout. A receive
+     * cancelled by a stopping consumer may still take messages sent meanwhile.
+     *
+     * @param messages Messages received after the receive was cancelled.
+     */
+    void releaseCancelled(final List<Message> messages) {
+        if (messages.isEmpty()) {
+            return;
+        }
+        try {
+            changeVisibility(messages, message -> 0);
+        } catch (RuntimeException e) {
+            LOGGER.warn("Error while releasing {} messages of a cancelled receive", messages.size(), e);
+        }
+    }
+
+    /**
+     * It creates the receive request, projecting the configured message and system attributes along with
+     * those the consumer uses.
+     */
     private ReceiveMessageRequest getReceiveMessageRequest() {
+        final Set<String> messageAttributeNames = new LinkedHashSet<>(amazonSQSProperties.getMessageAttributeNames());
+        if (amazonSQSProperties.getDeduplicationAttribute() != null) {
+            messageAttributeNames.add(amazonSQSProperties.getDeduplicationAttribute());
+        }
+        final Set<String> attributeNames = new LinkedHashSet<>(amazonSQSProperties.getAttributeNames());
+        attributeNames.add(SENT_TIMESTAMP);
+        if (amazonSQSProperties.getNackPolicy() == NackPolicy.EXPONENTIAL_BACKOFF) {
+            attributeNames.add(APPROXIMATE_RECEIVE_COUNT);
+        }
+        if (amazonSQSProperties.getFifo()) {
+            attributeNames.add(MESSAGE_GROUP_ID);
+        }
         return new ReceiveMessageRequest().withQueueUrl(amazonSQSProperties.getQueueName())
                 .withMaxNumberOfMessages(amazonSQSProperties.getMaxNumberOfMessages())
                 .withWaitTimeSeconds(amazonSQSProperties.getWaitTimeSeconds())
-                .withMessageAttributeNames(ALL_MESSAGE_ATTRIBUTES);
+                .withVisibilityTimeout(amazonSQSProperties.getVisibilityTimeoutSeconds())
+                .withMessageAttributeNames(messageAttributeNames)
+                .withAttributeNames(attributeNames);
     }
 
     /**
@@ -67,11 +157,44 @@ class AmazonSQSProvider {
      * @param messages List of messages.
      * @return SQS delete batch request for these messages.
      */
-    private DeleteMessageBatchRequest getDeleteMessageBatchRequest(Collection<Message> messages) {
+    private DeleteMessageBatchRequest getDeleteMessageBatchRequest(List<Message> messages) {
         return new DeleteMessageBatchRequest().withQueueUrl(amazonSQSProperties.getQueueName())
-                .withEntries(messages.stream()
-                        .map(message -> new DeleteMessageBatchRequestEntry().withId(message.getMessageId())
-                                .withReceiptHandle(message.getReceiptHandle()))
-                        .collect(Collectors.toSet()));
+                .withEntries(IntStream.range(0, messages.size())
+                        .mapToObj(i -> new DeleteMessageBatchRequestEntry().withId(String.valueOf(i))
+                                .withReceiptHandle(messages.get(i).getReceiptHandle()))
+                        .collect(Collectors.toList()));
+    }
+
+    /**
+     * It will change the visibility timeout of SQS messages in batch.
+     *
+     * @param messages List of messages to change.
+     * @param visibilityTimeoutSeconds New visibility timeout of each message, counted from now.
+     * @return Change messages visibility in batch result.
+     */
+    @Trace(dispatcher = true)
+    ChangeMessageVisibilityBatchResult changeVisibility(List<Message> messages,
+            ToIntFunction<Message> visibilityTimeoutSeconds) {
+        return amazonSQS.changeMessageVisibilityBatch(
+            new ChangeMessageVisibilityBatchRequest().withQueueUrl(amazonSQSProperties.getQueueName())
+                    .withEntries(IntStream.range(0, messages.size())
+                            .mapToObj(i -> new ChangeMessageVisibilityBatchRequestEntry()
+                                    .withId(String.valueOf(i))
+                                    .withReceiptHandle(messages.get(i).getReceiptHandle())
+                                    .withVisibilityTimeout(visibilityTimeoutSeconds.applyAsInt(messages.get(i))))
+                            .collect(Collectors.toList())));
+    }
+
+    /**
+     * Batch entries are identified by the position of their message in the batch rather than by its
+     * MessageId, since the same message may be delivered more than once, with different receipt handles,
+     * into the same batch.
+     *
+     * @param messages Messages of the batch.
+     * @param entryId Id of a batch entry.
+     * @return Message of the batch entry.
+     */
+    static Message entryMessage(List<Message> messages, String entryId) {
+        return messages.get(Integer.parseInt(entryId));
     }
 }
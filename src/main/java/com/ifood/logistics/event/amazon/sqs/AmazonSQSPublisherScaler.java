@@ -0,0 +1,172 @@
+package com.lorem.logistics.event.amazon.sqs;
+
+import com.lorem.logistics.event.amazon.sqs.configuration.AmazonSQSProperties;
+import com.lorem.logistics.event.metrics.Counter;
+import com.lorem.logistics.event.metrics.EventMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.UnicastProcessor;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Controls how many publishers are polling the queue. <br>
+ * A publisher is added after {@value #SCALE_UP_FULL_RECEIVES} consecutive full receives while the
+ * handlers keep up with the received messages, and a publisher is retired after
+ * {@value #SCALE_DOWN_EMPTY_RECEIVES} consecutive empty receives. The number of publishers always stays
+ * between the configured minimum and maximum number of publishers.
+ */
+class AmazonSQSPublisherScaler {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AmazonSQSPublisherScaler.class);
+    private static final String ACTIVE_PUBLISHERS_GAUGE = "SQS active publishers";
+    private static final String SCALED_UP_METRIC = "SQS publishers scaled up";
+    private static final String SCALED_DOWN_METRIC = "SQS publishers scaled down";
+    private static final int SCALE_UP_FULL_RECEIVES = 3;
+    private static final int SCALE_DOWN_EMPTY_RECEIVES = 3;
+
+    private final AmazonSQSProperties amazonSQSProperties;
+    private final AmazonSQSInFlightMessages amazonSQSInFlightMessages;
+    private final Counter scaledUp;
+    private final Counter scaledDown;
+
+    private final AtomicInteger pendingRetirements = new AtomicInteger();
+    private final AtomicInteger runningPublishers = new AtomicInteger();
+
+    private int publishers;
+    private int fullReceives;
+    private int emptyReceives;
+    private FluxSink<Integer> scaleUps;
+
+    AmazonSQSPublisherScaler(final AmazonSQSProperties amazonSQSProperties,
+            final AmazonSQSInFlightMessages amazonSQSInFlightMessages, final EventMetrics eventMetrics) {
+        this.amazonSQSProperties = amazonSQSProperties;
+        this.amazonSQSInFlightMessages = amazonSQSInFlightMessages;
+        this.scaledUp = eventMetrics.counter(SCALED_UP_METRIC);
+        this.scaledDown = eventMetrics.counter(SCALED_DOWN_METRIC);
+        eventMetrics.registerGauge(ACTIVE_PUBLISHERS_GAUGE, this::getPublishers);
+    }
+
+    /**
+     * It creates a flux emitting one element per publisher to be started: the configured number of
+     * publishers at subscription and one more on each scale up. It completes once every started
+     * publisher has finished.
+     *
+     * @return Flux of publishers to be started.
+     */
+    Flux<Integer> publishers() {
+        return Flux.defer(() -> {
+            final UnicastProcessor<Integer> processor = UnicastProcessor.create();
+            final int initialPublishers = amazonSQSProperties.getNumberOfPublishers();
+            synchronized (this) {
+                scaleUps = processor.sink();
+                publishers = initialPublishers;
+                fullReceives = 0;
+                emptyReceives = 0;
+            }
+            pendingRetirements.set(0);
+            runningPublishers.set(initialPublishers);
+            return Flux.range(0, initialPublishers).concatWith(processor);
+        });
+    }
+
+    /**
+     * It must be called when a publisher finishes, however it finishes, completing {@link #publishers()}
+     * once no publisher is left. A publisher retired by a scale down was already discounted from the
+     * active publishers, while any other one, e.g. failing once its retries run out or stopped with the
+     * consumer, is discounted when it finishes, so the scaler may replace it.
+     *
+     * @param retired If the publisher finished because {@link #keepPublishing()} retired it.
+     */
+    void publisherFinished(final boolean retired) {
+        if (!retired) {
+            synchronized (this) {
+                publishers--;
+            }
+        }
+        if (runningPublishers.decrementAndGet() == 0) {
+            synchronized (this) {
+                scaleUps.complete();
+            }
+        }
+    }
+
+    /**
+     * It tells a publisher whether it should keep polling. A publisher is retired by returning
+     * {@code false} when a scale down is pending.
+     *
+     * @return If the publisher should keep polling.
+     */
+    boolean keepPublishing() {
+        int retirements;
+        do {
+            retirements = pendingRetirements.get();
+            if (retirements == 0) {
+                return true;
+            }
+        } while (!pendingRetirements.compareAndSet(retirements, retirements - 1));
+        return false;
+    }
+
+    /**
+     * It accounts the result of a receive call, scaling the publishers when needed.
+     *
+     * @param numberOfMessages Number of messages received.
+     */
+    void received(final int numberOfMessages) {
+        if (numberOfMessages >= amazonSQSProperties.getMaxNumberOfMessages()) {
+            onFullReceive();
+        } else if (numberOfMessages == 0) {
+            onEmptyReceive();
+        } else {
+            resetReceives();
+        }
+    }
+
+    synchronized int getPublishers() {
+        return publishers;
+    }
+
+    private synchronized void onFullReceive() {
+        emptyReceives = 0;
+        if (++fullReceives < SCALE_UP_FULL_RECEIVES) {
+            return;
+        }
+        fullReceives = 0;
+        if (publishers < amazonSQSProperties.getMaxNumberOfPublishers() && handlersKeepingUp()) {
+            publishers++;
+            runningPublishers.incrementAndGet();
+            scaledUp.increment();
+            LOGGER.info("Scaling {} up to {} publisher(s).", amazonSQSProperties.getQueueName(), publishers);
+            scaleUps.next(publishers);
+        }
+    }
+
+    private synchronized void onEmptyReceive() {
+        fullReceives = 0;
+        if (++emptyReceives < SCALE_DOWN_EMPTY_RECEIVES) {
+            return;
+        }
+        emptyReceives = 0;
+        if (publishers > amazonSQSProperties.getMinNumberOfPublishers()) {
+            publishers--;
+            pendingRetirements.incrementAndGet();
+            scaledDown.increment();
+            LOGGER.info("Scaling {} down to {} publisher(s).", amazonSQSProperties.getQueueName(), publishers);
+        }
+    }
+
+    private synchronized void resetReceives() {
+        fullReceives = 0;
+        emptyReceives = 0;
+    }
+
+    /**
+     * Handlers are keeping up while there is no more than one receive batch per publisher in flight.
+     */
+    private boolean handlersKeepingUp() {
+        return amazonSQSInFlightMessages.size() < publishers * amazonSQSProperties.getMaxNumberOfMessages();
+    }
+}
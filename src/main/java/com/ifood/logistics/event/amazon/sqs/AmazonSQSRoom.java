@@ -0,0 +1,112 @@
+package com.lorem.logistics.event.amazon.sqs;
+
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+
+/**
+ * Bounded room for messages, reserved by publishers before receiving and given back as messages leave. <br>
+ * Pending reservations are served in order, so a publisher reserving a whole receive batch is never
+ * overtaken by smaller reservations. A reservation cancelled while it's being granted gives its room back.
+ */
+class AmazonSQSRoom {
+
+    private final Queue<Reservation> reservations = new ArrayDeque<>();
+
+    private int available;
+
+    /**
+     * @param capacity Number of messages the room holds.
+     */
+    AmazonSQSRoom(final int capacity) {
+        this.available = capacity;
+    }
+
+    /**
+     * It tries to reserve room for {@code permits} messages without waiting.
+     *
+     * @param permits Number of messages.
+     * @return If the room was reserved.
+     */
+    synchronized boolean tryReserve(final int permits) {
+        if (reservations.isEmpty() && available >= permits) {
+            available -= permits;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * It reserves room for {@code permits} messages, completing once enough room was given back.
+     *
+     * @param permits Number of messages.
+     * @return Mono completing when the room is reserved.
+     */
+    Mono<Void> reserve(final int permits) {
+        return Mono.create(sink -> {
+            final Reservation reservation = new Reservation(permits, sink);
+            synchronized (this) {
+                if (!tryReserve(permits)) {
+                    reservations.add(reservation);
+                    sink.onCancel(() -> cancel(reservation));
+                    return;
+                }
+            }
+            sink.success();
+        });
+    }
+
+    /**
+     * It gives back reserved room.
+     *
+     * @param permits Number of messages.
+     */
+    void release(final int permits) {
+        if (permits <= 0) {
+            return;
+        }
+        synchronized (this) {
+            available += permits;
+        }
+        grant();
+    }
+
+    private void grant() {
+        final List<Reservation> granted = new ArrayList<>();
+        synchronized (this) {
+            while (!reservations.isEmpty() && reservations.peek().permits <= available) {
+                final Reservation reservation = reservations.poll();
+                available -= reservation.permits;
+                granted.add(reservation);
+            }
+        }
+        granted.forEach(reservation -> reservation.sink.success());
+    }
+
+    private void cancel(final Reservation reservation) {
+        final boolean granted;
+        synchronized (this) {
+            granted = !reservations.remove(reservation);
+        }
+        if (granted) {
+            release(reservation.permits);
+        } else {
+            grant();
+        }
+    }
+
+    private static final class Reservation {
+
+        private final int permits;
+        private final MonoSink<Void> sink;
+
+        private Reservation(final int permits, final MonoSink<Void> sink) {
+            this.permits = permits;
+            this.sink = sink;
+        }
+    }
+}
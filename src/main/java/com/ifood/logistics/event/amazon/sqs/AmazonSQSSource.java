@@ -3,14 +3,22 @@ package com.lorem.logistics.event.amazon.sqs;
 import com.amazonaws.services.sqs.model.Message;
 import com.amazonaws.services.sqs.model.ReceiveMessageResult;
 import com.lorem.logistics.event.amazon.sqs.configuration.AmazonSQSProperties;
+import com.lorem.logistics.event.metrics.Counter;
 import com.lorem.logistics.event.metrics.EventMetrics;
+import com.lorem.logistics.event.metrics.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BooleanSupplier;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
 
 import static java.time.Duration.ofMillis;
 
@@ -19,19 +27,56 @@ class AmazonSQSSource {
     private static final Logger LOGGER = LoggerFactory.getLogger(AmazonSQSSource.class);
     private static final String RECEIVE_MESSAGE_CALL_METRIC = "SQS receive message API call";
     private static final String RECEIVED_MESSAGES_METRIC = "SQS received messages";
+    private static final String RECEIVE_LATENCY_HISTOGRAM = "SQS receive latency";
+    private static final String POLLING_PUBLISHERS_GAUGE = "SQS polling publishers";
+    private static final String WAITING_PUBLISHERS_GAUGE = "SQS publishers waiting for room";
 
     private final AmazonSQSProvider amazonSQSProvider;
     private final AmazonSQSProperties amazonSQSProperties;
+    private final AmazonSQSInFlightMessages amazonSQSInFlightMessages;
+    private final AmazonSQSPublisherScaler amazonSQSPublisherScaler;
+    private final AmazonSQSPollerPool.Share pollers;
+    private final AmazonSQSPrefetchBuffer amazonSQSPrefetchBuffer;
+    private final AtomicInteger pollingPublishers = new AtomicInteger();
+    private final AtomicInteger waitingPublishers = new AtomicInteger();
 
-    AmazonSQSSource(final AmazonSQSProvider amazonSQSProvider, final AmazonSQSProperties amazonSQSProperties) {
+    AmazonSQSSource(final AmazonSQSProvider amazonSQSProvider, final AmazonSQSProperties amazonSQSProperties,
+            final AmazonSQSInFlightMessages amazonSQSInFlightMessages,
+            final AmazonSQSPublisherScaler amazonSQSPublisherScaler) {
+        this(amazonSQSProvider, amazonSQSProperties, amazonSQSInFlightMessages, amazonSQSPublisherScaler, null, null);
+    }
+
+    /**
+     * It constructs a source whose receives take a poller of the given share, when the consumer is part of
+     * an {@link AmazonSQSConsumerGroup}, and room in the given prefetch buffer.
+     *
+     * @param pollers Share of the pollers of the group, {@code null} when the consumer isn't part of a group.
+     * @param amazonSQSPrefetchBuffer Prefetch buffer, {@code null} to only bound in-flight messages.
+     */
+    AmazonSQSSource(final AmazonSQSProvider amazonSQSProvider, final AmazonSQSProperties amazonSQSProperties,
+            final AmazonSQSInFlightMessages amazonSQSInFlightMessages,
+            final AmazonSQSPublisherScaler amazonSQSPublisherScaler, final AmazonSQSPollerPool.Share pollers,
+            final AmazonSQSPrefetchBuffer amazonSQSPrefetchBuffer) {
         this.amazonSQSProvider = amazonSQSProvider;
         this.amazonSQSProperties = amazonSQSProperties;
+        this.amazonSQSInFlightMessages = amazonSQSInFlightMessages;
+        this.amazonSQSPublisherScaler = amazonSQSPublisherScaler;
+        this.pollers = pollers;
+        this.amazonSQSPrefetchBuffer = amazonSQSPrefetchBuffer;
     }
 
     /**
      * It creates a new message source that will repeatedly emit messages if the predicate returns true
      * after completion of the previous subscription. <br>
-     * A retry is applied using exponential backoff as configured on consumer properties.
+     * Each receive is only issued once there is room for a whole receive batch among the in-flight
+     * messages, and among the prefetched messages when there is a prefetch buffer, waiting otherwise. A
+     * receive issued after waiting runs on {@link Schedulers#elastic()}, so the blocking receives of a
+     * publisher never take the threads other publishers are subscribed on. In a consumer group, each
+     * receive runs on a poller of the group instead. The room a receive reserved and didn't fill is given
+     * back however it ends, failing or being cancelled included, and the messages a cancelled receive still
+     * takes are made visible again. <br>
+     * A retry is applied using exponential backoff as configured on consumer properties. <br>
+     * The publishers waiting on a receive call and the ones waiting for room are reported by gauges.
      *
      * @param repeatCondition Predicate condition to repeat source emission.
      * @param eventMetrics Event metrics.
@@ -39,21 +84,80 @@ class AmazonSQSSource {
      */
     Flux<List<Message>> create(final BooleanSupplier repeatCondition, final EventMetrics eventMetrics) {
         LOGGER.debug("Creating a Publisher for {}", amazonSQSProperties.getQueueName());
-        return Flux.<List<Message>>create(sink -> emitter(sink, eventMetrics))
+        final ReceiveMetrics receiveMetrics = new ReceiveMetrics(eventMetrics);
+        eventMetrics.registerGauge(POLLING_PUBLISHERS_GAUGE, pollingPublishers::get);
+        eventMetrics.registerGauge(WAITING_PUBLISHERS_GAUGE, waitingPublishers::get);
+        return Flux.defer(() -> receiveWithinCapacity(receiveMetrics))
                 .retryBackoff(amazonSQSProperties.getRetries(), ofMillis(amazonSQSProperties.getRetryBackoffMillis()))
                 .filter(messages -> !messages.isEmpty())
                 .repeat(repeatCondition);
     }
 
-    private void emitter(final FluxSink<List<Message>> sink, final EventMetrics eventMetrics) {
+    private Flux<List<Message>> receiveWithinCapacity(final ReceiveMetrics receiveMetrics) {
+        final int permits = amazonSQSProperties.getMaxNumberOfMessages();
+        final HeldRoom inFlightRoom = new HeldRoom(amazonSQSInFlightMessages::release);
+        final Mono<Void> reservation = reserve(permits, amazonSQSInFlightMessages::tryReserve,
+            amazonSQSInFlightMessages::reserve, inFlightRoom);
+        final Flux<List<Message>> receive = receive(receiveMetrics);
+        if (amazonSQSPrefetchBuffer == null) {
+            return reservation.thenMany(pollers == null ? receive : pollers.poll(receive))
+                    .doOnNext(messages -> amazonSQSInFlightMessages.received(inFlightRoom.take(), messages))
+                    .doFinally(signalType -> inFlightRoom.giveBack());
+        }
+        final HeldRoom prefetchRoom = new HeldRoom(amazonSQSPrefetchBuffer::release);
+        final Mono<Void> prefetchReservation = reserve(permits, amazonSQSPrefetchBuffer::tryReserve,
+            amazonSQSPrefetchBuffer::reserve, prefetchRoom);
+        return reservation.then(prefetchReservation)
+                .thenMany(pollers == null ? receive : pollers.poll(receive))
+                .doOnNext(messages -> {
+                    amazonSQSInFlightMessages.received(inFlightRoom.take(), messages);
+                    amazonSQSPrefetchBuffer.received(prefetchRoom.take(), messages);
+                })
+                .doFinally(signalType -> {
+                    inFlightRoom.giveBack();
+                    prefetchRoom.giveBack();
+                });
+    }
+
+    private Mono<Void> reserve(final int permits, final IntPredicate tryReserve,
+            final IntFunction<Mono<Void>> reserve, final HeldRoom heldRoom) {
+        return Mono.defer(() -> {
+            if (tryReserve.test(permits)) {
+                heldRoom.hold(permits);
+                return Mono.empty();
+            }
+            return waitForRoom(reserve.apply(permits).doOnSuccess(v -> heldRoom.hold(permits)));
+        });
+    }
+
+    private Mono<Void> waitForRoom(final Mono<Void> reservation) {
+        return reservation.doOnSubscribe(subscription -> waitingPublishers.incrementAndGet())
+                .doFinally(signalType -> waitingPublishers.decrementAndGet())
+                .publishOn(Schedulers.elastic());
+    }
+
+    private Flux<List<Message>> receive(final ReceiveMetrics receiveMetrics) {
+        if (amazonSQSProperties.getAsynchronousReceive()) {
+            return Mono.defer(() -> {
+                final long start = System.nanoTime();
+                pollingPublishers.incrementAndGet();
+                return amazonSQSProvider.receiveAsync()
+                        .doFinally(signalType -> pollingPublishers.decrementAndGet())
+                        .map(receiveMessageResult -> received(receiveMessageResult, start, receiveMetrics));
+            }).doOnError(e -> LOGGER.warn("Error while request messages", e)).flux();
+        }
+        return Flux.create(sink -> emitter(sink, receiveMetrics));
+    }
+
+    private void emitter(final FluxSink<List<Message>> sink, final ReceiveMetrics receiveMetrics) {
         try {
-            final ReceiveMessageResult receiveMessageResult = amazonSQSProvider.receive();
-            eventMetrics.incrementMetric(RECEIVE_MESSAGE_CALL_METRIC);
-            LOGGER.debug("Received {} message(s) from {}.",
-                receiveMessageResult.getMessages().size(),
-                amazonSQSProperties.getQueueName());
-            eventMetrics.addToMetric(RECEIVED_MESSAGES_METRIC, receiveMessageResult.getMessages().size());
-            sink.next(receiveMessageResult.getMessages());
+            final long start = System.nanoTime();
+            final ReceiveMessageResult receiveMessageResult = pollingReceive();
+            if (sink.isCancelled()) {
+                amazonSQSProvider.releaseCancelled(receiveMessageResult.getMessages());
+                return;
+            }
+            sink.next(received(receiveMessageResult, start, receiveMetrics));
             sink.complete();
         } catch (Exception e) {
             LOGGER.warn("Error while request messages", e);
@@ -61,4 +165,75 @@ class AmazonSQSSource {
         }
     }
 
+    private ReceiveMessageResult pollingReceive() {
+        pollingPublishers.incrementAndGet();
+        try {
+            return amazonSQSProvider.receive();
+        } finally {
+            pollingPublishers.decrementAndGet();
+        }
+    }
+
+    private List<Message> received(final ReceiveMessageResult receiveMessageResult, final long start,
+            final ReceiveMetrics receiveMetrics) {
+        receiveMetrics.receiveMessageCalls.increment();
+        receiveMetrics.receiveLatency.recordSince(start);
+        LOGGER.debug("Received {} message(s) from {}.",
+            receiveMessageResult.getMessages().size(),
+            amazonSQSProperties.getQueueName());
+        receiveMetrics.receivedMessages.add(receiveMessageResult.getMessages().size());
+        amazonSQSPublisherScaler.received(receiveMessageResult.getMessages().size());
+        return receiveMessageResult.getMessages();
+    }
+
+    /**
+     * Room a receive holds until it takes it for the received messages. The room still held when the
+     * receive ends, by failing or being cancelled, is given back once, including room granted after the
+     * receive ended.
+     */
+    private static final class HeldRoom {
+
+        private static final int GIVEN_BACK = -1;
+
+        private final IntConsumer release;
+        private final AtomicInteger permits = new AtomicInteger();
+
+        private HeldRoom(final IntConsumer release) {
+            this.release = release;
+        }
+
+        private void hold(final int permits) {
+            if (!this.permits.compareAndSet(0, permits)) {
+                release.accept(permits);
+            }
+        }
+
+        private int take() {
+            return Math.max(permits.getAndSet(0), 0);
+        }
+
+        private void giveBack() {
+            final int held = permits.getAndSet(GIVEN_BACK);
+            if (held > 0) {
+                release.accept(held);
+            }
+        }
+    }
+
+    /**
+     * Metric handles of a publisher, registered once when the publisher is created.
+     */
+    private static final class ReceiveMetrics {
+
+        private final Counter receiveMessageCalls;
+        private final Counter receivedMessages;
+        private final Timer receiveLatency;
+
+        private ReceiveMetrics(final EventMetrics eventMetrics) {
+            this.receiveMessageCalls = eventMetrics.counter(RECEIVE_MESSAGE_CALL_METRIC);
+            this.receivedMessages = eventMetrics.counter(RECEIVED_MESSAGES_METRIC);
+            this.receiveLatency = eventMetrics.timer(RECEIVE_LATENCY_HISTOGRAM);
+        }
+    }
+
 }
@@ -0,0 +1,100 @@
+package com.lorem.logistics.event.amazon.sqs;
+
+import com.amazonaws.services.sqs.model.ChangeMessageVisibilityBatchResult;
+import com.amazonaws.services.sqs.model.Message;
+import com.lorem.logistics.event.amazon.sqs.configuration.AmazonSQSProperties;
+import com.lorem.logistics.event.metrics.Counter;
+import com.lorem.logistics.event.metrics.EventMetrics;
+import com.newrelic.api.agent.NewRelic;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+
+import static java.time.Duration.ofMillis;
+
+/**
+ * Heartbeat extending the visibility timeout of in-flight messages before it expires. <br>
+ * Every third of the visibility timeout, messages expiring within half of the visibility timeout get it
+ * extended by the visibility timeout, in batches of up to 10 messages. Messages stop being extended as
+ * soon as they are no longer in flight.
+ */
+class AmazonSQSVisibilityExtender {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AmazonSQSVisibilityExtender.class);
+    private static final String EXTENDED_MESSAGES_METRIC = "SQS visibility extended messages";
+    private static final String EXTENSION_FAILURES_METRIC = "SQS visibility extension failures";
+    private static final int MAX_BATCH_SIZE = 10;
+
+    private final AmazonSQSProvider amazonSQSProvider;
+    private final AmazonSQSProperties amazonSQSProperties;
+    private final AmazonSQSInFlightMessages amazonSQSInFlightMessages;
+    private final Counter extendedMessages;
+    private final Counter extensionFailures;
+
+    AmazonSQSVisibilityExtender(final AmazonSQSProvider amazonSQSProvider,
+            final AmazonSQSProperties amazonSQSProperties, final AmazonSQSInFlightMessages amazonSQSInFlightMessages,
+            final EventMetrics eventMetrics) {
+        this.amazonSQSProvider = amazonSQSProvider;
+        this.amazonSQSProperties = amazonSQSProperties;
+        this.amazonSQSInFlightMessages = amazonSQSInFlightMessages;
+        this.extendedMessages = eventMetrics.counter(EXTENDED_MESSAGES_METRIC);
+        this.extensionFailures = eventMetrics.counter(EXTENSION_FAILURES_METRIC);
+    }
+
+    /**
+     * It creates the heartbeat, which never completes and must be disposed with the consumer. It is empty
+     * when visibility timeout extension is disabled.
+     *
+     * @return Flux of change visibility in batch results.
+     */
+    Flux<ChangeMessageVisibilityBatchResult> create() {
+        if (!amazonSQSProperties.getExtendVisibilityTimeout()) {
+            return Flux.empty();
+        }
+        final long visibilityTimeoutMillis = amazonSQSProperties.getVisibilityTimeoutSeconds() * 1000L;
+        return Flux.interval(ofMillis(visibilityTimeoutMillis / 3))
+                .onBackpressureDrop()
+                .concatMap(tick -> extend(System.currentTimeMillis() + visibilityTimeoutMillis / 2));
+    }
+
+    /**
+     * It extends the visibility timeout of the in-flight messages expiring before {@code time}, running
+     * at most delete concurrency requests at the same time.
+     *
+     * @param time Time in milliseconds.
+     * @return Flux of change visibility in batch results.
+     */
+    Flux<ChangeMessageVisibilityBatchResult> extend(final long time) {
+        return Flux.fromIterable(amazonSQSInFlightMessages.expiringBefore(time))
+                .buffer(MAX_BATCH_SIZE)
+                .flatMap(this::changeVisibility, amazonSQSProperties.getDeleteConcurrency());
+    }
+
+    private Mono<ChangeMessageVisibilityBatchResult> changeVisibility(final List<Message> messages) {
+        final long extendedAt = System.currentTimeMillis();
+        return Mono
+                .fromCallable(() -> amazonSQSProvider.changeVisibility(messages,
+                    message -> amazonSQSProperties.getVisibilityTimeoutSeconds()))
+                .subscribeOn(Schedulers.elastic())
+                .doOnNext(result -> {
+                    result.getSuccessful()
+                            .stream()
+                            .map(entry -> AmazonSQSProvider.entryMessage(messages, entry.getId()))
+                            .forEach(message -> amazonSQSInFlightMessages.extended(message, extendedAt));
+                    extendedMessages.add(result.getSuccessful().size());
+                    extensionFailures.add(result.getFailed().size());
+                    LOGGER.debug("{} messages had their visibility timeout extended.", result.getSuccessful().size());
+                })
+                .onErrorResume(throwable -> {
+                    NewRelic.noticeError(throwable);
+                    extensionFailures.add(messages.size());
+                    LOGGER.error("An unexpected error occurred while extending visibility timeout in batch.",
+                        throwable);
+                    return Mono.empty();
+                });
+    }
+}
@@ -0,0 +1,45 @@
+package com.lorem.logistics.event.amazon.sqs;
+
+import com.amazonaws.services.sqs.model.Message;
+import com.amazonaws.services.sqs.model.MessageAttributeValue;
+
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Extracts the key routing a message to a processing lane. Messages with the same key are always handled
+ * by the same lane.
+ */
+@FunctionalInterface
+public interface MessageKeyExtractor {
+
+    /**
+     * It extracts the key of the message.
+     *
+     * @param message Received message.
+     * @return Key of the message, {@code null} when the message has no key.
+     */
+    String extract(Message message);
+
+    /**
+     * It creates a key extractor reading the string value of a message attribute.
+     *
+     * @param attributeName Message attribute name.
+     * @return Message attribute key extractor.
+     */
+    static MessageKeyExtractor messageAttribute(final String attributeName) {
+        return message -> Optional.ofNullable(message.getMessageAttributes().get(attributeName))
+                .map(MessageAttributeValue::getStringValue)
+                .orElse(null);
+    }
+
+    /**
+     * It creates a key extractor reading the key from the message body.
+     *
+     * @param extractor Function extracting the key from the body.
+     * @return Body key extractor.
+     */
+    static MessageKeyExtractor body(final Function<String, String> extractor) {
+        return message -> extractor.apply(message.getBody());
+    }
+}
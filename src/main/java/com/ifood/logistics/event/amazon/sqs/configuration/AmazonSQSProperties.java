@@ -1,5 +1,7 @@
 package com.lorem.logistics.event.amazon.sqs.configuration;
 
+import java.util.List;
+
 /**
  * Holder for SQS consumer properties.
  */
@@ -19,5 +21,260 @@ public interface AmazonSQSProperties {
 
     Boolean getAutoStart();
 
+    /**
+     * Minimum number of publishers kept polling when the queue is empty.
+     *
+     * @return Minimum number of publishers, by default the number of publishers.
+     */
+    default Integer getMinNumberOfPublishers() {
+        return getNumberOfPublishers();
+    }
+
+    /**
+     * Maximum number of publishers polling when receives keep coming back full and the handlers keep up.
+     *
+     * @return Maximum number of publishers, by default the number of publishers.
+     */
+    default Integer getMaxNumberOfPublishers() {
+        return getNumberOfPublishers();
+    }
+
+    /**
+     * Maximum number of messages received but not yet acknowledged. A publisher only receives messages
+     * when there is room for a whole receive batch. It's 100 by default, or twice the
+     * {@link #getHandlerBatchSize()} when it's larger, so a handler batch can fill up while the previous
+     * one is handled.
+     *
+     * @return Maximum number of in-flight messages.
+     */
+    default Integer getMaxInFlightMessages() {
+        final Integer handlerBatchSize = getHandlerBatchSize();
+        return handlerBatchSize == null ? 100 : Math.max(100, 2 * handlerBatchSize);
+    }
+
+    /**
+     * Visibility timeout, in seconds, requested on each receive. When {@code null} the queue's visibility
+     * timeout is used.
+     *
+     * @return Visibility timeout in seconds.
+     */
+    default Integer getVisibilityTimeoutSeconds() {
+        return null;
+    }
+
+    /**
+     * Whether the visibility timeout of in-flight messages is extended before it expires, until the
+     * message is deleted or failed. It requires the visibility timeout to be set.
+     *
+     * @return If visibility timeouts are extended.
+     */
+    default Boolean getExtendVisibilityTimeout() {
+        return Boolean.FALSE;
+    }
+
+    /**
+     * Policy applied to messages failed by the handler.
+     *
+     * @return Nack policy.
+     */
+    default NackPolicy getNackPolicy() {
+        return NackPolicy.NONE;
+    }
+
+    /**
+     * Delay, in seconds, before a failed message becomes visible again with {@link NackPolicy#FIXED_DELAY},
+     * or the initial delay with {@link NackPolicy#EXPONENTIAL_BACKOFF}.
+     *
+     * @return Nack delay in seconds.
+     */
+    default Integer getNackDelaySeconds() {
+        return 10;
+    }
+
+    /**
+     * Maximum delay, in seconds, before a failed message becomes visible again with
+     * {@link NackPolicy#EXPONENTIAL_BACKOFF}.
+     *
+     * @return Nack max delay in seconds.
+     */
+    default Integer getNackMaxDelaySeconds() {
+        return 900;
+    }
+
+    /**
+     * Whether publishers receive messages through {@code AmazonSQSAsync#receiveMessageAsync}, so that
+     * in-flight long polls don't hold a publisher thread.
+     *
+     * @return If messages are received asynchronously.
+     */
+    default Boolean getAsynchronousReceive() {
+        return Boolean.FALSE;
+    }
+
+    /**
+     * Maximum time, in milliseconds, a successfully handled message waits for its delete batch to be
+     * filled before the batch is flushed.
+     *
+     * @return Delete batch max delay in milliseconds.
+     */
+    default Integer getDeleteMaxDelayMillis() {
+        return 200;
+    }
+
+    /**
+     * Maximum number of delete batch requests running at the same time.
+     *
+     * @return Delete concurrency.
+     */
+    default Integer getDeleteConcurrency() {
+        return 4;
+    }
+
+    /**
+     * Maximum number of handler invocations running at the same time across all publishers, {@code null}
+     * for unbounded.
+     *
+     * @return Max concurrent handler invocations.
+     */
+    default Integer getMaxConcurrentHandlers() {
+        return null;
+    }
+
+    /**
+     * Whether messages handled by {@code AbstractSingleAmazonSQSMessageHandler} are acknowledged as soon as
+     * each one is handled, instead of once the whole receive batch is handled.
+     *
+     * @return If acknowledgement is streamed.
+     */
+    default Boolean getStreamingAcknowledgement() {
+        return Boolean.FALSE;
+    }
+
+    /**
+     * Whether messages are handled in order per message group, as required by FIFO queues.
+     *
+     * @return If messages are handled in order per message group.
+     */
+    default Boolean getFifo() {
+        return Boolean.FALSE;
+    }
+
+    /**
+     * Number of serial lanes handling messages routed by key, either by message group when
+     * {@link #getFifo()} is enabled or by the key extractor of the consumer.
+     *
+     * @return Number of lanes.
+     */
+    default Integer getNumberOfLanes() {
+        return 4;
+    }
+
+    /**
+     * Time a stopping consumer waits for the messages in flight to be handled and acknowledged, after it
+     * stops polling. A consumer is stopped right away when it's 0.
+     *
+     * @return Drain timeout in seconds.
+     */
+    default Integer getDrainTimeoutSeconds() {
+        return 0;
+    }
+
+    /**
+     * Whether the messages still in flight when the drain timeout expires are made visible again right
+     * away, instead of once their visibility timeout expires.
+     *
+     * @return If unfinished messages are nacked when the drain times out.
+     */
+    default Boolean getNackOnDrainTimeout() {
+        return Boolean.FALSE;
+    }
+
+    /**
+     * Number of messages, received by any publisher, aggregated into a single handler invocation. Each
+     * handler invocation gets the messages of a single receive when it's {@code null}. A batch can't be
+     * larger than {@link #getMaxInFlightMessages()}, whose default grows along with it.
+     *
+     * @return Handler batch size.
+     */
+    default Integer getHandlerBatchSize() {
+        return null;
+    }
+
+    /**
+     * Max time the first message of a handler batch waits for the batch to fill up, when
+     * {@link #getHandlerBatchSize()} is set.
+     *
+     * @return Handler batch max delay in milliseconds.
+     */
+    default Integer getHandlerBatchMaxDelayMillis() {
+        return 100;
+    }
+
+    /**
+     * Number of received messages kept ready ahead of the handlers. Publishers only receive while there is
+     * room for a whole receive batch among the messages waiting to be handled, and the waiting messages
+     * left with less than half of their visibility timeout when their handler is about to be invoked are
+     * evicted instead of handled. Only
+     * {@link #getMaxInFlightMessages()} bounds the waiting messages when it's {@code null}.
+     *
+     * @return Number of prefetched messages.
+     */
+    default Integer getPrefetchMessages() {
+        return null;
+    }
+
+    /**
+     * Time a successfully handled message is remembered for, so that its redeliveries within this window
+     * are acknowledged without being handled again. Messages are not deduplicated when it's {@code null}.
+     *
+     * @return Deduplication window in seconds.
+     */
+    default Integer getDeduplicationWindowSeconds() {
+        return null;
+    }
+
+    /**
+     * Max number of handled messages remembered for deduplication, the oldest being forgotten first, when
+     * {@link #getDeduplicationWindowSeconds()} is set.
+     *
+     * @return Deduplication cache size.
+     */
+    default Integer getDeduplicationCacheSize() {
+        return 100_000;
+    }
+
+    /**
+     * Message attribute identifying duplicate messages, e.g. an event id set by the producer, when
+     * {@link #getDeduplicationWindowSeconds()} is set. Messages are deduplicated by {@code MessageId} when
+     * it's {@code null}, as well as messages without this attribute.
+     *
+     * @return Deduplication message attribute name.
+     */
+    default String getDeduplicationAttribute() {
+        return null;
+    }
+
+    /**
+     * Names of the message attributes to receive, {@code All} for all of them or a prefix followed by
+     * {@code .*}, as in {@link com.amazonaws.services.sqs.model.ReceiveMessageRequest#getMessageAttributeNames()}.
+     * No message attribute is received when it's empty, besides {@link #getDeduplicationAttribute()}.
+     *
+     * @return Names of the message attributes to receive.
+     */
+    default List<String> getMessageAttributeNames() {
+        return List.of("All");
+    }
+
+    /**
+     * Names of the system attributes to receive besides those used by the consumer, i.e.
+     * {@code SentTimestamp}, {@code ApproximateReceiveCount} with exponential backoff nacks and
+     * {@code MessageGroupId} for FIFO queues, e.g. {@code ApproximateFirstReceiveTimestamp} or {@code All}.
+     *
+     * @return Names of the system attributes to receive.
+     */
+    default List<String> getAttributeNames() {
+        return List.of();
+    }
+
     void validate();
 }
@@ -1,5 +1,8 @@
 package com.lorem.logistics.event.amazon.sqs.configuration;
 
+import java.util.List;
+import java.util.Objects;
+
 /**
  * This class is a default implementation of {@link AmazonSQSProperties}. The follow properties are
  * set with default values:
@@ -8,8 +11,33 @@ package com.lorem.logistics.event.amazon.sqs.configuration;
  * <li>waitTimeSeconds = 20;</li>
  * <li>retries = 3;</li>
  * <li>retryBackoffMillis = 8000;</li>
- * <li>numberOfPublishers = 4 and</li>
- * <li>autoStart = true</li>
+ * <li>numberOfPublishers = 4;</li>
+ * <li>minNumberOfPublishers = numberOfPublishers;</li>
+ * <li>maxNumberOfPublishers = numberOfPublishers;</li>
+ * <li>maxInFlightMessages = 100, or twice handlerBatchSize when it's larger;</li>
+ * <li>autoStart = true;</li>
+ * <li>visibilityTimeoutSeconds = null, the queue's visibility timeout;</li>
+ * <li>extendVisibilityTimeout = false;</li>
+ * <li>nackPolicy = NONE;</li>
+ * <li>nackDelaySeconds = 10;</li>
+ * <li>nackMaxDelaySeconds = 900;</li>
+ * <li>asynchronousReceive = false;</li>
+ * <li>deleteMaxDelayMillis = 200;</li>
+ * <li>deleteConcurrency = 4;</li>
+ * <li>maxConcurrentHandlers = null, unbounded;</li>
+ * <li>streamingAcknowledgement = false;</li>
+ * <li>fifo = false;</li>
+ * <li>numberOfLanes = 4;</li>
+ * <li>drainTimeoutSeconds = 0, no drain;</li>
+ * <li>nackOnDrainTimeout = false;</li>
+ * <li>handlerBatchSize = null, no batching across receives;</li>
+ * <li>handlerBatchMaxDelayMillis = 100;</li>
+ * <li>prefetchMessages = null, no bound on the messages waiting to be handled besides maxInFlightMessages;</li>
+ * <li>deduplicationWindowSeconds = null, no deduplication;</li>
+ * <li>deduplicationCacheSize = 100000;</li>
+ * <li>deduplicationAttribute = null, messages are deduplicated by MessageId;</li>
+ * <li>messageAttributeNames = [All], all message attributes are received and</li>
+ * <li>attributeNames = [], only the system attributes used by the consumer are received</li>
  * </ul>
  */
 public class GenericAmazonSQSProperties implements AmazonSQSProperties {
@@ -20,7 +48,32 @@ public class GenericAmazonSQSProperties implements AmazonSQSProperties {
     private Integer retries = 3;
     private Integer retryBackoffMillis = 8000;
     private Integer numberOfPublishers = 4;
+    private Integer minNumberOfPublishers;
+    private Integer maxNumberOfPublishers;
+    private Integer maxInFlightMessages;
     private Boolean autoStart = Boolean.TRUE;
+    private Integer visibilityTimeoutSeconds;
+    private Boolean extendVisibilityTimeout = Boolean.FALSE;
+    private NackPolicy nackPolicy = NackPolicy.NONE;
+    private Integer nackDelaySeconds = 10;
+    private Integer nackMaxDelaySeconds = 900;
+    private Boolean asynchronousReceive = Boolean.FALSE;
+    private Integer deleteMaxDelayMillis = 200;
+    private Integer deleteConcurrency = 4;
+    private Integer maxConcurrentHandlers;
+    private Boolean streamingAcknowledgement = Boolean.FALSE;
+    private Boolean fifo = Boolean.FALSE;
+    private Integer numberOfLanes = 4;
+    private Integer drainTimeoutSeconds = 0;
+    private Boolean nackOnDrainTimeout = Boolean.FALSE;
+    private Integer handlerBatchSize;
+    private Integer handlerBatchMaxDelayMillis = 100;
+    private Integer prefetchMessages;
+    private Integer deduplicationWindowSeconds;
+    private Integer deduplicationCacheSize = 100000;
+    private String deduplicationAttribute;
+    private List<String> messageAttributeNames = List.of("All");
+    private List<String> attributeNames = List.of();
 
     /**
      * Check properties values, if a property is not a valid it will throw an
@@ -33,7 +86,32 @@ public class GenericAmazonSQSProperties implements AmazonSQSProperties {
      * <li>retries, cannot be null, less than 0;</li>
      * <li>retryBackoffMillis, cannot be null, less than 0;</li>
      * <li>numberOfPublishers, cannot be null, less than 1;</li>
+     * <li>minNumberOfPublishers, cannot be less than 1 and greater than numberOfPublishers;</li>
+     * <li>maxNumberOfPublishers, cannot be less than numberOfPublishers;</li>
+     * <li>maxInFlightMessages, cannot be less than maxNumberOfMessages;</li>
      * <li>Boolean.TRUE, cannot be null;</li>
+     * <li>visibilityTimeoutSeconds, cannot be less than 0 and greater than 43200;</li>
+     * <li>extendVisibilityTimeout, cannot be null and requires visibilityTimeoutSeconds greater than 0;</li>
+     * <li>nackPolicy, cannot be null;</li>
+     * <li>nackDelaySeconds, cannot be null, less than 0 and greater than 43200;</li>
+     * <li>nackMaxDelaySeconds, cannot be null, less than nackDelaySeconds and greater than 43200;</li>
+     * <li>asynchronousReceive, cannot be null;</li>
+     * <li>deleteMaxDelayMillis, cannot be null, less than 1;</li>
+     * <li>deleteConcurrency, cannot be null, less than 1;</li>
+     * <li>maxConcurrentHandlers, cannot be less than 1;</li>
+     * <li>streamingAcknowledgement, cannot be null;</li>
+     * <li>fifo, cannot be null;</li>
+     * <li>numberOfLanes, cannot be null, less than 1;</li>
+     * <li>drainTimeoutSeconds, cannot be null, less than 0 and greater than 43200;</li>
+     * <li>nackOnDrainTimeout, cannot be null;</li>
+     * <li>handlerBatchSize, cannot be less than 1, greater than maxInFlightMessages or set for FIFO queues;</li>
+     * <li>handlerBatchMaxDelayMillis, cannot be null, less than 1;</li>
+     * <li>prefetchMessages, cannot be less than maxNumberOfMessages or greater than maxInFlightMessages;</li>
+     * <li>deduplicationWindowSeconds, cannot be less than 1;</li>
+     * <li>deduplicationCacheSize, cannot be null, less than 1;</li>
+     * <li>deduplicationAttribute, cannot be empty;</li>
+     * <li>messageAttributeNames, cannot be null or contain null;</li>
+     * <li>attributeNames, cannot be null or contain null;</li>
      * </ul>
      */
     @Override
@@ -56,9 +134,93 @@ public class GenericAmazonSQSProperties implements AmazonSQSProperties {
         if (numberOfPublishers == null || numberOfPublishers < 1) {
             throw new IllegalArgumentException("numberOfPublishers must be greater than 0");
         }
+        if (getMinNumberOfPublishers() < 1 || getMinNumberOfPublishers() > numberOfPublishers) {
+            throw new IllegalArgumentException("minNumberOfPublishers must be between 1 and numberOfPublishers");
+        }
+        if (getMaxNumberOfPublishers() < numberOfPublishers) {
+            throw new IllegalArgumentException(
+                "maxNumberOfPublishers must be greater than or equals to numberOfPublishers");
+        }
+        if (getMaxInFlightMessages() < maxNumberOfMessages) {
+            throw new IllegalArgumentException(
+                "maxInFlightMessages must be greater than or equals to maxNumberOfMessages");
+        }
         if (autoStart == null) {
             throw new IllegalArgumentException("autoStart must have value");
         }
+        if (visibilityTimeoutSeconds != null && (visibilityTimeoutSeconds < 0 || visibilityTimeoutSeconds > 43200)) {
+            throw new IllegalArgumentException("visibilityTimeoutSeconds be between 0 and 43200");
+        }
+        if (extendVisibilityTimeout == null
+            || extendVisibilityTimeout && (visibilityTimeoutSeconds == null || visibilityTimeoutSeconds < 1)) {
+            throw new IllegalArgumentException(
+                "extendVisibilityTimeout must have value and requires visibilityTimeoutSeconds greater than 0");
+        }
+        if (nackPolicy == null) {
+            throw new IllegalArgumentException("nackPolicy must have value");
+        }
+        if (nackDelaySeconds == null || nackDelaySeconds < 0 || nackDelaySeconds > 43200) {
+            throw new IllegalArgumentException("nackDelaySeconds be between 0 and 43200");
+        }
+        if (nackMaxDelaySeconds == null || nackMaxDelaySeconds < nackDelaySeconds || nackMaxDelaySeconds > 43200) {
+            throw new IllegalArgumentException("nackMaxDelaySeconds be between nackDelaySeconds and 43200");
+        }
+        if (asynchronousReceive == null) {
+            throw new IllegalArgumentException("asynchronousReceive must have value");
+        }
+        if (deleteMaxDelayMillis == null || deleteMaxDelayMillis < 1) {
+            throw new IllegalArgumentException("deleteMaxDelayMillis must be greater than 0");
+        }
+        if (deleteConcurrency == null || deleteConcurrency < 1) {
+            throw new IllegalArgumentException("deleteConcurrency must be greater than 0");
+        }
+        if (maxConcurrentHandlers != null && maxConcurrentHandlers < 1) {
+            throw new IllegalArgumentException("maxConcurrentHandlers must be greater than 0");
+        }
+        if (streamingAcknowledgement == null) {
+            throw new IllegalArgumentException("streamingAcknowledgement must have value");
+        }
+        if (fifo == null) {
+            throw new IllegalArgumentException("fifo must have value");
+        }
+        if (numberOfLanes == null || numberOfLanes < 1) {
+            throw new IllegalArgumentException("numberOfLanes must be greater than 0");
+        }
+        if (drainTimeoutSeconds == null || drainTimeoutSeconds < 0 || drainTimeoutSeconds > 43200) {
+            throw new IllegalArgumentException("drainTimeoutSeconds must be between 0 and 43200");
+        }
+        if (nackOnDrainTimeout == null) {
+            throw new IllegalArgumentException("nackOnDrainTimeout cannot be null");
+        }
+        if (handlerBatchSize != null && (handlerBatchSize < 1 || handlerBatchSize > getMaxInFlightMessages())) {
+            throw new IllegalArgumentException("handlerBatchSize must be between 1 and maxInFlightMessages");
+        }
+        if (handlerBatchSize != null && fifo) {
+            throw new IllegalArgumentException("handlerBatchSize can't be set for FIFO queues");
+        }
+        if (handlerBatchMaxDelayMillis == null || handlerBatchMaxDelayMillis < 1) {
+            throw new IllegalArgumentException("handlerBatchMaxDelayMillis must be greater than 0");
+        }
+        if (prefetchMessages != null
+            && (prefetchMessages < maxNumberOfMessages || prefetchMessages > getMaxInFlightMessages())) {
+            throw new IllegalArgumentException(
+                "prefetchMessages must be between maxNumberOfMessages and maxInFlightMessages");
+        }
+        if (deduplicationWindowSeconds != null && deduplicationWindowSeconds < 1) {
+            throw new IllegalArgumentException("deduplicationWindowSeconds must be greater than 0");
+        }
+        if (deduplicationCacheSize == null || deduplicationCacheSize < 1) {
+            throw new IllegalArgumentException("deduplicationCacheSize must be greater than 0");
+        }
+        if (deduplicationAttribute != null && deduplicationAttribute.isEmpty()) {
+            throw new IllegalArgumentException("deduplicationAttribute cannot be empty");
+        }
+        if (messageAttributeNames == null || messageAttributeNames.stream().anyMatch(Objects::isNull)) {
+            throw new IllegalArgumentException("messageAttributeNames cannot be null or contain null");
+        }
+        if (attributeNames == null || attributeNames.stream().anyMatch(Objects::isNull)) {
+            throw new IllegalArgumentException("attributeNames cannot be null or contain null");
+        }
     }
 
     @Override
@@ -91,11 +253,136 @@ public class GenericAmazonSQSProperties implements AmazonSQSProperties {
         return numberOfPublishers;
     }
 
+    @Override
+    public Integer getMinNumberOfPublishers() {
+        return minNumberOfPublishers == null ? numberOfPublishers : minNumberOfPublishers;
+    }
+
+    @Override
+    public Integer getMaxNumberOfPublishers() {
+        return maxNumberOfPublishers == null ? numberOfPublishers : maxNumberOfPublishers;
+    }
+
+    @Override
+    public Integer getMaxInFlightMessages() {
+        return maxInFlightMessages == null ? AmazonSQSProperties.super.getMaxInFlightMessages() : maxInFlightMessages;
+    }
+
     @Override
     public Boolean getAutoStart() {
         return autoStart;
     }
 
+    @Override
+    public Integer getVisibilityTimeoutSeconds() {
+        return visibilityTimeoutSeconds;
+    }
+
+    @Override
+    public Boolean getExtendVisibilityTimeout() {
+        return extendVisibilityTimeout;
+    }
+
+    @Override
+    public NackPolicy getNackPolicy() {
+        return nackPolicy;
+    }
+
+    @Override
+    public Integer getNackDelaySeconds() {
+        return nackDelaySeconds;
+    }
+
+    @Override
+    public Integer getNackMaxDelaySeconds() {
+        return nackMaxDelaySeconds;
+    }
+
+    @Override
+    public Boolean getAsynchronousReceive() {
+        return asynchronousReceive;
+    }
+
+    @Override
+    public Integer getDeleteMaxDelayMillis() {
+        return deleteMaxDelayMillis;
+    }
+
+    @Override
+    public Integer getDeleteConcurrency() {
+        return deleteConcurrency;
+    }
+
+    @Override
+    public Integer getMaxConcurrentHandlers() {
+        return maxConcurrentHandlers;
+    }
+
+    @Override
+    public Boolean getStreamingAcknowledgement() {
+        return streamingAcknowledgement;
+    }
+
+    @Override
+    public Boolean getFifo() {
+        return fifo;
+    }
+
+    @Override
+    public Integer getNumberOfLanes() {
+        return numberOfLanes;
+    }
+
+    @Override
+    public Integer getDrainTimeoutSeconds() {
+        return drainTimeoutSeconds;
+    }
+
+    @Override
+    public Boolean getNackOnDrainTimeout() {
+        return nackOnDrainTimeout;
+    }
+
+    @Override
+    public Integer getHandlerBatchSize() {
+        return handlerBatchSize;
+    }
+
+    @Override
+    public Integer getHandlerBatchMaxDelayMillis() {
+        return handlerBatchMaxDelayMillis;
+    }
+
+    @Override
+    public Integer getPrefetchMessages() {
+        return prefetchMessages;
+    }
+
+    @Override
+    public Integer getDeduplicationWindowSeconds() {
+        return deduplicationWindowSeconds;
+    }
+
+    @Override
+    public Integer getDeduplicationCacheSize() {
+        return deduplicationCacheSize;
+    }
+
+    @Override
+    public String getDeduplicationAttribute() {
+        return deduplicationAttribute;
+    }
+
+    @Override
+    public List<String> getMessageAttributeNames() {
+        return messageAttributeNames;
+    }
+
+    @Override
+    public List<String> getAttributeNames() {
+        return attributeNames;
+    }
+
     public void setQueueName(final String queueName) {
         this.queueName = queueName;
     }
@@ -120,7 +407,107 @@ public class GenericAmazonSQSProperties implements AmazonSQSProperties {
         this.numberOfPublishers = numberOfPublishers;
     }
 
+    public void setMinNumberOfPublishers(final Integer minNumberOfPublishers) {
+        this.minNumberOfPublishers = minNumberOfPublishers;
+    }
+
+    public void setMaxNumberOfPublishers(final Integer maxNumberOfPublishers) {
+        this.maxNumberOfPublishers = maxNumberOfPublishers;
+    }
+
+    public void setMaxInFlightMessages(final Integer maxInFlightMessages) {
+        this.maxInFlightMessages = maxInFlightMessages;
+    }
+
     public void setAutoStart(final Boolean autoStart) {
         this.autoStart = autoStart;
     }
+
+    public void setVisibilityTimeoutSeconds(final Integer visibilityTimeoutSeconds) {
+        this.visibilityTimeoutSeconds = visibilityTimeoutSeconds;
+    }
+
+    public void setExtendVisibilityTimeout(final Boolean extendVisibilityTimeout) {
+        this.extendVisibilityTimeout = extendVisibilityTimeout;
+    }
+
+    public void setNackPolicy(final NackPolicy nackPolicy) {
+        this.nackPolicy = nackPolicy;
+    }
+
+    public void setNackDelaySeconds(final Integer nackDelaySeconds) {
+        this.nackDelaySeconds = nackDelaySeconds;
+    }
+
+    public void setNackMaxDelaySeconds(final Integer nackMaxDelaySeconds) {
+        this.nackMaxDelaySeconds = nackMaxDelaySeconds;
+    }
+
+    public void setAsynchronousReceive(final Boolean asynchronousReceive) {
+        this.asynchronousReceive = asynchronousReceive;
+    }
+
+    public void setDeleteMaxDelayMillis(final Integer deleteMaxDelayMillis) {
+        this.deleteMaxDelayMillis = deleteMaxDelayMillis;
+    }
+
+    public void setDeleteConcurrency(final Integer deleteConcurrency) {
+        this.deleteConcurrency = deleteConcurrency;
+    }
+
+    public void setMaxConcurrentHandlers(final Integer maxConcurrentHandlers) {
+        this.maxConcurrentHandlers = maxConcurrentHandlers;
+    }
+
+    public void setStreamingAcknowledgement(final Boolean streamingAcknowledgement) {
+        this.streamingAcknowledgement = streamingAcknowledgement;
+    }
+
+    public void setFifo(final Boolean fifo) {
+        this.fifo = fifo;
+    }
+
+    public void setNumberOfLanes(final Integer numberOfLanes) {
+        this.numberOfLanes = numberOfLanes;
+    }
+
+    public void setDrainTimeoutSeconds(final Integer drainTimeoutSeconds) {
+        this.drainTimeoutSeconds = drainTimeoutSeconds;
+    }
+
+    public void setNackOnDrainTimeout(final Boolean nackOnDrainTimeout) {
+        this.nackOnDrainTimeout = nackOnDrainTimeout;
+    }
+
+    public void setHandlerBatchSize(final Integer handlerBatchSize) {
+        this.handlerBatchSize = handlerBatchSize;
+    }
+
+    public void setHandlerBatchMaxDelayMillis(final Integer handlerBatchMaxDelayMillis) {
+        this.handlerBatchMaxDelayMillis = handlerBatchMaxDelayMillis;
+    }
+
+    public void setPrefetchMessages(final Integer prefetchMessages) {
+        this.prefetchMessages = prefetchMessages;
+    }
+
+    public void setDeduplicationWindowSeconds(final Integer deduplicationWindowSeconds) {
+        this.deduplicationWindowSeconds = deduplicationWindowSeconds;
+    }
+
+    public void setDeduplicationCacheSize(final Integer deduplicationCacheSize) {
+        this.deduplicationCacheSize = deduplicationCacheSize;
+    }
+
+    public void setDeduplicationAttribute(final String deduplicationAttribute) {
+        this.deduplicationAttribute = deduplicationAttribute;
+    }
+
+    public void setMessageAttributeNames(final List<String> messageAttributeNames) {
+        this.messageAttributeNames = messageAttributeNames;
+    }
+
+    public void setAttributeNames(final List<String> attributeNames) {
+        this.attributeNames = attributeNames;
+    }
 }
@@ -0,0 +1,66 @@
+package com.lorem.logistics.event.amazon.sqs.configuration;
+
+import java.util.OptionalInt;
+
+/**
+ * Policy applied to messages failed by the handler, defining when they become visible again.
+ */
+public enum NackPolicy {
+
+    /**
+     * Failed messages become visible again once their visibility timeout expires.
+     */
+    NONE {
+        @Override
+        public OptionalInt visibilityTimeout(final int receiveCount, final int delaySeconds,
+                final int maxDelaySeconds) {
+            return OptionalInt.empty();
+        }
+    },
+
+    /**
+     * Failed messages become visible again immediately.
+     */
+    IMMEDIATE {
+        @Override
+        public OptionalInt visibilityTimeout(final int receiveCount, final int delaySeconds,
+                final int maxDelaySeconds) {
+            return OptionalInt.of(0);
+        }
+    },
+
+    /**
+     * Failed messages become visible again after the nack delay.
+     */
+    FIXED_DELAY {
+        @Override
+        public OptionalInt visibilityTimeout(final int receiveCount, final int delaySeconds,
+                final int maxDelaySeconds) {
+            return OptionalInt.of(delaySeconds);
+        }
+    },
+
+    /**
+     * Failed messages become visible again after the nack delay doubled for every previous receive, up to
+     * the nack max delay.
+     */
+    EXPONENTIAL_BACKOFF {
+        @Override
+        public OptionalInt visibilityTimeout(final int receiveCount, final int delaySeconds,
+                final int maxDelaySeconds) {
+            final int previousReceives = Math.min(Math.max(receiveCount - 1, 0), 30);
+            return OptionalInt.of((int) Math.min((long) delaySeconds << previousReceives, maxDelaySeconds));
+        }
+    };
+
+    /**
+     * It calculates the visibility timeout to be set on a failed message.
+     *
+     * @param receiveCount Number of times the message was received.
+     * @param delaySeconds Nack delay in seconds.
+     * @param maxDelaySeconds Nack max delay in seconds.
+     * @return Visibility timeout in seconds, empty when the policy doesn't change the visibility of failed
+     *         messages.
+     */
+    public abstract OptionalInt visibilityTimeout(int receiveCount, int delaySeconds, int maxDelaySeconds);
+}
@@ -0,0 +1,74 @@
+package com.lorem.logistics.event.amazon.sqs.handler;
+
+import com.amazonaws.services.sqs.model.Message;
+import com.lorem.event.logs.TransactionLogHelper;
+import com.newrelic.api.agent.Trace;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * This class represents cases where should handle a batch of Message, telling which messages of the batch
+ * failed. <br>
+ * It's meant to be used along with {@code handlerBatchSize}, which aggregates the messages received by all
+ * publishers into batches larger than a single receive, e.g. for bulk inserts.
+ */
+public abstract class AbstractBatchAmazonSQSMessageHandler implements AmazonSQSMessageHandler {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AbstractBatchAmazonSQSMessageHandler.class);
+
+    /**
+     * Set the right transaction name before handle the message by calling
+     * AbstractBatchAmazonSQSMessageHandler::handleBatch. Each invocation of handleBatch is bounded by the
+     * {@link HandlerConcurrencyLimiter} of the consumer. The messages returned by handleBatch are failed
+     * and the other ones succeed, while every message is failed when handleBatch fails. Failed messages
+     * are told apart by identity rather than by MessageId, since two deliveries of the same message may
+     * land in the same batch.
+     *
+     * @param messages A list of {@link Message} to be handle
+     * @return A Flux of a list of {@link MessageDecorator}
+     */
+    @Trace(dispatcher = true)
+    @Override
+    public Flux<List<MessageDecorator>> handle(final List<Message> messages) {
+        TransactionLogHelper.overrideTransactionName(getTransactionName());
+
+        return HandlerConcurrencyLimiter.limited(messages, admitted -> Mono.defer(() -> handleBatch(admitted))
+                .map(failedMessages -> createMessageDecorators(admitted, failedMessages))
+                .switchIfEmpty(Mono.fromSupplier(() -> createMessageDecorators(admitted, Collections.emptyList())))
+                .doOnError(throwable -> LOGGER.error("Error while handling the messages.", throwable))
+                .onErrorReturn(admitted.stream().map(MessageDecorator::withFail).collect(Collectors.toList())))
+                .flux();
+    }
+
+    private List<MessageDecorator> createMessageDecorators(final List<Message> messages,
+            final Collection<Message> failedMessages) {
+        final Set<Message> failed = Collections.newSetFromMap(new IdentityHashMap<>());
+        failed.addAll(failedMessages);
+        return messages.stream()
+                .map(message -> failed.contains(message) ? MessageDecorator.withFail(message)
+                    : MessageDecorator.withSuccess(message))
+                .collect(Collectors.toList());
+    }
+
+    private String getTransactionName() {
+        return getClass().getName() + "/handle";
+    }
+
+    /**
+     * Process a batch of messages.
+     *
+     * @param messages Messages to be processed.
+     * @return Mono of the messages of the batch that failed, empty when none failed.
+     */
+    protected abstract Mono<? extends Collection<Message>> handleBatch(List<Message> messages);
+
+}
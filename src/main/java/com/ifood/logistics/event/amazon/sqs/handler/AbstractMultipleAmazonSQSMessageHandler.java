@@ -20,7 +20,8 @@ public abstract class AbstractMultipleAmazonSQSMessageHandler implements AmazonS
 
     /**
      * Set the right transaction name before handle the message by calling
-     * AbstractMultipleAmazonSQSMessageHandler::handleMessages.
+     * AbstractMultipleAmazonSQSMessageHandler::handleMessages. Each invocation of handleMessages is bounded
+     * by the {@link HandlerConcurrencyLimiter} of the consumer.
      *
      * @param messages A list of {@link Message} to be handle
      * @return A Flux of a list of {@link MessageDecorator}
@@ -34,10 +35,10 @@ public abstract class AbstractMultipleAmazonSQSMessageHandler implements AmazonS
     }
 
     private Mono<List<MessageDecorator>> createMessageDecorators(final List<Message> messages) {
-        return handleMessages(messages) //
-                .thenReturn(createSuccessDecorators(messages))
+        return HandlerConcurrencyLimiter.limited(messages, admitted -> Mono.defer(() -> handleMessages(admitted)) //
+                .thenReturn(createSuccessDecorators(admitted))
                 .doOnError(throwable -> LOGGER.error("Error while handling the messages.", throwable))
-                .onErrorReturn(createFailDecorators(messages));
+                .onErrorReturn(createFailDecorators(admitted)));
     }
 
     private List<MessageDecorator> createSuccessDecorators(final List<Message> messages) {
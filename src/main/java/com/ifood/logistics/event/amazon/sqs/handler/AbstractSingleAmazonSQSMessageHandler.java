@@ -8,6 +8,7 @@ import org.slf4j.LoggerFactory;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -15,11 +16,19 @@ import java.util.List;
  */
 public abstract class AbstractSingleAmazonSQSMessageHandler implements AmazonSQSMessageHandler {
 
+    /**
+     * Subscriber context key enabling streaming acknowledgement, when its value is {@code true}.
+     */
+    public static final String STREAMING_ACKNOWLEDGEMENT = "streamingAcknowledgement";
+
     private static final Logger LOGGER = LoggerFactory.getLogger(AbstractSingleAmazonSQSMessageHandler.class);
 
     /**
      * Set the right transaction name before handle the message by calling
-     * AbstractSingleAmazonSQSMessageHandler::handleMessage.
+     * AbstractSingleAmazonSQSMessageHandler::handleMessage. Each invocation of handleMessage is bounded by
+     * the {@link HandlerConcurrencyLimiter} of the consumer. With streaming acknowledgement, each
+     * {@link MessageDecorator} is emitted alone as soon as its message is handled, otherwise they are
+     * emitted together once every message is handled.
      *
      * @param messages A list of {@link Message} to be handle
      * @return a Flux of list of {@link MessageDecorator}
@@ -29,12 +38,19 @@ public abstract class AbstractSingleAmazonSQSMessageHandler implements AmazonSQS
     public Flux<List<MessageDecorator>> handle(final List<Message> messages) {
         TransactionLogHelper.overrideTransactionName(getTransactionName());
 
-        return Flux.fromIterable(messages).flatMap(this::createMessageDecorator).buffer();
+        return Mono.subscriberContext().flatMapMany(context -> {
+            final Flux<MessageDecorator> messageDecorators =
+                Flux.fromIterable(messages).flatMap(this::createMessageDecorator);
+            return context.getOrDefault(STREAMING_ACKNOWLEDGEMENT, false)
+                    ? messageDecorators.map(Collections::singletonList)
+                    : messageDecorators.buffer();
+        });
     }
 
     private Mono<MessageDecorator> createMessageDecorator(final Message message) {
-        return handleMessage(message)
-                .thenReturn(MessageDecorator.withSuccess(message))
+        return HandlerConcurrencyLimiter
+                .limited(Collections.singletonList(message), admitted -> Mono.defer(() -> handleMessage(message))
+                        .thenReturn(MessageDecorator.withSuccess(message)))
                 .doOnError(e -> LOGGER.error("Error while handling the message.", e))
                 .onErrorReturn(MessageDecorator.withFail(message));
     }
@@ -0,0 +1,62 @@
+package com.lorem.logistics.event.amazon.sqs.handler;
+
+import com.amazonaws.services.sqs.model.Message;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * This class represents cases where should handle a deserialized message payload per time. <br>
+ * The payload of each message is deserialized once, on the processing rail right before handling it, by
+ * the given {@link MessageDeserializer}. When SNS envelopes are unwrapped, the payload is the message of
+ * the SNS notification delivered without raw message delivery, read without deserializing the whole
+ * envelope. Messages whose payload can't be deserialized are failed.
+ *
+ * @param <T> Type of the payload.
+ */
+public abstract class AbstractTypedAmazonSQSMessageHandler<T> extends AbstractSingleAmazonSQSMessageHandler {
+
+    private final MessageDeserializer<T> messageDeserializer;
+    private final boolean unwrapSnsEnvelope;
+
+    /**
+     * @param messageDeserializer Deserializer of the message bodies.
+     */
+    protected AbstractTypedAmazonSQSMessageHandler(final MessageDeserializer<T> messageDeserializer) {
+        this(messageDeserializer, false);
+    }
+
+    /**
+     * @param messageDeserializer Deserializer of the message payloads.
+     * @param unwrapSnsEnvelope Whether the payload is the message of the SNS envelope of the body, when the
+     *        body is an SNS notification.
+     */
+    protected AbstractTypedAmazonSQSMessageHandler(final MessageDeserializer<T> messageDeserializer,
+            final boolean unwrapSnsEnvelope) {
+        this.messageDeserializer = requireNonNull(messageDeserializer, "Message deserializer can't be null");
+        this.unwrapSnsEnvelope = unwrapSnsEnvelope;
+    }
+
+    @Override
+    protected final Mono<Void> handleMessage(final Message message) {
+        final T payload;
+        try {
+            payload = messageDeserializer.deserialize(
+                unwrapSnsEnvelope ? SnsEnvelopes.unwrap(message.getBody()) : message.getBody());
+        } catch (final IOException e) {
+            return Mono.error(e);
+        }
+        return handlePayload(payload, message);
+    }
+
+    /**
+     * Process the payload of a message.
+     *
+     * @param payload Deserialized payload of the message.
+     * @param message Message of the payload, e.g. for its attributes.
+     * @return Mono to continue flux.
+     */
+    protected abstract Mono<Void> handlePayload(T payload, Message message);
+}
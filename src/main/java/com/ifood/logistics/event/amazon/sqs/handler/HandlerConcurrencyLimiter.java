@@ -0,0 +1,170 @@
+package com.lorem.logistics.event.amazon.sqs.handler;
+
+import com.amazonaws.services.sqs.model.Message;
+import com.lorem.logistics.event.metrics.Counter;
+import com.lorem.logistics.event.metrics.EventMetrics;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Queue;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Bounds the handler invocations running at the same time across all rails of a consumer. <br>
+ * The consumer makes its limiter available to the handlers through the subscriber context, so that
+ * {@link AbstractSingleAmazonSQSMessageHandler} and {@link AbstractMultipleAmazonSQSMessageHandler}
+ * invocations wait for a permit before running. Waiting invocations are served in order. <br>
+ * Once an invocation gets its permit, its messages go through the admission of the limiter right before
+ * the handler runs, which is where the consumer takes them out of its prefetch buffer.
+ */
+public final class HandlerConcurrencyLimiter {
+
+    private static final String ACTIVE_INVOCATIONS_GAUGE = "SQS active handler invocations";
+    private static final String THROTTLED_INVOCATIONS_METRIC = "SQS throttled handler invocations";
+
+    private final Queue<MonoSink<Void>> waiting = new ArrayDeque<>();
+    private final int maxConcurrentHandlers;
+    private final UnaryOperator<List<Message>> admission;
+    private final Counter throttledInvocations;
+
+    private int active;
+
+    /**
+     * It constructs a limiter allowing up to {@code maxConcurrentHandlers} invocations at the same time.
+     *
+     * @param maxConcurrentHandlers Max concurrent handler invocations, {@code null} for unbounded.
+     * @param eventMetrics Metrics of the consumer.
+     */
+    public HandlerConcurrencyLimiter(final Integer maxConcurrentHandlers, final EventMetrics eventMetrics) {
+        this(maxConcurrentHandlers, UnaryOperator.identity(), eventMetrics);
+    }
+
+    /**
+     * It constructs a limiter allowing up to {@code maxConcurrentHandlers} invocations at the same time,
+     * which admits the messages of each invocation right before it runs.
+     *
+     * @param maxConcurrentHandlers Max concurrent handler invocations, {@code null} for unbounded.
+     * @param admission Function taking the messages of an invocation and returning the ones to be handled.
+     * @param eventMetrics Metrics of the consumer.
+     */
+    public HandlerConcurrencyLimiter(final Integer maxConcurrentHandlers,
+            final UnaryOperator<List<Message>> admission, final EventMetrics eventMetrics) {
+        this.admission = admission;
+        this.maxConcurrentHandlers = maxConcurrentHandlers == null ? Integer.MAX_VALUE : maxConcurrentHandlers;
+        this.throttledInvocations = eventMetrics.counter(THROTTLED_INVOCATIONS_METRIC);
+        eventMetrics.registerGauge(ACTIVE_INVOCATIONS_GAUGE, this::getActive);
+    }
+
+    /**
+     * It runs {@code invocation} with the limiter found in the subscriber context, or right away when
+     * there is none.
+     *
+     * @param invocation Handler invocation.
+     * @param <T> Type of the invocation result.
+     * @return Mono of the invocation result.
+     */
+    static <T> Mono<T> limited(final Supplier<Mono<T>> invocation) {
+        return Mono.subscriberContext()
+                .flatMap(context -> context.<HandlerConcurrencyLimiter>getOrEmpty(HandlerConcurrencyLimiter.class)
+                        .map(limiter -> limiter.limit(invocation))
+                        .orElseGet(() -> Mono.defer(invocation)));
+    }
+
+    /**
+     * It runs {@code invocation} over {@code messages} with the limiter found in the subscriber context, or
+     * right away when there is none.
+     *
+     * @param messages Messages to be handled.
+     * @param invocation Handler invocation over the admitted messages.
+     * @param <T> Type of the invocation result.
+     * @return Mono of the invocation result, empty when no message was admitted.
+     */
+    static <T> Mono<T> limited(final List<Message> messages, final Function<List<Message>, Mono<T>> invocation) {
+        return Mono.subscriberContext()
+                .flatMap(context -> context.<HandlerConcurrencyLimiter>getOrEmpty(HandlerConcurrencyLimiter.class)
+                        .map(limiter -> limiter.limit(messages, invocation))
+                        .orElseGet(() -> Mono.defer(() -> invocation.apply(messages))));
+    }
+
+    /**
+     * It runs {@code invocation} once a permit is available, giving the permit back when the invocation
+     * terminates or is cancelled.
+     *
+     * @param invocation Handler invocation.
+     * @param <T> Type of the invocation result.
+     * @return Mono of the invocation result.
+     */
+    public <T> Mono<T> limit(final Supplier<Mono<T>> invocation) {
+        return acquire().then(Mono.defer(() -> Mono.defer(invocation).doFinally(signalType -> release())));
+    }
+
+    /**
+     * It runs {@code invocation} once a permit is available, over the messages the admission lets through,
+     * giving the permit back when the invocation terminates or is cancelled. The invocation is skipped when
+     * no message is admitted.
+     *
+     * @param messages Messages to be handled.
+     * @param invocation Handler invocation over the admitted messages.
+     * @param <T> Type of the invocation result.
+     * @return Mono of the invocation result, empty when no message was admitted.
+     */
+    public <T> Mono<T> limit(final List<Message> messages, final Function<List<Message>, Mono<T>> invocation) {
+        return limit(() -> {
+            final List<Message> admitted = admission.apply(messages);
+            return admitted.isEmpty() ? Mono.empty() : invocation.apply(admitted);
+        });
+    }
+
+    /**
+     * @return Number of handler invocations running.
+     */
+    public synchronized int getActive() {
+        return active;
+    }
+
+    private Mono<Void> acquire() {
+        return Mono.create(sink -> {
+            synchronized (this) {
+                if (!waiting.isEmpty() || active >= maxConcurrentHandlers) {
+                    waiting.add(sink);
+                    sink.onCancel(() -> cancel(sink));
+                    throttledInvocations.increment();
+                    return;
+                }
+                active++;
+            }
+            sink.success();
+        });
+    }
+
+    private void release() {
+        final MonoSink<Void> next;
+        synchronized (this) {
+            next = waiting.poll();
+            if (next == null) {
+                active--;
+            }
+        }
+        if (next != null) {
+            next.success();
+        }
+    }
+
+    /**
+     * A cancelled invocation either leaves the queue or, when its permit was already handed over, gives
+     * it back.
+     */
+    private void cancel(final MonoSink<Void> sink) {
+        final boolean removed;
+        synchronized (this) {
+            removed = waiting.remove(sink);
+        }
+        if (!removed) {
+            release();
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.lorem.logistics.event.amazon.sqs.handler;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.io.IOException;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Deserializer of JSON payloads through Jackson. The {@link ObjectReader} of the type is created once, so
+ * each payload is read without looking its deserializer up.
+ *
+ * @param <T> Type of the payload.
+ */
+public class JacksonMessageDeserializer<T> implements MessageDeserializer<T> {
+
+    private final ObjectReader objectReader;
+
+    /**
+     * @param objectMapper Object mapper configuring the deserialization.
+     * @param type Type of the payload.
+     */
+    public JacksonMessageDeserializer(final ObjectMapper objectMapper, final Class<T> type) {
+        this.objectReader = requireNonNull(objectMapper, "Object mapper can't be null").readerFor(type);
+    }
+
+    /**
+     * @param objectMapper Object mapper configuring the deserialization.
+     * @param type Generic type of the payload.
+     */
+    public JacksonMessageDeserializer(final ObjectMapper objectMapper, final TypeReference<T> type) {
+        this.objectReader = requireNonNull(objectMapper, "Object mapper can't be null").readerFor(type);
+    }
+
+    @Override
+    public T deserialize(final String payload) throws IOException {
+        return objectReader.readValue(payload);
+    }
+}
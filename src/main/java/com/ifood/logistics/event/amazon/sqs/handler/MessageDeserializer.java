@@ -0,0 +1,21 @@
+package com.lorem.logistics.event.amazon.sqs.handler;
+
+import java.io.IOException;
+
+/**
+ * Deserializer of the payload of the messages handled by an {@link AbstractTypedAmazonSQSMessageHandler}.
+ *
+ * @param <T> Type of the payload.
+ */
+@FunctionalInterface
+public interface MessageDeserializer<T> {
+
+    /**
+     * It deserializes a message payload, i.e. its body or the message of its SNS envelope.
+     *
+     * @param payload Message payload.
+     * @return Deserialized payload.
+     * @throws IOException If the payload can't be deserialized.
+     */
+    T deserialize(String payload) throws IOException;
+}
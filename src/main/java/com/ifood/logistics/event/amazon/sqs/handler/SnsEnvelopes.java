@@ -0,0 +1,56 @@
+package com.lorem.logistics.event.amazon.sqs.handler;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+
+/**
+ * Unwrapping of the SNS envelope of messages delivered by an SNS subscription without raw message
+ * delivery.
+ */
+final class SnsEnvelopes {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final String NOTIFICATION = "Notification";
+    private static final String TYPE_FIELD = "Type";
+    private static final String MESSAGE_FIELD = "Message";
+
+    private SnsEnvelopes() {
+    }
+
+    /**
+     * It returns the message of the SNS notification in {@code body}, or {@code body} itself when it isn't
+     * an SNS notification. The envelope is scanned with the streaming parser, without building a tree, and
+     * it stops reading as soon as both its type and message were found.
+     *
+     * @param body Message body.
+     * @return Message of the SNS notification or the body.
+     * @throws IOException If the body can't be read.
+     */
+    static String unwrap(final String body) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return body;
+            }
+            String type = null;
+            String message = null;
+            while ((type == null || message == null) && parser.nextToken() == JsonToken.FIELD_NAME) {
+                final String field = parser.getCurrentName();
+                final JsonToken value = parser.nextToken();
+                if (value == JsonToken.VALUE_STRING && TYPE_FIELD.equals(field)) {
+                    type = parser.getText();
+                } else if (value == JsonToken.VALUE_STRING && MESSAGE_FIELD.equals(field)) {
+                    message = parser.getText();
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            return NOTIFICATION.equals(type) && message != null ? message : body;
+        } catch (final JsonProcessingException e) {
+            return body;
+        }
+    }
+}
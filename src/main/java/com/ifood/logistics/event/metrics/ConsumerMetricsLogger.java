@@ -7,7 +7,8 @@ import java.util.Collection;
 import static java.util.Objects.requireNonNull;
 
 /**
- * {@link Runnable} responsible for logging all given consumers metrics.
+ * {@link Runnable} responsible for logging all given consumers metrics. Each run logs the metrics of the
+ * interval since the previous run, with their rates per second.
  */
 public class ConsumerMetricsLogger implements Runnable {
 
@@ -24,6 +25,6 @@ public class ConsumerMetricsLogger implements Runnable {
 
     @Override
     public void run() {
-        this.consumers.forEach(consumer -> consumer.getMetrics().log());
+        this.consumers.forEach(consumer -> consumer.getMetrics().logAndReset());
     }
 }
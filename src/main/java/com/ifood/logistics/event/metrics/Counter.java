@@ -0,0 +1,38 @@
+package com.lorem.logistics.event.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Handle of a metric registered via {@link EventMetrics#counter(String)}, updated without any lookup.
+ */
+public final class Counter {
+
+    private final LongAdder adder;
+
+    Counter(LongAdder adder) {
+        this.adder = adder;
+    }
+
+    /**
+     * Increment the metric. Equivalent to {@code add(1L)}.
+     */
+    public void increment() {
+        adder.increment();
+    }
+
+    /**
+     * It adds the given {@code value} to the metric.
+     *
+     * @param value Value to add.
+     */
+    public void add(long value) {
+        adder.add(value);
+    }
+
+    /**
+     * @return Accumulated value since the metric was registered, never reset.
+     */
+    public long sum() {
+        return adder.sum();
+    }
+}
@@ -3,11 +3,17 @@ package com.lorem.logistics.event.metrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.time.LocalDateTime;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
 import java.util.stream.Collectors;
 
 import static java.util.Objects.requireNonNull;
@@ -15,8 +21,18 @@ import static java.util.Objects.requireNonNull;
 /**
  * Wrapper for event metrics. <br />
  * Metrics can be accumulated via {@link #incrementMetric(String)} and
- * {@link #addToMetric(String, long)} methods. Then, they can be retrieved and/or reset by sum's and
- * log's methods.
+ * {@link #addToMetric(String, long)} methods. Then, they can be retrieved by sum's and log's methods,
+ * or retrieved per interval by {@link #snapshotAndReset()} and {@link #logAndReset()}, which account the
+ * difference since the previous interval without resetting the accumulated values. <br />
+ * Gauges registered via {@link #registerGauge(String, LongSupplier)} are read when retrieved. <br />
+ * Latencies can be recorded via {@link #recordLatency(String, long, TimeUnit)} into
+ * {@link LatencyHistogram}s, which {@link #latencies()} and the exporters read with every latency recorded
+ * since they were registered, while snapshots only take the latencies recorded during their interval. <br />
+ * On hot paths, metrics should be updated through the handles returned by {@link #counter(String)},
+ * {@link #gauge(String)} and {@link #timer(String)}, registered once, which avoid looking the metric up
+ * by name on every update. <br />
+ * Metrics can be exported to other backends through {@link MetricsExporter}s, which read them when
+ * collected, so exporting doesn't cost anything on the paths updating them.
  */
 public class EventMetrics {
 
@@ -24,9 +40,23 @@ public class EventMetrics {
 
     private final ConcurrentMap<String, LongAdder> metrics;
 
+    private final ConcurrentMap<String, LongSupplier> gauges;
+
+    private final ConcurrentMap<String, LatencyHistogram> latencies;
+
+    private final ConcurrentMap<String, Timer> timers;
+
+    private final Map<String, Long> sumsAtIntervalStart;
+
+    private final List<MetricsExporter> exporters;
+
     private final String name;
 
-    private LocalDateTime metricsStart;
+    private final Instant metricsStart;
+
+    private Instant intervalStart;
+
+    private long intervalStartNanos;
 
     /**
      * Initialize the event metrics with the given name.
@@ -36,11 +66,34 @@ public class EventMetrics {
     public EventMetrics(String name) {
         this.name = requireNonNull(name, "Name can't be null");
         this.metrics = new ConcurrentHashMap<>();
-        resetMetricsStart();
+        this.gauges = new ConcurrentHashMap<>();
+        this.latencies = new ConcurrentHashMap<>();
+        this.timers = new ConcurrentHashMap<>();
+        this.sumsAtIntervalStart = new HashMap<>();
+        this.exporters = new CopyOnWriteArrayList<>();
+        this.metricsStart = Instant.now();
+        this.intervalStart = metricsStart;
+        this.intervalStartNanos = System.nanoTime();
     }
 
-    private void resetMetricsStart() {
-        this.metricsStart = LocalDateTime.now();
+    /**
+     * @return Name of the event metrics.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * It adds an exporter, telling it about the metrics, gauges and latency histograms registered so far
+     * and, from then on, about every one registered.
+     *
+     * @param exporter Exporter to add.
+     */
+    public void addExporter(MetricsExporter exporter) {
+        exporters.add(requireNonNull(exporter, "Exporter can't be null"));
+        metrics.keySet().forEach(metricName -> exporter.counterRegistered(this, metricName));
+        gauges.keySet().forEach(gaugeName -> exporter.gaugeRegistered(this, gaugeName));
+        latencies.keySet().forEach(histogramName -> exporter.timerRegistered(this, histogramName));
     }
 
     /**
@@ -49,7 +102,7 @@ public class EventMetrics {
      * @param metricName Metric's name.
      */
     public void incrementMetric(String metricName) {
-        metrics.computeIfAbsent(metricName, key -> new LongAdder()).increment();
+        adder(metricName).increment();
     }
 
     /**
@@ -59,7 +112,119 @@ public class EventMetrics {
      * @param value Value to add.
      */
     public void addToMetric(String metricName, long value) {
-        metrics.computeIfAbsent(metricName, key -> new LongAdder()).add(value);
+        adder(metricName).add(value);
+    }
+
+    /**
+     * It returns the handle of the metric named {@code metricName}, registering it when needed.
+     *
+     * @param metricName Metric's name.
+     * @return Metric handle.
+     */
+    public Counter counter(String metricName) {
+        return new Counter(adder(metricName));
+    }
+
+    /**
+     * It registers a gauge holding the value set through the returned handle. A gauge registered with an
+     * existing name replaces the previous one.
+     *
+     * @param gaugeName Gauge's name.
+     * @return Gauge handle.
+     */
+    public Gauge gauge(String gaugeName) {
+        final Gauge gauge = new Gauge();
+        registerGauge(gaugeName, gauge::get);
+        return gauge;
+    }
+
+    /**
+     * It returns the handle of the latency histogram named {@code histogramName}, registering it when
+     * needed.
+     *
+     * @param histogramName Histogram's name.
+     * @return Latency histogram handle.
+     */
+    public Timer timer(String histogramName) {
+        final Timer timer = timers.get(histogramName);
+        if (timer != null) {
+            return timer;
+        }
+        final Timer created = new Timer();
+        final Timer registered = timers.putIfAbsent(histogramName, created);
+        if (registered != null) {
+            return registered;
+        }
+        latencies.put(histogramName, created.getHistogram());
+        exporters.forEach(exporter -> exporter.timerRegistered(this, histogramName));
+        return created;
+    }
+
+    /**
+     * It registers a gauge whose value is read from {@code supplier} every time gauges are retrieved.
+     * A gauge registered with an existing name replaces the previous one.
+     *
+     * @param gaugeName Gauge's name.
+     * @param supplier Supplier of the current value.
+     */
+    public void registerGauge(String gaugeName, LongSupplier supplier) {
+        if (gauges.put(gaugeName, requireNonNull(supplier, "Supplier can't be null")) == null) {
+            exporters.forEach(exporter -> exporter.gaugeRegistered(this, gaugeName));
+        }
+    }
+
+    /**
+     * It records a latency into the histogram named {@code histogramName}.
+     *
+     * @param histogramName Histogram's name.
+     * @param duration Latency.
+     * @param unit Unit of the latency.
+     */
+    public void recordLatency(String histogramName, long duration, TimeUnit unit) {
+        timer(histogramName).record(duration, unit);
+    }
+
+    /**
+     * It returns the lifetime total of {@code metricName}, which only grows.
+     *
+     * @param metricName Metric's name.
+     * @return Total of the metric, 0 when it wasn't accumulated.
+     */
+    public long getTotal(String metricName) {
+        final LongAdder adder = metrics.get(metricName);
+        return adder == null ? 0 : adder.sum();
+    }
+
+    /**
+     * It returns the current value of {@code gaugeName}.
+     *
+     * @param gaugeName Gauge's name.
+     * @return Value of the gauge, 0 when it isn't registered.
+     */
+    public long getGauge(String gaugeName) {
+        final LongSupplier supplier = gauges.get(gaugeName);
+        return supplier == null ? 0 : supplier.getAsLong();
+    }
+
+    /**
+     * Get a map containing all latency histograms, each with every latency recorded since it was
+     * registered.
+     *
+     * @return Latency histograms map.
+     */
+    public Map<String, LatencyHistogram> latencies() {
+        return Collections.unmodifiableMap(latencies);
+    }
+
+    /**
+     * Get a map containing all gauges and their current values.
+     *
+     * @return Gauges map.
+     */
+    public Map<String, Long> gauges() {
+        return gauges.entrySet()
+                .stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, o -> o.getValue().getAsLong()));
     }
 
     /**
@@ -68,16 +233,69 @@ public class EventMetrics {
      * @return Metrics map.
      */
     public Map<String, Long> sum() {
-        synchronized (metrics) {
-            return metrics.entrySet().stream().collect(Collectors.toMap(Map.Entry::getKey, o -> o.getValue().sum()));
-        }
+        return metrics.entrySet().stream().collect(Collectors.toMap(Map.Entry::getKey, o -> o.getValue().sum()));
+    }
+
+    /**
+     * It takes a snapshot of the interval since the previous snapshot and starts a new interval. Each
+     * metric is read once and accounted for the difference with its value at the start of the interval,
+     * leaving the accumulated values as they are, while the latencies recorded during the interval are
+     * moved out of their interval histogram at once, leaving the histograms of {@link #latencies()} as they
+     * are. So nothing accumulated concurrently is lost, it is accounted in either this interval or the
+     * next one. The interval is measured by {@link System#nanoTime()}, so it isn't affected by wall-clock
+     * adjustments.
+     *
+     * @return Snapshot of the interval.
+     */
+    public synchronized MetricsSnapshot snapshotAndReset() {
+        final Instant start = intervalStart;
+        final long startNanos = intervalStartNanos;
+        intervalStart = Instant.now();
+        intervalStartNanos = System.nanoTime();
+        final Map<String, Long> deltas = new HashMap<>();
+        metrics.forEach((metricName, adder) -> {
+            final long sum = adder.sum();
+            deltas.put(metricName, sum - sumsAtIntervalStart.getOrDefault(metricName, 0L));
+            sumsAtIntervalStart.put(metricName, sum);
+        });
+        final Map<String, LatencyHistogram> histograms = timers.entrySet()
+                .stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, o -> o.getValue().snapshotAndReset()));
+        return new MetricsSnapshot(start, intervalStart, intervalStartNanos - startNanos, deltas, gauges(),
+            histograms);
     }
 
     /**
-     * Log accumulated metrics at INFO ({@link Logger}) level.
+     * Log accumulated metrics, current gauges and latency histograms at INFO ({@link Logger}) level.
      */
     public void log() {
-        LOGGER.info("{} metrics since {}: {}", name, metricsStart, sum());
+        LOGGER.info("{} metrics since {}: {}, gauges: {}, latencies: {}", name, metricsStart, sum(), gauges(),
+            latencies);
+    }
+
+    /**
+     * Log the metrics of the interval since the previous snapshot, with their rates per second, current gauges
+     * and latency histograms at INFO ({@link Logger}) level, starting a new interval.
+     */
+    public void logAndReset() {
+        final MetricsSnapshot snapshot = snapshotAndReset();
+        LOGGER.info("{} metrics from {} to {}: {}, per second: {}, gauges: {}, latencies: {}", name,
+            snapshot.getStart(), snapshot.getEnd(), snapshot.getMetrics(), snapshot.getRatesPerSecond(),
+            snapshot.getGauges(), snapshot.getLatencies());
+    }
+
+    private LongAdder adder(String metricName) {
+        final LongAdder adder = metrics.get(metricName);
+        if (adder != null) {
+            return adder;
+        }
+        final LongAdder created = new LongAdder();
+        final LongAdder registered = metrics.putIfAbsent(metricName, created);
+        if (registered != null) {
+            return registered;
+        }
+        exporters.forEach(exporter -> exporter.counterRegistered(this, metricName));
+        return created;
     }
 
 }
@@ -0,0 +1,38 @@
+package com.lorem.logistics.event.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Handle of a gauge registered via {@link EventMetrics#gauge(String)}, holding a value set by its owner
+ * instead of reading it from a supplier.
+ */
+public final class Gauge {
+
+    private final AtomicLong value = new AtomicLong();
+
+    Gauge() {
+    }
+
+    /**
+     * @param newValue Current value.
+     */
+    public void set(long newValue) {
+        value.set(newValue);
+    }
+
+    /**
+     * It adds the given {@code delta} to the current value.
+     *
+     * @param delta Value to add, negative to subtract.
+     */
+    public void add(long delta) {
+        value.addAndGet(delta);
+    }
+
+    /**
+     * @return Current value.
+     */
+    public long get() {
+        return value.get();
+    }
+}
@@ -0,0 +1,175 @@
+package com.lorem.logistics.event.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free latency histogram with fixed memory. <br>
+ * Latencies are recorded in microseconds into log-linear buckets, in the same way as HDR histograms: values
+ * below {@value #SUB_BUCKET_COUNT} microseconds have their own bucket and greater values share buckets
+ * of 1/{@value #HALF_SUB_BUCKET_COUNT} of their power of two, so percentiles are reported with an error
+ * below 1.6%. Values above {@value #MAX_TRACKABLE_MICROS} microseconds (about 12 days) are recorded in the
+ * last bucket.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int HALF_SUB_BUCKET_COUNT = SUB_BUCKET_COUNT / 2;
+    private static final long MAX_TRACKABLE_MICROS = (1L << 40) - 1;
+    private static final int BUCKET_COUNT = index(MAX_TRACKABLE_MICROS) + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong totalMicros = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * It records a latency.
+     *
+     * @param duration Latency.
+     * @param unit Unit of the latency.
+     */
+    public void record(final long duration, final TimeUnit unit) {
+        final long micros = Math.min(Math.max(unit.toMicros(duration), 0), MAX_TRACKABLE_MICROS);
+        counts.incrementAndGet(index(micros));
+        totalMicros.addAndGet(micros);
+        max.accumulateAndGet(micros, Math::max);
+    }
+
+    /**
+     * It moves the recorded latencies to a new histogram, leaving this one empty. Latencies recorded
+     * while moving end up in one of the two histograms. The counts are moved before the max, so the max of
+     * a latency recorded meanwhile may end up in the other histogram than its count, which is why
+     * {@link #getMaxMicros()} is never below the bucket of the greatest recorded latency.
+     *
+     * @return Histogram with the latencies recorded so far.
+     */
+    public LatencyHistogram snapshotAndReset() {
+        final LatencyHistogram snapshot = new LatencyHistogram();
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            snapshot.counts.set(i, counts.getAndSet(i, 0));
+        }
+        snapshot.totalMicros.set(totalMicros.getAndSet(0));
+        snapshot.max.set(max.getAndSet(0));
+        return snapshot;
+    }
+
+    /**
+     * @return Number of recorded latencies.
+     */
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            count += counts.get(i);
+        }
+        return count;
+    }
+
+    /**
+     * @return Sum of the recorded latencies in microseconds.
+     */
+    public long getTotalMicros() {
+        return totalMicros.get();
+    }
+
+    /**
+     * It counts the recorded latencies up to each of the given bounds, in a single pass so that the counts
+     * are consistent with each other. A latency sharing its bucket with a bound is counted up to that
+     * bound, so the counts are accurate within the precision of the histogram.
+     *
+     * @param upperBoundsMicros Ascending upper bounds in microseconds.
+     * @return Number of latencies up to each bound, followed by the number of recorded latencies.
+     */
+    public long[] getCumulativeCounts(final long... upperBoundsMicros) {
+        final long[] cumulativeCounts = new long[upperBoundsMicros.length + 1];
+        int bound = 0;
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            while (bound < upperBoundsMicros.length && boundIndex(upperBoundsMicros[bound]) < i) {
+                cumulativeCounts[bound++] = seen;
+            }
+            seen += counts.get(i);
+        }
+        while (bound < upperBoundsMicros.length) {
+            cumulativeCounts[bound++] = seen;
+        }
+        cumulativeCounts[upperBoundsMicros.length] = seen;
+        return cumulativeCounts;
+    }
+
+    /**
+     * @return Maximum recorded latency in microseconds, at least the lowest value of the bucket of the
+     *         greatest recorded latency.
+     */
+    public long getMaxMicros() {
+        for (int i = BUCKET_COUNT - 1; i >= 0; i--) {
+            if (counts.get(i) > 0) {
+                return Math.max(max.get(), lowestValue(i));
+            }
+        }
+        return max.get();
+    }
+
+    /**
+     * It returns the latency below which {@code percentile} percent of the recorded latencies are, or 0
+     * when nothing was recorded.
+     *
+     * @param percentile Percentile between 0 and 100.
+     * @return Latency in microseconds.
+     */
+    public long getPercentileMicros(final double percentile) {
+        final long count = getCount();
+        if (count == 0) {
+            return 0;
+        }
+        final long rank = Math.max(1, (long) Math.ceil(count * Math.min(percentile, 100) / 100));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(highestValue(i), getMaxMicros());
+            }
+        }
+        return getMaxMicros();
+    }
+
+    /**
+     * @return Count, p50, p99, p999 and max of the recorded latencies in milliseconds.
+     */
+    @Override
+    public String toString() {
+        return String.format("{count=%d, p50=%.3fms, p99=%.3fms, p999=%.3fms, max=%.3fms}", getCount(),
+            millis(getPercentileMicros(50)), millis(getPercentileMicros(99)), millis(getPercentileMicros(99.9)),
+            millis(getMaxMicros()));
+    }
+
+    private static double millis(final long micros) {
+        return micros / 1000.0;
+    }
+
+    private static int index(final long micros) {
+        if (micros < SUB_BUCKET_COUNT) {
+            return (int) micros;
+        }
+        final int shift = 63 - Long.numberOfLeadingZeros(micros) - (SUB_BUCKET_BITS - 1);
+        return shift * HALF_SUB_BUCKET_COUNT + (int) (micros >>> shift);
+    }
+
+    private static int boundIndex(final long micros) {
+        return index(Math.min(Math.max(micros, 0), MAX_TRACKABLE_MICROS));
+    }
+
+    private static long lowestValue(final int index) {
+        return index == 0 ? 0 : highestValue(index - 1) + 1;
+    }
+
+    private static long highestValue(final int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        final int shift = index / HALF_SUB_BUCKET_COUNT - 1;
+        final long subBucket = index % HALF_SUB_BUCKET_COUNT + HALF_SUB_BUCKET_COUNT;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
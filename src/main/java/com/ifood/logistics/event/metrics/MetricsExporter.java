@@ -0,0 +1,37 @@
+package com.lorem.logistics.event.metrics;
+
+/**
+ * Backend to which {@link EventMetrics} are exported, added via {@link EventMetrics#addExporter(MetricsExporter)}.
+ * <br />
+ * An exporter is told once about each metric, gauge and latency histogram, when it's registered, and reads
+ * their values from the {@link EventMetrics} only when its backend collects them, so the paths updating the
+ * metrics don't pay for exporting. Metrics should be read via {@link EventMetrics#getTotal(String)}, their
+ * lifetime totals.
+ */
+public interface MetricsExporter {
+
+    /**
+     * It's called when a metric is registered.
+     *
+     * @param eventMetrics Event metrics holding the metric.
+     * @param metricName Metric's name.
+     */
+    void counterRegistered(EventMetrics eventMetrics, String metricName);
+
+    /**
+     * It's called when a gauge is registered.
+     *
+     * @param eventMetrics Event metrics holding the gauge.
+     * @param gaugeName Gauge's name.
+     */
+    void gaugeRegistered(EventMetrics eventMetrics, String gaugeName);
+
+    /**
+     * It's called when a latency histogram is registered. The histogram holds every latency recorded since
+     * its registration, it isn't reset by snapshots.
+     *
+     * @param eventMetrics Event metrics holding the histogram.
+     * @param histogramName Histogram's name.
+     */
+    void timerRegistered(EventMetrics eventMetrics, String histogramName);
+}
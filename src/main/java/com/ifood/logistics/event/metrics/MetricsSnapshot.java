@@ -0,0 +1,78 @@
+package com.lorem.logistics.event.metrics;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Metrics of an interval, taken by {@link EventMetrics#snapshotAndReset()}. <br />
+ * Metrics and latencies only account what happened between {@link #getStart()} and {@link #getEnd()},
+ * while gauges hold their values at the end of the interval. The duration of the interval, and so the
+ * rates, are measured by {@link System#nanoTime()} rather than by the wall-clock start and end.
+ */
+public class MetricsSnapshot {
+
+    private final Instant start;
+    private final Instant end;
+    private final long intervalNanos;
+    private final Map<String, Long> metrics;
+    private final Map<String, Long> gauges;
+    private final Map<String, LatencyHistogram> latencies;
+
+    MetricsSnapshot(Instant start, Instant end, long intervalNanos, Map<String, Long> metrics,
+            Map<String, Long> gauges, Map<String, LatencyHistogram> latencies) {
+        this.start = start;
+        this.end = end;
+        this.intervalNanos = intervalNanos;
+        this.metrics = Collections.unmodifiableMap(metrics);
+        this.gauges = Collections.unmodifiableMap(gauges);
+        this.latencies = Collections.unmodifiableMap(latencies);
+    }
+
+    public Instant getStart() {
+        return start;
+    }
+
+    public Instant getEnd() {
+        return end;
+    }
+
+    public Duration getInterval() {
+        return Duration.ofNanos(intervalNanos);
+    }
+
+    public Map<String, Long> getMetrics() {
+        return metrics;
+    }
+
+    public Map<String, Long> getGauges() {
+        return gauges;
+    }
+
+    public Map<String, LatencyHistogram> getLatencies() {
+        return latencies;
+    }
+
+    /**
+     * It returns the rate per second of {@code metricName} during the interval.
+     *
+     * @param metricName Metric's name.
+     * @return Rate per second, 0 when the metric wasn't accumulated.
+     */
+    public double getRatePerSecond(String metricName) {
+        return intervalNanos <= 0 ? 0
+            : metrics.getOrDefault(metricName, 0L) * (double) TimeUnit.SECONDS.toNanos(1) / intervalNanos;
+    }
+
+    /**
+     * Get a map containing the rate per second of all metrics during the interval.
+     *
+     * @return Rates map.
+     */
+    public Map<String, Double> getRatesPerSecond() {
+        return metrics.keySet().stream().collect(Collectors.toMap(name -> name, this::getRatePerSecond));
+    }
+}
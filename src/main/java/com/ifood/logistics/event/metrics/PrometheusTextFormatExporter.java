@@ -0,0 +1,182 @@
+package com.lorem.logistics.event.metrics;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Exporter writing the metrics in the Prometheus text exposition format, without any dependency. <br>
+ * Metric names are lower-cased and have characters other than letters, digits and underscores replaced
+ * by underscores, and the name of the {@link EventMetrics} is given as the {@code consumer} label:
+ * <ul>
+ * <li>metrics are exported as counters suffixed by {@code _total}, e.g.
+ * {@code sqs_deleted_messages_total{consumer="orders"}};</li>
+ * <li>gauges are exported as gauges;</li>
+ * <li>latency histograms are exported as histograms in seconds suffixed by {@code _seconds}, i.e. cumulative
+ * {@code _bucket} counts by {@code le} bound from 1ms to 60s, {@code _sum} and {@code _count}, and as gauges
+ * suffixed by {@code _max_seconds} with their max.</li>
+ * </ul>
+ * Histograms hold every latency recorded since their registration, so quantiles are computed by Prometheus
+ * over any window, e.g. {@code histogram_quantile(0.99, rate(sqs_handle_latency_seconds_bucket[5m]))}, and
+ * can be aggregated across instances, which quantiles computed here couldn't. A latency sharing a bucket
+ * of the {@link LatencyHistogram} with a bound is counted up to that bound, so bucket counts are accurate
+ * within the precision of the histogram.
+ * The values are read when {@link #write(Writer)} is called, e.g. by the handler of a scrape endpoint.
+ */
+public class PrometheusTextFormatExporter implements MetricsExporter {
+
+    private static final String COUNTER = "counter";
+    private static final String GAUGE = "gauge";
+    private static final String HISTOGRAM = "histogram";
+    private static final String[] BUCKETS = { "0.001", "0.0025", "0.005", "0.01", "0.025", "0.05", "0.1", "0.25",
+        "0.5", "1", "2.5", "5", "10", "30", "60" };
+    private static final long[] BUCKET_MICROS =
+        Arrays.stream(BUCKETS).mapToLong(bucket -> Math.round(Double.parseDouble(bucket) * 1_000_000)).toArray();
+
+    private final ConcurrentMap<String, Family> families = new ConcurrentSkipListMap<>();
+
+    @Override
+    public void counterRegistered(final EventMetrics eventMetrics, final String metricName) {
+        family(name(metricName) + "_total", COUNTER).add(eventMetrics,
+            (metrics, writer) -> writer.write(sample(metrics, metrics.getTotal(metricName))));
+    }
+
+    @Override
+    public void gaugeRegistered(final EventMetrics eventMetrics, final String gaugeName) {
+        family(name(gaugeName), GAUGE).add(eventMetrics,
+            (metrics, writer) -> writer.write(sample(metrics, metrics.getGauge(gaugeName))));
+    }
+
+    @Override
+    public void timerRegistered(final EventMetrics eventMetrics, final String histogramName) {
+        final LatencyHistogram histogram = eventMetrics.latencies().get(histogramName);
+        family(name(histogramName) + "_seconds", HISTOGRAM).add(eventMetrics, (metrics, writer) -> {
+            final long[] cumulativeCounts = histogram.getCumulativeCounts(BUCKET_MICROS);
+            for (int i = 0; i < BUCKETS.length; i++) {
+                writer.write("_bucket", sample(metrics, "le", BUCKETS[i], cumulativeCounts[i]));
+            }
+            final long count = cumulativeCounts[BUCKETS.length];
+            writer.write("_bucket", sample(metrics, "le", "+Inf", count));
+            writer.write("_sum", sample(metrics, seconds(histogram.getTotalMicros())));
+            writer.write("_count", sample(metrics, count));
+        });
+        family(name(histogramName) + "_max_seconds", GAUGE).add(eventMetrics,
+            (metrics, writer) -> writer.write(sample(metrics, seconds(histogram.getMaxMicros()))));
+    }
+
+    /**
+     * It writes the current values of all exported metrics.
+     *
+     * @param writer Writer to write to.
+     * @throws IOException When the writer fails.
+     */
+    public void write(final Writer writer) throws IOException {
+        for (final Map.Entry<String, Family> entry : families.entrySet()) {
+            final Family family = entry.getValue();
+            writer.write("# TYPE " + entry.getKey() + " " + family.type + "\n");
+            for (final Map.Entry<EventMetrics, Sampler> sampler : family.samplers()) {
+                sampler.getValue().write(sampler.getKey(), new FamilyWriter(entry.getKey(), writer));
+            }
+        }
+    }
+
+    /**
+     * @return Current values of all exported metrics.
+     */
+    public String scrape() {
+        final StringWriter writer = new StringWriter();
+        try {
+            write(writer);
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return writer.toString();
+    }
+
+    private Family family(final String name, final String type) {
+        return families.computeIfAbsent(name, key -> new Family(type));
+    }
+
+    private static String name(final String metricName) {
+        return metricName.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9_]", "_");
+    }
+
+    private static String sample(final EventMetrics eventMetrics, final Object value) {
+        return sample(eventMetrics, null, null, value);
+    }
+
+    private static String sample(final EventMetrics eventMetrics, final String labelName, final String labelValue,
+            final Object value) {
+        final StringBuilder sample = new StringBuilder("{consumer=\"").append(escape(eventMetrics.getName()));
+        if (labelName != null) {
+            sample.append("\",").append(labelName).append("=\"").append(labelValue);
+        }
+        return sample.append("\"} ").append(value).append('\n').toString();
+    }
+
+    private static String escape(final String labelValue) {
+        return labelValue.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static double seconds(final long micros) {
+        return micros / 1_000_000.0;
+    }
+
+    private static final class Family {
+
+        private final String type;
+        private final Map<EventMetrics, Sampler> samplers = new LinkedHashMap<>();
+
+        private Family(final String type) {
+            this.type = type;
+        }
+
+        private synchronized void add(final EventMetrics eventMetrics, final Sampler sampler) {
+            samplers.put(eventMetrics, sampler);
+        }
+
+        private synchronized List<Map.Entry<EventMetrics, Sampler>> samplers() {
+            return new ArrayList<>(samplers.entrySet());
+        }
+    }
+
+    @FunctionalInterface
+    private interface Sampler {
+
+        void write(EventMetrics eventMetrics, FamilyWriter writer) throws IOException;
+    }
+
+    /**
+     * Writes the samples of a family, each one prefixed by the family name and, for histograms, the suffix
+     * of the series.
+     */
+    private static final class FamilyWriter {
+
+        private final String name;
+        private final Writer writer;
+
+        private FamilyWriter(final String name, final Writer writer) {
+            this.name = name;
+            this.writer = writer;
+        }
+
+        private void write(final String sample) throws IOException {
+            write("", sample);
+        }
+
+        private void write(final String suffix, final String sample) throws IOException {
+            writer.write(name);
+            writer.write(suffix);
+            writer.write(sample);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.lorem.logistics.event.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Handle of a latency histogram registered via {@link EventMetrics#timer(String)}, updated without any
+ * lookup. <br>
+ * Latencies are recorded into a histogram accumulating them since registration and into one holding
+ * those of the current interval, which {@link EventMetrics#snapshotAndReset()} moves out.
+ */
+public final class Timer {
+
+    private final LatencyHistogram histogram = new LatencyHistogram();
+    private final LatencyHistogram intervalHistogram = new LatencyHistogram();
+
+    /**
+     * It records a latency.
+     *
+     * @param duration Latency.
+     * @param unit Unit of the latency.
+     */
+    public void record(long duration, TimeUnit unit) {
+        histogram.record(duration, unit);
+        intervalHistogram.record(duration, unit);
+    }
+
+    /**
+     * It records the time elapsed since {@code startNanos}.
+     *
+     * @param startNanos Start, as given by {@link System#nanoTime()}.
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @return Histogram of every latency recorded.
+     */
+    LatencyHistogram getHistogram() {
+        return histogram;
+    }
+
+    /**
+     * @return Histogram of the latencies recorded during the current interval, starting a new one.
+     */
+    LatencyHistogram snapshotAndReset() {
+        return intervalHistogram.snapshotAndReset();
+    }
+}
@@ -0,0 +1,84 @@
+package com.lorem.logistics.event.metrics.micrometer;
+
+import com.lorem.logistics.event.metrics.EventMetrics;
+import com.lorem.logistics.event.metrics.LatencyHistogram;
+import com.lorem.logistics.event.metrics.MetricsExporter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.Locale;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Exporter binding the metrics to a Micrometer {@link MeterRegistry}, which requires micrometer-core in
+ * the classpath. <br>
+ * Meter names are lower-cased and dot separated, e.g. {@code sqs.deleted.messages}, and the name of the
+ * {@link EventMetrics} is given as the {@code consumer} tag:
+ * <ul>
+ * <li>metrics are bound as function counters;</li>
+ * <li>gauges are bound as gauges;</li>
+ * <li>latency histograms are bound as gauges in seconds, with p50, p99 and p999 {@code quantile} tags, and
+ * suffixed by {@code .max} with their max, over every latency recorded.</li>
+ * </ul>
+ * The meters read the values from the {@link EventMetrics} when the registry publishes them.
+ */
+public class MicrometerMetricsExporter implements MetricsExporter {
+
+    private static final String CONSUMER_TAG = "consumer";
+    private static final String QUANTILE_TAG = "quantile";
+    private static final String SECONDS = "seconds";
+    private static final String[] QUANTILES = { "0.5", "0.99", "0.999" };
+
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * It constructs an exporter binding the metrics to {@code meterRegistry}.
+     *
+     * @param meterRegistry Registry to bind the metrics to.
+     */
+    public MicrometerMetricsExporter(final MeterRegistry meterRegistry) {
+        this.meterRegistry = requireNonNull(meterRegistry, "Meter registry can't be null");
+    }
+
+    @Override
+    public void counterRegistered(final EventMetrics eventMetrics, final String metricName) {
+        FunctionCounter.builder(name(metricName), eventMetrics, metrics -> metrics.getTotal(metricName))
+                .tag(CONSUMER_TAG, eventMetrics.getName())
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void gaugeRegistered(final EventMetrics eventMetrics, final String gaugeName) {
+        Gauge.builder(name(gaugeName), eventMetrics, metrics -> metrics.getGauge(gaugeName))
+                .tag(CONSUMER_TAG, eventMetrics.getName())
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void timerRegistered(final EventMetrics eventMetrics, final String histogramName) {
+        final LatencyHistogram histogram = eventMetrics.latencies().get(histogramName);
+        for (final String quantile : QUANTILES) {
+            final double percentile = Double.parseDouble(quantile) * 100;
+            Gauge.builder(name(histogramName), histogram,
+                latencies -> seconds(latencies.getPercentileMicros(percentile)))
+                    .tag(CONSUMER_TAG, eventMetrics.getName())
+                    .tag(QUANTILE_TAG, quantile)
+                    .baseUnit(SECONDS)
+                    .register(meterRegistry);
+        }
+        Gauge.builder(name(histogramName) + ".max", histogram, latencies -> seconds(latencies.getMaxMicros()))
+                .tag(CONSUMER_TAG, eventMetrics.getName())
+                .baseUnit(SECONDS)
+                .register(meterRegistry);
+    }
+
+    private static String name(final String metricName) {
+        return metricName.toLowerCase(Locale.ROOT).replace(' ', '.');
+    }
+
+    private static double seconds(final long micros) {
+        return micros / 1_000_000.0;
+    }
+}
@@ -0,0 +1,149 @@
+package com.lorem.logistics.event.amazon.sqs;
+
+import com.amazonaws.services.sqs.model.ChangeMessageVisibilityBatchResult;
+import com.amazonaws.services.sqs.model.DeleteMessageBatchResult;
+import com.amazonaws.services.sqs.model.Message;
+import com.lorem.logistics.event.amazon.sqs.configuration.AmazonSQSProperties;
+import com.lorem.logistics.event.amazon.sqs.configuration.NackPolicy;
+import com.lorem.logistics.event.amazon.sqs.handler.MessageDecorator;
+import com.lorem.logistics.event.metrics.EventMetrics;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToIntFunction;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class AmazonSQSAcknowledgerUnitTest {
+
+    private AmazonSQSProvider provider;
+    private AmazonSQSProperties properties;
+    private AmazonSQSAcknowledger acknowledger;
+
+    @Before
+    public void before() {
+        provider = mock(AmazonSQSProvider.class);
+        properties = mock(AmazonSQSProperties.class);
+        when(properties.getDeleteMaxDelayMillis()).thenReturn(50);
+        when(properties.getDeleteConcurrency()).thenReturn(2);
+        when(properties.getNackPolicy()).thenReturn(NackPolicy.NONE);
+        when(properties.getNackDelaySeconds()).thenReturn(10);
+        when(properties.getNackMaxDelaySeconds()).thenReturn(900);
+        when(provider.delete(anyList())).thenReturn(new DeleteMessageBatchResult());
+        when(provider.changeVisibility(anyList(), any())).thenReturn(new ChangeMessageVisibilityBatchResult());
+
+        acknowledger = new AmazonSQSAcknowledger(provider, properties, mock(AmazonSQSInFlightMessages.class),
+            new EventMetrics("test"));
+    }
+
+    @Test
+    public void shouldCoalesceMessagesInBatchesOfTen() {
+        StepVerifier.create(acknowledger.acknowledge(Flux.range(0, 25).map(this::success)))
+                .expectNextCount(3)
+                .verifyComplete();
+
+        verify(provider, times(3)).delete(anyList());
+    }
+
+    @Test
+    public void shouldFlushIncompleteBatchAfterMaxDelay() {
+        final Flux<MessageDecorator> messages =
+            Flux.range(0, 3).map(this::success).concatWith(Flux.never());
+
+        StepVerifier.create(acknowledger.acknowledge(messages))
+                .expectNextCount(1)
+                .thenCancel()
+                .verify(Duration.ofSeconds(2));
+
+        verify(provider, times(1)).delete(anyList());
+    }
+
+    @Test
+    public void shouldContinueWhenDeleteFails() {
+        when(provider.delete(anyList())).thenThrow(new IllegalStateException("delete failed"))
+                .thenReturn(new DeleteMessageBatchResult());
+
+        StepVerifier.create(acknowledger.acknowledge(Flux.range(0, 20).map(this::success)))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        verify(provider, times(2)).delete(anyList());
+    }
+
+    @Test
+    public void shouldNotDeleteFailedMessages() {
+        StepVerifier.create(acknowledger.acknowledge(Flux.range(0, 5).map(this::fail))).verifyComplete();
+
+        verify(provider, never()).delete(anyList());
+        verify(provider, never()).changeVisibility(anyList(), any());
+    }
+
+    @Test
+    public void shouldNackFailedMessagesInBatchesWithBackoff() {
+        when(properties.getNackPolicy()).thenReturn(NackPolicy.EXPONENTIAL_BACKOFF);
+        final Flux<MessageDecorator> messages = Flux.range(0, 15)
+                .map(i -> i % 3 == 0 ? fail(i) : success(i));
+
+        StepVerifier.create(acknowledger.acknowledge(messages)).expectNextCount(1).verifyComplete();
+
+        final ArgumentCaptor<ToIntFunction<Message>> visibilityTimeout = ArgumentCaptor.forClass(ToIntFunction.class);
+        verify(provider, times(1)).changeVisibility(anyList(), visibilityTimeout.capture());
+        verify(provider, times(1)).delete(anyList());
+        assertEquals(10, visibilityTimeout.getValue().applyAsInt(message(1)));
+        assertEquals(40, visibilityTimeout.getValue()
+                .applyAsInt(message(1).addAttributesEntry("ApproximateReceiveCount", "3")));
+    }
+
+    @Test
+    public void shouldAcknowledgeInOrderOneRequestAtATime() {
+        when(properties.getNackPolicy()).thenReturn(NackPolicy.EXPONENTIAL_BACKOFF);
+        final List<String> requests = Collections.synchronizedList(new ArrayList<>());
+        final AtomicInteger running = new AtomicInteger();
+        when(provider.delete(anyList())).thenAnswer(invocation -> {
+            assertEquals(1, running.incrementAndGet());
+            requests.add("delete " + invocation.<List<Message>>getArgument(0).size());
+            Thread.sleep(20);
+            running.decrementAndGet();
+            return new DeleteMessageBatchResult();
+        });
+        when(provider.changeVisibility(anyList(), any())).thenAnswer(invocation -> {
+            assertEquals(1, running.incrementAndGet());
+            requests.add("nack " + invocation.<List<Message>>getArgument(0).size());
+            running.decrementAndGet();
+            return new ChangeMessageVisibilityBatchResult();
+        });
+        final Flux<MessageDecorator> messages = Flux.range(0, 25).map(i -> i == 12 ? fail(i) : success(i));
+
+        StepVerifier.create(acknowledger.acknowledgeInOrder(messages)).expectNextCount(3).verifyComplete();
+
+        assertEquals(List.of("delete 10", "delete 9", "nack 1", "delete 5"), requests);
+    }
+
+    private MessageDecorator success(final int id) {
+        return MessageDecorator.withSuccess(message(id));
+    }
+
+    private MessageDecorator fail(final int id) {
+        return MessageDecorator.withFail(message(id));
+    }
+
+    private Message message(final int id) {
+        return new Message().withMessageId(String.valueOf(id)).withReceiptHandle("receipt-" + id);
+    }
+}
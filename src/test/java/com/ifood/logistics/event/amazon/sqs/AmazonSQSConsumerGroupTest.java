@@ -0,0 +1,119 @@
+package com.lorem.logistics.event.amazon.sqs;
+
+import com.amazonaws.services.sqs.model.Message;
+import com.lorem.logistics.event.amazon.sqs.configuration.GenericAmazonSQSProperties;
+import com.lorem.logistics.event.amazon.sqs.emulator.InMemoryAmazonSQS;
+import com.lorem.logistics.event.amazon.sqs.handler.AbstractSingleAmazonSQSMessageHandler;
+import com.lorem.logistics.event.amazon.sqs.handler.AmazonSQSMessageHandler;
+import org.junit.Test;
+import reactor.core.publisher.Mono;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class AmazonSQSConsumerGroupTest {
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldCheckNumberOfPollers() {
+        new AmazonSQSConsumerGroup(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldCheckWeight() {
+        final AmazonSQSConsumerGroup group = new AmazonSQSConsumerGroup(1);
+        try {
+            group.add(new InMemoryAmazonSQS(), properties("queue"), handler(), null, 0, 0);
+        } finally {
+            group.stop().join();
+        }
+    }
+
+    @Test(timeout = 30000)
+    public void shouldConsumeAllQueuesOnSharedPollers() {
+        final InMemoryAmazonSQS amazonSQS = new InMemoryAmazonSQS();
+        final AmazonSQSConsumerGroup group = new AmazonSQSConsumerGroup(2);
+        for (int i = 0; i < 4; i++) {
+            amazonSQS.createQueue("queue-" + i);
+            amazonSQS.sendMessages("queue-" + i, 500);
+            group.add(amazonSQS, properties("queue-" + i), handler(), null, i + 1);
+        }
+
+        group.start();
+        for (int i = 0; i < 4; i++) {
+            amazonSQS.awaitDeletedMessages("queue-" + i, 500);
+        }
+        group.stop().join();
+
+        assertEquals(4, group.getConsumers().size());
+        group.getConsumers().forEach(consumer -> {
+            assertFalse(consumer.isRunning());
+            assertEquals(0L, consumer.getMetrics().getGauge("SQS publishers waiting for a poller"));
+        });
+        for (int i = 0; i < 4; i++) {
+            assertEquals(0, amazonSQS.getNumberOfMessages("queue-" + i));
+        }
+        amazonSQS.shutdown();
+    }
+
+    @Test(timeout = 30000)
+    public void shouldConsumeAgainWhenStartedAfterBeingStopped() {
+        final InMemoryAmazonSQS amazonSQS = new InMemoryAmazonSQS();
+        final AmazonSQSConsumerGroup group = new AmazonSQSConsumerGroup(2);
+        amazonSQS.createQueue("queue");
+        amazonSQS.sendMessages("queue", 100);
+        group.add(amazonSQS, properties("queue"), handler());
+
+        group.start();
+        amazonSQS.awaitDeletedMessages("queue", 100);
+        group.stop().join();
+        amazonSQS.sendMessages("queue", 100);
+        group.start();
+        amazonSQS.awaitDeletedMessages("queue", 200);
+        group.stop().join();
+
+        assertEquals(0, amazonSQS.getNumberOfMessages("queue"));
+        assertFalse(group.getConsumers().get(0).isRunning());
+        amazonSQS.shutdown();
+    }
+
+    @Test(timeout = 30000)
+    public void shouldDrainTheHighPriorityQueueFirst() {
+        final InMemoryAmazonSQS amazonSQS = new InMemoryAmazonSQS();
+        final AmazonSQSConsumerGroup group = new AmazonSQSConsumerGroup(1);
+        final AmazonSQSMessageHandler handler = handler();
+        amazonSQS.createQueue("bulk");
+        amazonSQS.createQueue("urgent");
+        amazonSQS.sendMessages("bulk", 1000);
+        amazonSQS.sendMessages("urgent", 1000);
+        group.add(amazonSQS, properties("bulk"), handler, null, 1, 0);
+        group.add(amazonSQS, properties("urgent"), handler, null, 1, 1);
+
+        group.start();
+        amazonSQS.awaitDeletedMessages("urgent", 1000);
+        final long bulkDeleted = amazonSQS.getNumberOfDeletedMessages("bulk");
+        amazonSQS.awaitDeletedMessages("bulk", 1000);
+        group.stop().join();
+
+        assertTrue(bulkDeleted < 500);
+        amazonSQS.shutdown();
+    }
+
+    private static GenericAmazonSQSProperties properties(final String queueName) {
+        final GenericAmazonSQSProperties properties = new GenericAmazonSQSProperties();
+        properties.setQueueName(queueName);
+        properties.setWaitTimeSeconds(1);
+        properties.setAutoStart(false);
+        return properties;
+    }
+
+    private static AmazonSQSMessageHandler handler() {
+        return new AbstractSingleAmazonSQSMessageHandler() {
+
+            @Override
+            protected Mono<Void> handleMessage(final Message message) {
+                return Mono.empty();
+            }
+        };
+    }
+}
@@ -4,26 +4,32 @@ import com.amazonaws.services.sqs.model.DeleteMessageBatchResult;
 import com.amazonaws.services.sqs.model.DeleteMessageBatchResultEntry;
 import com.amazonaws.services.sqs.model.Message;
 import com.lorem.logistics.event.amazon.sqs.configuration.AmazonSQSProperties;
+import com.lorem.logistics.event.amazon.sqs.configuration.NackPolicy;
 import com.lorem.logistics.event.amazon.sqs.handler.AmazonSQSMessageHandler;
+import com.lorem.logistics.event.amazon.sqs.handler.HandlerConcurrencyLimiter;
 import com.lorem.logistics.event.amazon.sqs.handler.MessageDecorator;
 import com.lorem.logistics.event.metrics.EventMetrics;
 import org.junit.Before;
 import org.junit.Test;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 import reactor.core.publisher.ParallelFlux;
 import reactor.core.scheduler.Scheduler;
 import reactor.core.scheduler.Schedulers;
 import reactor.test.StepVerifier;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
+import static org.junit.Assert.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyList;
-import static org.mockito.ArgumentMatchers.anyLong;
-import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -44,27 +50,71 @@ public class AmazonSQSConsumerHelperUnitTest {
         handler = mock(AmazonSQSMessageHandler.class);
         provider = mock(AmazonSQSProvider.class);
         source = mock(AmazonSQSSource.class);
-        metrics = mock(EventMetrics.class);
-
-        helper = new AmazonSQSConsumerHelper(properties, handler, provider, source, metrics);
+        metrics = new EventMetrics("test");
+        when(properties.getDeleteMaxDelayMillis()).thenReturn(50);
+        when(properties.getDeleteConcurrency()).thenReturn(1);
+
+        when(properties.getMaxInFlightMessages()).thenReturn(100);
+        when(properties.getNackPolicy()).thenReturn(NackPolicy.NONE);
+        when(properties.getStreamingAcknowledgement()).thenReturn(false);
+        when(properties.getFifo()).thenReturn(false);
+        when(properties.getNumberOfLanes()).thenReturn(4);
+        when(properties.getHandlerBatchSize()).thenReturn(null);
+        when(properties.getPrefetchMessages()).thenReturn(null);
+
+        final AmazonSQSInFlightMessages inFlightMessages = new AmazonSQSInFlightMessages(properties, metrics);
+        final AmazonSQSAcknowledger acknowledger =
+            new AmazonSQSAcknowledger(provider, properties, inFlightMessages, metrics);
+        final AmazonSQSPublisherScaler scaler = new AmazonSQSPublisherScaler(properties, inFlightMessages, metrics);
+        helper = new AmazonSQSConsumerHelper(properties, handler, source, acknowledger, scaler,
+            new AmazonSQSLanes(properties, null, metrics),
+            new AmazonSQSPrefetchBuffer(properties, inFlightMessages, acknowledger, metrics),
+            new AmazonSQSDeduplicator(properties, metrics),
+            new HandlerConcurrencyLimiter(null, metrics), metrics);
     }
 
     @Test
     public void shouldCreateSources() {
         int numberOfPublishes = 4;
         when(properties.getNumberOfPublishers()).thenReturn(numberOfPublishes);
+        when(properties.getMinNumberOfPublishers()).thenReturn(numberOfPublishes);
+        when(properties.getMaxNumberOfPublishers()).thenReturn(numberOfPublishes);
 
         List<Message> receivedMessages = Collections.singletonList(new Message().withMessageId("fake message"));
         when(source.create(any(), any(EventMetrics.class))).thenReturn(Flux.just(receivedMessages));
 
         Scheduler publisherScheduler = Schedulers.newParallel("anyName", numberOfPublishes);
         BooleanSupplier repeat = () -> true;
-        StepVerifier.create(helper.createSources(repeat, publisherScheduler).log())
+        StepVerifier.create(helper.createSources(repeat, Mono.never(), publisherScheduler).log())
                 .expectSubscription()
                 .as("subscription")
                 .expectNextCount(numberOfPublishes * receivedMessages.size())
                 .as("total of messages emitted")
                 .verifyComplete();
+
+        assertEquals(0L, metrics.getGauge("SQS rail queued messages"));
+    }
+
+    @Test
+    public void shouldDiscountAPublisherFailingOnceItsRetriesRunOut() {
+        when(properties.getNumberOfPublishers()).thenReturn(2);
+        when(properties.getMinNumberOfPublishers()).thenReturn(1);
+        when(properties.getMaxNumberOfPublishers()).thenReturn(2);
+        final List<Message> receivedMessages = Collections.singletonList(new Message().withMessageId("1"));
+        when(source.create(any(), any(EventMetrics.class)))
+                .thenReturn(Flux.error(new IllegalStateException("retries exhausted")))
+                .thenReturn(Flux.just(receivedMessages).concatWith(Flux.never()));
+
+        StepVerifier.create(helper.createSources(() -> true, Mono.never(), Schedulers.immediate())
+                .sequential()
+                .onErrorContinue((throwable, o) -> {
+                }))
+                .expectNext(receivedMessages)
+                .then(() -> assertEquals(1L, metrics.getGauge("SQS active publishers")))
+                .thenCancel()
+                .verify(Duration.ofSeconds(2));
+
+        assertEquals(0L, metrics.getGauge("SQS active publishers"));
     }
 
     @Test
@@ -79,7 +129,8 @@ public class AmazonSQSConsumerHelperUnitTest {
         when(handler.handle(any())).thenReturn(processedMessagesFlux.sequential());
         final DeleteMessageBatchResult deleteMessageBatchResult = mock(DeleteMessageBatchResult.class);
         when(deleteMessageBatchResult.getSuccessful())
-                .thenReturn(Arrays.asList(new DeleteMessageBatchResultEntry(), new DeleteMessageBatchResultEntry()));
+                .thenReturn(Arrays.asList(new DeleteMessageBatchResultEntry().withId("0"),
+                    new DeleteMessageBatchResultEntry().withId("1")));
         when(provider.delete(anyList())).thenReturn(deleteMessageBatchResult);
 
 
@@ -90,7 +141,72 @@ public class AmazonSQSConsumerHelperUnitTest {
 
         verify(handler, times(1)).handle(any());
         verify(provider, times(1)).delete(anyList());
-        verify(metrics, times(1)).addToMetric(anyString(), anyLong());
+        assertEquals(2L, (long) metrics.sum().get("SQS deleted messages"));
+    }
+
+    @Test
+    public void shouldAcknowledgeDuplicatesWithoutHandlingThem() {
+        when(properties.getDeduplicationWindowSeconds()).thenReturn(60);
+        when(properties.getDeduplicationCacheSize()).thenReturn(100);
+        when(properties.getMaxNumberOfPublishers()).thenReturn(1);
+        final AmazonSQSInFlightMessages inFlightMessages = new AmazonSQSInFlightMessages(properties, metrics);
+        final AmazonSQSAcknowledger acknowledger =
+            new AmazonSQSAcknowledger(provider, properties, inFlightMessages, metrics);
+        helper = new AmazonSQSConsumerHelper(properties, handler, source, acknowledger,
+            new AmazonSQSPublisherScaler(properties, inFlightMessages, metrics),
+            new AmazonSQSLanes(properties, null, metrics),
+            new AmazonSQSPrefetchBuffer(properties, inFlightMessages, acknowledger, metrics),
+            new AmazonSQSDeduplicator(properties, metrics), new HandlerConcurrencyLimiter(null, metrics), metrics);
+        final List<Message> handledMessages = Collections.synchronizedList(new ArrayList<>());
+        when(handler.handle(anyList())).thenAnswer(invocation -> {
+            final List<Message> messages = invocation.getArgument(0);
+            handledMessages.addAll(messages);
+            return Flux.just(messages.stream().map(MessageDecorator::withSuccess).collect(Collectors.toList()));
+        });
+        when(provider.delete(anyList())).thenAnswer(invocation -> new DeleteMessageBatchResult()
+                .withSuccessful(IntStream.range(0, invocation.<List<Message>>getArgument(0).size())
+                        .mapToObj(i -> new DeleteMessageBatchResultEntry().withId(String.valueOf(i)))
+                        .collect(Collectors.toList())));
+        final Message first = new Message().withMessageId("1");
+        final Message second = new Message().withMessageId("2");
+
+        StepVerifier.create(helper.createConsumer(Flux.just(List.of(first), List.of(first, second)).parallel(1)))
+                .thenConsumeWhile(result -> true)
+                .verifyComplete();
+
+        assertEquals(List.of(first, second), handledMessages);
+        assertEquals(3L, (long) metrics.sum().get("SQS deleted messages"));
+        assertEquals(1L, metrics.getTotal("SQS duplicate messages"));
+    }
+
+    @Test
+    public void shouldHandleMessagesOfAllRailsInBatches() {
+        when(properties.getHandlerBatchSize()).thenReturn(25);
+        when(properties.getHandlerBatchMaxDelayMillis()).thenReturn(500);
+        when(properties.getMaxNumberOfPublishers()).thenReturn(4);
+        final List<List<Message>> receives = IntStream.range(0, 6)
+                .mapToObj(receive -> IntStream.range(0, 10)
+                        .mapToObj(i -> new Message().withMessageId(receive + "-" + i))
+                        .collect(Collectors.toList()))
+                .collect(Collectors.toList());
+        final List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+        when(handler.handle(anyList())).thenAnswer(invocation -> {
+            final List<Message> messages = invocation.getArgument(0);
+            batchSizes.add(messages.size());
+            return Flux.just(messages.stream().map(MessageDecorator::withSuccess).collect(Collectors.toList()));
+        });
+        when(provider.delete(anyList())).thenAnswer(invocation -> new DeleteMessageBatchResult()
+                .withSuccessful(IntStream.range(0, invocation.<List<Message>>getArgument(0).size())
+                        .mapToObj(i -> new DeleteMessageBatchResultEntry().withId(String.valueOf(i)))
+                        .collect(Collectors.toList())));
+
+        StepVerifier.create(helper.createConsumer(Flux.fromIterable(receives).parallel(4)))
+                .expectNextCount(6)
+                .verifyComplete();
+
+        batchSizes.sort(Collections.reverseOrder());
+        assertEquals(Arrays.asList(25, 25, 10), batchSizes);
+        assertEquals(60L, (long) metrics.sum().get("SQS deleted messages"));
     }
 
 }
@@ -1,15 +1,39 @@
 package com.lorem.logistics.event.amazon.sqs;
 
 import com.amazonaws.services.sqs.AmazonSQS;
+import com.amazonaws.services.sqs.model.CreateQueueRequest;
+import com.amazonaws.services.sqs.model.Message;
+import com.amazonaws.services.sqs.model.MessageAttributeValue;
+import com.amazonaws.services.sqs.model.QueueAttributeName;
+import com.amazonaws.services.sqs.model.ReceiveMessageRequest;
+import com.amazonaws.services.sqs.model.ReceiveMessageResult;
+import com.amazonaws.services.sqs.model.SendMessageRequest;
 import com.lorem.logistics.event.amazon.sqs.configuration.AmazonSQSProperties;
+import com.lorem.logistics.event.amazon.sqs.configuration.GenericAmazonSQSProperties;
+import com.lorem.logistics.event.amazon.sqs.emulator.InMemoryAmazonSQS;
+import com.lorem.logistics.event.amazon.sqs.handler.AbstractSingleAmazonSQSMessageHandler;
 import com.lorem.logistics.event.amazon.sqs.handler.AmazonSQSMessageHandler;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import reactor.core.publisher.Mono;
 
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 public class AmazonSQSConsumerTest {
 
@@ -51,6 +75,412 @@ public class AmazonSQSConsumerTest {
         verify(properties, times(1)).validate();
     }
 
+    @Test
+    public void shouldCheckAmazonSQSAsyncWhenReceivingAsynchronously() {
+        expectedException("AmazonSQSAsync");
+
+        final AmazonSQS amazonSQS = mock(AmazonSQS.class);
+        final AmazonSQSProperties properties = mock(AmazonSQSProperties.class);
+        when(properties.getAsynchronousReceive()).thenReturn(true);
+        final AmazonSQSMessageHandler handler = mock(AmazonSQSMessageHandler.class);
+        new AmazonSQSConsumer(amazonSQS, properties, handler);
+    }
+
+    @Test(timeout = 30000)
+    public void shouldKeepEveryPublisherPollingOnceStarted() throws Exception {
+        final GenericAmazonSQSProperties properties = new GenericAmazonSQSProperties();
+        properties.setQueueName("queue");
+        properties.setWaitTimeSeconds(1);
+        properties.setNumberOfPublishers(4);
+        properties.setAutoStart(false);
+        final AtomicInteger receives = new AtomicInteger();
+        final InMemoryAmazonSQS amazonSQS = new InMemoryAmazonSQS() {
+
+            @Override
+            public ReceiveMessageResult receiveMessage(final ReceiveMessageRequest request) {
+                return receives.incrementAndGet() > 4 ? super.receiveMessage(request) : new ReceiveMessageResult();
+            }
+        };
+        amazonSQS.createQueue("queue");
+        final AmazonSQSConsumer consumer = new AmazonSQSConsumer(amazonSQS, properties,
+            new AbstractSingleAmazonSQSMessageHandler() {
+
+                @Override
+                protected Mono<Void> handleMessage(final Message message) {
+                    return Mono.empty();
+                }
+            });
+
+        consumer.start();
+        Thread.sleep(500);
+        long pollingPublishers = 0;
+        for (int i = 0; i < 50 && pollingPublishers < 4; i++) {
+            pollingPublishers = Math.max(pollingPublishers, consumer.getMetrics().getGauge("SQS polling publishers"));
+            Thread.sleep(10);
+        }
+        consumer.stop().join();
+
+        assertEquals(4L, pollingPublishers);
+    }
+
+    @Test(timeout = 30000)
+    public void shouldNotTakeAThreadPerPublisherWhenReceivingAsynchronously() throws Exception {
+        final GenericAmazonSQSProperties properties = new GenericAmazonSQSProperties();
+        properties.setQueueName("queue");
+        properties.setWaitTimeSeconds(1);
+        properties.setAsynchronousReceive(true);
+        properties.setNumberOfPublishers(16);
+        properties.setMaxNumberOfPublishers(16);
+        properties.setMaxInFlightMessages(160);
+        properties.setAutoStart(false);
+        final InMemoryAmazonSQS amazonSQS = new InMemoryAmazonSQS();
+        amazonSQS.createQueue("queue");
+        final AmazonSQSConsumer consumer = new AmazonSQSConsumer(amazonSQS, properties,
+            new AbstractSingleAmazonSQSMessageHandler() {
+
+                @Override
+                protected Mono<Void> handleMessage(final Message message) {
+                    return Mono.empty();
+                }
+            });
+        final Set<Thread> threads = Set.copyOf(Thread.getAllStackTraces().keySet());
+
+        consumer.start();
+        while (consumer.getMetrics().getGauge("SQS polling publishers") < 16) {
+            Thread.sleep(10);
+        }
+        final long consumerThreads = Thread.getAllStackTraces()
+                .keySet()
+                .stream()
+                .filter(thread -> !threads.contains(thread))
+                .map(Thread::getName)
+                .filter(name -> !name.startsWith("in-memory-sqs") && !name.startsWith("elastic"))
+                .count();
+        consumer.stop().join();
+
+        assertEquals(0L, consumerThreads);
+    }
+
+    @Test(timeout = 30000)
+    public void shouldConsumeBacklogsFillingMaxInFlightMessages() {
+        final GenericAmazonSQSProperties properties = new GenericAmazonSQSProperties();
+        properties.setQueueName("queue");
+        properties.setWaitTimeSeconds(1);
+        properties.setMaxInFlightMessages(1000);
+        properties.setAutoStart(false);
+        final InMemoryAmazonSQS amazonSQS = new InMemoryAmazonSQS();
+        amazonSQS.createQueue("queue");
+        final AmazonSQSConsumer consumer = new AmazonSQSConsumer(amazonSQS, properties,
+            new AbstractSingleAmazonSQSMessageHandler() {
+
+                @Override
+                protected Mono<Void> handleMessage(final Message message) {
+                    return Mono.empty();
+                }
+            });
+
+        consumer.start();
+        for (int backlog = 1; backlog <= 10; backlog++) {
+            amazonSQS.sendMessages("queue", 1000);
+            amazonSQS.awaitDeletedMessages("queue", backlog * 1000);
+        }
+        consumer.stop().join();
+
+        assertEquals(10000, amazonSQS.getNumberOfDeletedMessages("queue"));
+        assertEquals(0, amazonSQS.getNumberOfMessages("queue"));
+    }
+
+    @Test(timeout = 30000)
+    public void shouldConsumeBacklogsThroughABoundedPrefetchBuffer() {
+        final GenericAmazonSQSProperties properties = new GenericAmazonSQSProperties();
+        properties.setQueueName("queue");
+        properties.setWaitTimeSeconds(1);
+        properties.setVisibilityTimeoutSeconds(30);
+        properties.setMaxInFlightMessages(1000);
+        properties.setPrefetchMessages(50);
+        properties.setAutoStart(false);
+        final InMemoryAmazonSQS amazonSQS = new InMemoryAmazonSQS();
+        amazonSQS.createQueue("queue");
+        amazonSQS.sendMessages("queue", 2000);
+        final AmazonSQSConsumer consumer = new AmazonSQSConsumer(amazonSQS, properties,
+            new AbstractSingleAmazonSQSMessageHandler() {
+
+                @Override
+                protected Mono<Void> handleMessage(final Message message) {
+                    return Mono.empty();
+                }
+            });
+
+        consumer.start();
+        amazonSQS.awaitDeletedMessages("queue", 2000);
+        consumer.stop().join();
+
+        assertEquals(0, amazonSQS.getNumberOfMessages("queue"));
+        assertEquals(0L, consumer.getMetrics().getTotal("SQS evicted messages"));
+    }
+
+    @Test(timeout = 30000)
+    public void shouldHoldPrefetchRoomWhileMessagesWaitForAHandler() throws Exception {
+        final GenericAmazonSQSProperties properties = new GenericAmazonSQSProperties();
+        properties.setQueueName("queue");
+        properties.setWaitTimeSeconds(1);
+        properties.setNumberOfPublishers(1);
+        properties.setMaxNumberOfPublishers(1);
+        properties.setPrefetchMessages(10);
+        properties.setMaxConcurrentHandlers(1);
+        properties.setAutoStart(false);
+        final InMemoryAmazonSQS amazonSQS = new InMemoryAmazonSQS();
+        amazonSQS.createQueue("queue");
+        amazonSQS.sendMessages("queue", 100);
+        final CountDownLatch handling = new CountDownLatch(1);
+        final AmazonSQSConsumer consumer = new AmazonSQSConsumer(amazonSQS, properties,
+            new AbstractSingleAmazonSQSMessageHandler() {
+
+                @Override
+                protected Mono<Void> handleMessage(final Message message) {
+                    handling.countDown();
+                    return Mono.never();
+                }
+            });
+
+        consumer.start();
+        handling.await();
+        Thread.sleep(300);
+        consumer.stop().join();
+
+        assertEquals(10L, consumer.getMetrics().getTotal("SQS received messages"));
+    }
+
+    @Test(timeout = 30000)
+    public void shouldDrainInFlightMessagesOnStop() throws Exception {
+        final GenericAmazonSQSProperties properties = drainingProperties();
+        final InMemoryAmazonSQS amazonSQS = new InMemoryAmazonSQS();
+        amazonSQS.createQueue("queue");
+        amazonSQS.sendMessages("queue", 10);
+        final CountDownLatch handling = new CountDownLatch(1);
+        final AmazonSQSConsumer consumer = new AmazonSQSConsumer(amazonSQS, properties,
+            new AbstractSingleAmazonSQSMessageHandler() {
+
+                @Override
+                protected Mono<Void> handleMessage(final Message message) {
+                    handling.countDown();
+                    return Mono.delay(Duration.ofMillis(200)).then();
+                }
+            });
+
+        consumer.start();
+        handling.await();
+        consumer.stop().get();
+
+        assertFalse(consumer.isRunning());
+        assertEquals(10, amazonSQS.getNumberOfDeletedMessages("queue"));
+        assertEquals("0", notVisibleMessages(amazonSQS));
+    }
+
+    @Test(timeout = 30000)
+    public void shouldCancelReceivesBeforeDraining() throws Exception {
+        final GenericAmazonSQSProperties properties = drainingProperties();
+        properties.setWaitTimeSeconds(20);
+        final InMemoryAmazonSQS amazonSQS = new InMemoryAmazonSQS();
+        amazonSQS.createQueue("queue");
+        final AmazonSQSConsumer consumer = new AmazonSQSConsumer(amazonSQS, properties,
+            new AbstractSingleAmazonSQSMessageHandler() {
+
+                @Override
+                protected Mono<Void> handleMessage(final Message message) {
+                    return Mono.empty();
+                }
+            });
+
+        consumer.start();
+        while (consumer.getMetrics().getGauge("SQS polling publishers") < 1) {
+            Thread.sleep(10);
+        }
+        consumer.stop().get(5, TimeUnit.SECONDS);
+
+        assertFalse(consumer.isRunning());
+    }
+
+    @Test(timeout = 30000)
+    public void shouldReportADrainingConsumerAsRunning() throws Exception {
+        final GenericAmazonSQSProperties properties = drainingProperties();
+        final InMemoryAmazonSQS amazonSQS = new InMemoryAmazonSQS();
+        amazonSQS.createQueue("queue");
+        amazonSQS.sendMessages("queue", 1);
+        final CountDownLatch handling = new CountDownLatch(1);
+        final CompletableFuture<Void> handled = new CompletableFuture<>();
+        final AmazonSQSConsumer consumer = new AmazonSQSConsumer(amazonSQS, properties,
+            new AbstractSingleAmazonSQSMessageHandler() {
+
+                @Override
+                protected Mono<Void> handleMessage(final Message message) {
+                    handling.countDown();
+                    return Mono.fromFuture(handled);
+                }
+            });
+
+        consumer.start();
+        handling.await();
+        final CompletableFuture<Void> stopped = consumer.stop();
+
+        assertTrue(consumer.isRunning());
+        handled.complete(null);
+        stopped.get();
+        assertFalse(consumer.isRunning());
+        assertEquals(1, amazonSQS.getNumberOfDeletedMessages("queue"));
+    }
+
+    @Test(timeout = 30000)
+    public void shouldNackUnfinishedMessagesWhenDrainTimesOut() throws Exception {
+        final GenericAmazonSQSProperties properties = drainingProperties();
+        properties.setDrainTimeoutSeconds(1);
+        properties.setNackOnDrainTimeout(true);
+        final InMemoryAmazonSQS amazonSQS = new InMemoryAmazonSQS();
+        amazonSQS.createQueue("queue");
+        amazonSQS.sendMessages("queue", 10);
+        final CountDownLatch handling = new CountDownLatch(1);
+        final AmazonSQSConsumer consumer = new AmazonSQSConsumer(amazonSQS, properties,
+            new AbstractSingleAmazonSQSMessageHandler() {
+
+                @Override
+                protected Mono<Void> handleMessage(final Message message) {
+                    handling.countDown();
+                    return Mono.never();
+                }
+            });
+
+        consumer.start();
+        handling.await();
+        consumer.stop().get();
+
+        assertEquals(0, amazonSQS.getNumberOfDeletedMessages("queue"));
+        assertEquals(10L, consumer.getMetrics().getTotal("SQS nacked messages"));
+        assertEquals("0", notVisibleMessages(amazonSQS));
+        assertEquals("10", queueAttribute(amazonSQS, "ApproximateNumberOfMessages"));
+    }
+
+    @Test(timeout = 30000)
+    public void shouldLeaveUnfinishedMessagesInFlightWhenDrainTimesOutWithoutNack() throws Exception {
+        final GenericAmazonSQSProperties properties = drainingProperties();
+        properties.setDrainTimeoutSeconds(1);
+        properties.setNackOnDrainTimeout(false);
+        final InMemoryAmazonSQS amazonSQS = new InMemoryAmazonSQS();
+        amazonSQS.createQueue("queue");
+        amazonSQS.sendMessages("queue", 10);
+        final CountDownLatch handling = new CountDownLatch(1);
+        final AmazonSQSConsumer consumer = new AmazonSQSConsumer(amazonSQS, properties,
+            new AbstractSingleAmazonSQSMessageHandler() {
+
+                @Override
+                protected Mono<Void> handleMessage(final Message message) {
+                    handling.countDown();
+                    return Mono.never();
+                }
+            });
+
+        consumer.start();
+        handling.await();
+        consumer.stop().get();
+
+        assertEquals(0, amazonSQS.getNumberOfDeletedMessages("queue"));
+        assertEquals(0L, consumer.getMetrics().getTotal("SQS nacked messages"));
+        assertEquals("10", notVisibleMessages(amazonSQS));
+    }
+
+    @Test(timeout = 30000)
+    public void shouldHandleMessageGroupsOfFifoQueuesConcurrently() throws Exception {
+        final GenericAmazonSQSProperties properties = new GenericAmazonSQSProperties();
+        properties.setQueueName("queue.fifo");
+        properties.setWaitTimeSeconds(1);
+        properties.setFifo(true);
+        properties.setNumberOfLanes(2);
+        properties.setAutoStart(false);
+        final InMemoryAmazonSQS amazonSQS = new InMemoryAmazonSQS();
+        amazonSQS.createQueue(new CreateQueueRequest("queue.fifo")
+                .addAttributesEntry(QueueAttributeName.FifoQueue.toString(), "true")
+                .addAttributesEntry(QueueAttributeName.ContentBasedDeduplication.toString(), "true"));
+        amazonSQS.sendMessage(new SendMessageRequest("queue.fifo", "a").withMessageGroupId("a"));
+        amazonSQS.sendMessage(new SendMessageRequest("queue.fifo", "b").withMessageGroupId("b"));
+        final CountDownLatch handling = new CountDownLatch(2);
+        final Set<String> handledConcurrently = ConcurrentHashMap.newKeySet();
+        final AmazonSQSConsumer consumer = new AmazonSQSConsumer(amazonSQS, properties,
+            new AbstractSingleAmazonSQSMessageHandler() {
+
+                @Override
+                protected Mono<Void> handleMessage(final Message message) {
+                    return Mono.fromCallable(() -> {
+                        handling.countDown();
+                        return handling.await(5, TimeUnit.SECONDS);
+                    }).filter(Boolean::booleanValue).doOnNext(ignored -> handledConcurrently.add(message.getBody()))
+                            .then();
+                }
+            });
+
+        consumer.start();
+        amazonSQS.awaitDeletedMessages("queue.fifo", 2);
+        consumer.stop().join();
+
+        assertEquals(Set.of("a", "b"), handledConcurrently);
+    }
+
+    @Test(timeout = 30000)
+    public void shouldReceiveOnlyProjectedAttributes() throws Exception {
+        final GenericAmazonSQSProperties properties = new GenericAmazonSQSProperties();
+        properties.setQueueName("queue");
+        properties.setWaitTimeSeconds(1);
+        properties.setMessageAttributeNames(List.of("eventType"));
+        properties.setDeduplicationWindowSeconds(60);
+        properties.setDeduplicationAttribute("eventId");
+        properties.setAutoStart(false);
+        final InMemoryAmazonSQS amazonSQS = new InMemoryAmazonSQS();
+        amazonSQS.createQueue("queue");
+        amazonSQS.sendMessage(new SendMessageRequest("queue", "body")
+                .addMessageAttributesEntry("eventType", stringAttribute("OrderCreated"))
+                .addMessageAttributesEntry("eventId", stringAttribute("1"))
+                .addMessageAttributesEntry("traceId", stringAttribute("abc")));
+        final CompletableFuture<Message> received = new CompletableFuture<>();
+        final AmazonSQSConsumer consumer = new AmazonSQSConsumer(amazonSQS, properties,
+            new AbstractSingleAmazonSQSMessageHandler() {
+
+                @Override
+                protected Mono<Void> handleMessage(final Message message) {
+                    received.complete(message);
+                    return Mono.empty();
+                }
+            });
+
+        consumer.start();
+        final Message message = received.get();
+        consumer.stop().join();
+
+        assertEquals(Set.of("eventType", "eventId"), message.getMessageAttributes().keySet());
+        assertEquals(Set.of("SentTimestamp"), message.getAttributes().keySet());
+    }
+
+    private static GenericAmazonSQSProperties drainingProperties() {
+        final GenericAmazonSQSProperties properties = new GenericAmazonSQSProperties();
+        properties.setQueueName("queue");
+        properties.setWaitTimeSeconds(1);
+        properties.setNumberOfPublishers(1);
+        properties.setDrainTimeoutSeconds(10);
+        properties.setAutoStart(false);
+        return properties;
+    }
+
+    private static String notVisibleMessages(final InMemoryAmazonSQS amazonSQS) {
+        return queueAttribute(amazonSQS, "ApproximateNumberOfMessagesNotVisible");
+    }
+
+    private static String queueAttribute(final InMemoryAmazonSQS amazonSQS, final String attributeName) {
+        return amazonSQS.getQueueAttributes("queue", List.of(attributeName))
+                .getAttributes()
+                .get(attributeName);
+    }
+
+    private static MessageAttributeValue stringAttribute(final String value) {
+        return new MessageAttributeValue().withDataType("String").withStringValue(value);
+    }
+
     private void expectedException(final String substring) {
         expectedException.expect(IllegalArgumentException.class);
         expectedException.expectMessage(substring);
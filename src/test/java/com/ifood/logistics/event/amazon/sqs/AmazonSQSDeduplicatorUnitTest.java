@@ -0,0 +1,130 @@
+package com.lorem.logistics.event.amazon.sqs;
+
+import com.amazonaws.services.sqs.model.Message;
+import com.amazonaws.services.sqs.model.MessageAttributeValue;
+import com.lorem.logistics.event.amazon.sqs.configuration.AmazonSQSProperties;
+import com.lorem.logistics.event.amazon.sqs.handler.MessageDecorator;
+import com.lorem.logistics.event.metrics.EventMetrics;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class AmazonSQSDeduplicatorUnitTest {
+
+    private AmazonSQSProperties properties;
+    private EventMetrics metrics;
+
+    @Before
+    public void before() {
+        properties = mock(AmazonSQSProperties.class);
+        when(properties.getDeduplicationWindowSeconds()).thenReturn(60);
+        when(properties.getDeduplicationCacheSize()).thenReturn(100);
+        when(properties.getDeduplicationAttribute()).thenReturn(null);
+        metrics = new EventMetrics("test");
+    }
+
+    @Test
+    public void shouldFindMessagesHandledSuccessfully() {
+        final AmazonSQSDeduplicator deduplicator = new AmazonSQSDeduplicator(properties, metrics);
+        deduplicator.handled(List.of(MessageDecorator.withSuccess(message("1")),
+            MessageDecorator.withFail(message("2"))));
+
+        assertEquals(List.of(message("1")), deduplicator.duplicates(List.of(message("1"), message("2"))));
+        assertEquals(2L, metrics.getTotal("SQS deduplication lookups"));
+        assertEquals(1L, metrics.getTotal("SQS duplicate messages"));
+        assertEquals(1L, metrics.getGauge("SQS deduplication cache size"));
+        assertEquals(8L * (256 + 100 + 100), metrics.getGauge("SQS deduplication cache bytes"));
+    }
+
+    @Test
+    public void shouldForgetTheOldestMessagesWhenFull() {
+        when(properties.getDeduplicationCacheSize()).thenReturn(2);
+        final AmazonSQSDeduplicator deduplicator = new AmazonSQSDeduplicator(properties, metrics);
+        handled(deduplicator, "1", "2", "3");
+
+        assertEquals(List.of(message("2"), message("3")),
+            deduplicator.duplicates(List.of(message("1"), message("2"), message("3"))));
+        assertEquals(2L, deduplicator.size());
+    }
+
+    @Test
+    public void shouldForgetMessagesOnceTheWindowElapsed() throws InterruptedException {
+        when(properties.getDeduplicationWindowSeconds()).thenReturn(1);
+        final AmazonSQSDeduplicator deduplicator = new AmazonSQSDeduplicator(properties, metrics);
+        handled(deduplicator, "1");
+        Thread.sleep(1100);
+
+        assertTrue(deduplicator.duplicates(List.of(message("1"))).isEmpty());
+        assertEquals(0L, deduplicator.size());
+    }
+
+    @Test
+    public void shouldIdentifyMessagesByTheDeduplicationAttribute() {
+        when(properties.getDeduplicationAttribute()).thenReturn("eventId");
+        final AmazonSQSDeduplicator deduplicator = new AmazonSQSDeduplicator(properties, metrics);
+        deduplicator.handled(List.of(MessageDecorator.withSuccess(message("1").addMessageAttributesEntry("eventId",
+            new MessageAttributeValue().withDataType("String").withStringValue("event")))));
+
+        final Message resent = message("2").addMessageAttributesEntry("eventId",
+            new MessageAttributeValue().withDataType("String").withStringValue("event"));
+        assertEquals(List.of(resent), deduplicator.duplicates(List.of(resent, message("1"))));
+    }
+
+    @Test
+    public void shouldRememberTheLatestMessagesAcrossEvictions() {
+        when(properties.getDeduplicationCacheSize()).thenReturn(50);
+        final AmazonSQSDeduplicator deduplicator = new AmazonSQSDeduplicator(properties, metrics);
+        final Deque<String> remembered = new ArrayDeque<>();
+        final Random random = new Random(42);
+        for (int i = 0; i < 5000; i++) {
+            final String id = String.valueOf(random.nextInt(200));
+            if (deduplicator.duplicates(List.of(message(id))).isEmpty()) {
+                assertFalse(remembered.contains(id));
+                handled(deduplicator, id);
+                remembered.addLast(id);
+                if (remembered.size() > 50) {
+                    remembered.removeFirst();
+                }
+            } else {
+                assertTrue(remembered.contains(id));
+            }
+        }
+        final List<Message> all = IntStream.range(0, 200)
+                .mapToObj(i -> message(String.valueOf(i)))
+                .collect(Collectors.toList());
+        assertEquals(50, deduplicator.duplicates(all).size());
+    }
+
+    @Test
+    public void shouldNotFindDuplicatesWhenDisabled() {
+        when(properties.getDeduplicationWindowSeconds()).thenReturn(null);
+        final AmazonSQSDeduplicator deduplicator = new AmazonSQSDeduplicator(properties, metrics);
+        handled(deduplicator, "1");
+
+        assertFalse(deduplicator.isEnabled());
+        assertTrue(deduplicator.duplicates(List.of(message("1"))).isEmpty());
+    }
+
+    private static void handled(final AmazonSQSDeduplicator deduplicator, final String... ids) {
+        deduplicator.handled(List.of(ids)
+                .stream()
+                .map(id -> MessageDecorator.withSuccess(message(id)))
+                .collect(Collectors.toList()));
+    }
+
+    private static Message message(final String id) {
+        return new Message().withMessageId(id);
+    }
+}
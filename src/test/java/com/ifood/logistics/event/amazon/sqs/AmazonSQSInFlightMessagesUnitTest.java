@@ -0,0 +1,105 @@
+package com.lorem.logistics.event.amazon.sqs;
+
+import com.amazonaws.services.sqs.model.Message;
+import com.lorem.logistics.event.amazon.sqs.configuration.AmazonSQSProperties;
+import com.lorem.logistics.event.metrics.EventMetrics;
+import org.junit.Before;
+import org.junit.Test;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class AmazonSQSInFlightMessagesUnitTest {
+
+    private AmazonSQSInFlightMessages inFlightMessages;
+
+    @Before
+    public void before() {
+        final AmazonSQSProperties properties = mock(AmazonSQSProperties.class);
+        when(properties.getMaxInFlightMessages()).thenReturn(4);
+
+        inFlightMessages = new AmazonSQSInFlightMessages(properties, new EventMetrics("test"));
+    }
+
+    @Test
+    public void shouldGiveBackRoomNotUsedByReceivedMessages() {
+        assertTrue(inFlightMessages.tryReserve(4));
+        inFlightMessages.received(4, Arrays.asList(message("1"), message("2")));
+
+        assertEquals(2, inFlightMessages.size());
+        assertTrue(inFlightMessages.tryReserve(2));
+        assertFalse(inFlightMessages.tryReserve(1));
+    }
+
+    @Test
+    public void shouldWaitForCompletedMessages() {
+        final List<Message> messages = Arrays.asList(message("1"), message("2"), message("3"), message("4"));
+        assertTrue(inFlightMessages.tryReserve(4));
+        inFlightMessages.received(4, messages);
+
+        StepVerifier.create(inFlightMessages.reserve(2))
+                .expectSubscription()
+                .expectNoEvent(Duration.ofMillis(50))
+                .then(() -> inFlightMessages.completed(messages.subList(0, 1)))
+                .expectNoEvent(Duration.ofMillis(50))
+                .then(() -> inFlightMessages.completed(messages.subList(1, 2)))
+                .verifyComplete();
+
+        assertEquals(2, inFlightMessages.size());
+    }
+
+    @Test
+    public void shouldGiveBackRoomOnlyOncePerMessage() {
+        final Message message = message("1");
+        assertTrue(inFlightMessages.tryReserve(4));
+        inFlightMessages.received(4, Collections.singletonList(message));
+
+        inFlightMessages.completed(Collections.singletonList(message));
+        inFlightMessages.completed(Collections.singletonList(message));
+
+        assertEquals(0, inFlightMessages.size());
+        assertTrue(inFlightMessages.tryReserve(4));
+        assertFalse(inFlightMessages.tryReserve(1));
+    }
+
+    @Test
+    public void shouldCompleteMessagesChangedByHandlers() {
+        final Message message = message("1");
+        assertTrue(inFlightMessages.tryReserve(4));
+        inFlightMessages.received(4, Collections.singletonList(message));
+
+        message.setBody("changed");
+        message.addAttributesEntry("SentTimestamp", "0");
+        inFlightMessages.completed(Collections.singletonList(message));
+
+        assertEquals(0, inFlightMessages.size());
+        assertTrue(inFlightMessages.tryReserve(4));
+    }
+
+    @Test
+    public void shouldTrackEachDeliveryOfAMessage() {
+        final Message first = new Message().withMessageId("1");
+        final Message second = new Message().withMessageId("1");
+        assertTrue(inFlightMessages.tryReserve(4));
+        inFlightMessages.received(4, Arrays.asList(first, second));
+
+        inFlightMessages.completed(Collections.singletonList(first));
+
+        assertEquals(Collections.singletonList(second), inFlightMessages.getMessages());
+        assertFalse(inFlightMessages.tryReserve(4));
+        assertTrue(inFlightMessages.tryReserve(3));
+    }
+
+    private Message message(final String id) {
+        return new Message().withMessageId(id).withReceiptHandle("receipt-" + id);
+    }
+}
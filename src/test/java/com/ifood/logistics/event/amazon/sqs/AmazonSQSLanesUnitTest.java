@@ -0,0 +1,128 @@
+package com.lorem.logistics.event.amazon.sqs;
+
+import com.amazonaws.services.sqs.model.Message;
+import com.amazonaws.services.sqs.model.MessageAttributeValue;
+import com.lorem.logistics.event.amazon.sqs.configuration.AmazonSQSProperties;
+import com.lorem.logistics.event.amazon.sqs.handler.MessageDecorator;
+import com.lorem.logistics.event.metrics.EventMetrics;
+import org.junit.Before;
+import org.junit.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class AmazonSQSLanesUnitTest {
+
+    private final List<String> handled = Collections.synchronizedList(new ArrayList<>());
+    private AmazonSQSProperties properties;
+    private AmazonSQSLanes lanes;
+
+    @Before
+    public void before() {
+        properties = mock(AmazonSQSProperties.class);
+        when(properties.getNumberOfLanes()).thenReturn(4);
+        when(properties.getFifo()).thenReturn(true);
+
+        lanes = new AmazonSQSLanes(properties, null, new EventMetrics("test"));
+    }
+
+    @Test
+    public void shouldHandleMessagesInOrderPerMessageGroup() {
+        final List<Message> batch = Arrays.asList(message("a1", "A", 30), message("b1", "B", 10),
+            message("a2", "A", 20), message("b2", "B", 1), message("a3", "A", 1));
+
+        final List<MessageDecorator> decorators = lanes.route(Flux.just(batch), this::handle)
+                .flatMapIterable(messageDecorators -> messageDecorators)
+                .collectList()
+                .block(Duration.ofSeconds(5));
+
+        assertEquals(5, decorators.size());
+        assertEquals(Arrays.asList("a1", "a2", "a3"), handledOf("a"));
+        assertEquals(Arrays.asList("b1", "b2"), handledOf("b"));
+    }
+
+    @Test
+    public void shouldFailFollowingMessagesOfFailedGroup() {
+        final List<Message> batch = Arrays.asList(message("a1", "A", 1), message("a2", "A", -1),
+            message("a3", "A", 1), message("b1", "B", 1));
+
+        StepVerifier.create(lanes.route(Flux.just(batch), this::handle)
+                .flatMapIterable(messageDecorators -> messageDecorators)
+                .filter(decorator -> !decorator.isSuccessfullyProcessed())
+                .map(decorator -> decorator.getMessage().getMessageId())
+                .sort())
+                .expectNext("a2", "a3")
+                .verifyComplete();
+
+        assertEquals(Arrays.asList("a1", "a2"), handledOf("a"));
+    }
+
+    @Test
+    public void shouldRouteMessagesWithSameKeyToSameLane() {
+        when(properties.getFifo()).thenReturn(false);
+        final EventMetrics metrics = new EventMetrics("test");
+        lanes = new AmazonSQSLanes(properties, MessageKeyExtractor.messageAttribute("courierId"), metrics);
+        final List<Message> batch = Arrays.asList(keyed("1", "courier-1"), keyed("2", "courier-2"),
+            keyed("3", "courier-1"));
+        final Map<String, String> threads = new ConcurrentHashMap<>();
+
+        StepVerifier.create(lanes.route(Flux.just(batch, batch), messages -> {
+            messages.forEach(message -> threads.merge(message.getMessageAttributes().get("courierId").getStringValue(),
+                Thread.currentThread().getName(), (first, second) -> first.equals(second) ? first : "scattered"));
+            return Flux.just(messages.stream().map(MessageDecorator::withSuccess).collect(Collectors.toList()));
+        })).expectNextCount(4).verifyComplete();
+
+        assertFalse(threads.containsValue("scattered"));
+        assertTrue(lanes.isEnabled());
+        assertEquals(4, metrics.gauges().keySet().stream().filter(name -> name.endsWith("depth")).count());
+        assertEquals(0L, (long) metrics.gauges().get("SQS lane 0 depth"));
+    }
+
+    @Test
+    public void shouldNotRouteWithoutKeyExtractor() {
+        when(properties.getFifo()).thenReturn(false);
+
+        assertFalse(new AmazonSQSLanes(properties, null, new EventMetrics("test")).isEnabled());
+    }
+
+    private Flux<List<MessageDecorator>> handle(final List<Message> messages) {
+        final Message message = messages.get(0);
+        final long delay = Long.parseLong(message.getBody());
+        return Mono.delay(Duration.ofMillis(Math.max(delay, 0)))
+                .doOnNext(tick -> handled.add(message.getMessageId()))
+                .map(tick -> Collections.singletonList(
+                    delay < 0 ? MessageDecorator.withFail(message) : MessageDecorator.withSuccess(message)))
+                .flux();
+    }
+
+    private List<String> handledOf(final String prefix) {
+        return handled.stream().filter(id -> id.startsWith(prefix)).collect(Collectors.toList());
+    }
+
+    private Message keyed(final String id, final String courierId) {
+        return new Message().withMessageId(id)
+                .addMessageAttributesEntry("courierId",
+                    new MessageAttributeValue().withDataType("String").withStringValue(courierId));
+    }
+
+    private Message message(final String id, final String messageGroupId, final long delay) {
+        return new Message().withMessageId(id)
+                .withBody(String.valueOf(delay))
+                .addAttributesEntry("MessageGroupId", messageGroupId);
+    }
+}
@@ -0,0 +1,158 @@
+package com.lorem.logistics.event.amazon.sqs;
+
+import com.lorem.logistics.event.metrics.EventMetrics;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AmazonSQSPollerPoolUnitTest {
+
+    private AmazonSQSPollerPool pollerPool;
+
+    @Before
+    public void before() {
+        pollerPool = new AmazonSQSPollerPool(1);
+    }
+
+    @After
+    public void after() {
+        pollerPool.dispose();
+    }
+
+    @Test
+    public void shouldRunReceivesOnThePollers() {
+        final AmazonSQSPollerPool.Share share = pollerPool.share(1, 0, new EventMetrics("test"));
+
+        StepVerifier.create(share.poll(Flux.defer(() -> Flux.just(List.of(Thread.currentThread().getName())))))
+                .expectNext(List.of("ConsumerGroupPoller-1"))
+                .verifyComplete();
+    }
+
+    @Test
+    public void shouldWaitForAPollerUntilAnotherReceiveIsCancelled() {
+        final EventMetrics metrics = new EventMetrics("test");
+        final AmazonSQSPollerPool.Share share = pollerPool.share(1, 0, metrics);
+        final Disposable running = share.<List<String>>poll(Flux.never()).subscribe();
+
+        StepVerifier.create(share.poll(Flux.just(List.of(1))))
+                .expectSubscription()
+                .expectNoEvent(Duration.ofMillis(100))
+                .then(() -> assertEquals(1L, metrics.getGauge("SQS publishers waiting for a poller")))
+                .then(running::dispose)
+                .expectNext(List.of(1))
+                .verifyComplete();
+
+        assertEquals(0L, metrics.getGauge("SQS publishers waiting for a poller"));
+    }
+
+    @Test
+    public void shouldGiveThePollerBackWhenAWaitingReceiveIsCancelled() {
+        final AmazonSQSPollerPool.Share share = pollerPool.share(1, 0, new EventMetrics("test"));
+        final Disposable running = share.<List<String>>poll(Flux.never()).subscribe();
+        share.poll(Flux.just(List.of(1))).subscribe().dispose();
+        running.dispose();
+
+        StepVerifier.create(share.poll(Flux.just(List.of(1))))
+                .expectNext(List.of(1))
+                .verifyComplete();
+    }
+
+    @Test
+    public void shouldShareThePollerTimeInProportionToTheirWeights() throws InterruptedException {
+        final AmazonSQSPollerPool.Share heavy = pollerPool.share(3, 0, new EventMetrics("heavy"));
+        final AmazonSQSPollerPool.Share light = pollerPool.share(1, 0, new EventMetrics("light"));
+        final Disposable running = light.<List<String>>poll(Flux.never()).subscribe();
+        final List<String> polls = new CopyOnWriteArrayList<>();
+        final CountDownLatch polled = new CountDownLatch(16);
+        IntStream.range(0, 8).forEach(i -> {
+            light.poll(record(polls, "light")).subscribe(ignored -> polled.countDown());
+            heavy.poll(record(polls, "heavy")).subscribe(ignored -> polled.countDown());
+        });
+
+        running.dispose();
+
+        assertTrue(polled.await(2, TimeUnit.SECONDS));
+        assertTrue(polls.subList(0, 8).stream().filter("heavy"::equals).count() >= 6);
+        assertEquals(Collections.nCopies(4, "light"), polls.subList(12, 16));
+    }
+
+    @Test
+    public void shouldHandPollersToWaitingSharesOfHigherPriorityFirst() throws InterruptedException {
+        final EventMetrics urgentMetrics = new EventMetrics("urgent");
+        final AmazonSQSPollerPool.Share bulk = pollerPool.share(10, 0, new EventMetrics("bulk"));
+        final AmazonSQSPollerPool.Share urgent = pollerPool.share(1, 1, urgentMetrics);
+        final Disposable running = bulk.<List<String>>poll(Flux.never()).subscribe();
+        final List<String> polls = new CopyOnWriteArrayList<>();
+        final CountDownLatch polled = new CountDownLatch(8);
+        IntStream.range(0, 4).forEach(i -> {
+            bulk.poll(record(polls, "bulk")).subscribe(ignored -> polled.countDown());
+            urgent.poll(record(polls, "urgent")).subscribe(ignored -> polled.countDown());
+        });
+
+        running.dispose();
+
+        assertTrue(polled.await(2, TimeUnit.SECONDS));
+        assertEquals(Collections.nCopies(4, "urgent"), polls.subList(0, 4));
+        assertEquals(4L, urgentMetrics.latencies().get("SQS poller wait latency").getCount());
+    }
+
+    @Test
+    public void shouldNotGivePriorityToSharesWhoseLastReceiveWasEmpty() throws InterruptedException {
+        final AmazonSQSPollerPool.Share bulk = pollerPool.share(1, 0, new EventMetrics("bulk"));
+        final AmazonSQSPollerPool.Share urgent = pollerPool.share(1, 1, new EventMetrics("urgent"));
+        final Disposable running = bulk.<List<String>>poll(Flux.never()).subscribe();
+        final List<String> polls = new CopyOnWriteArrayList<>();
+        final CountDownLatch polled = new CountDownLatch(4);
+        IntStream.range(0, 2).forEach(i -> {
+            urgent.poll(Flux.defer(() -> {
+                polls.add("urgent");
+                return Mono.delay(Duration.ofMillis(200)).thenReturn(List.<String>of()).flux();
+            })).subscribe(ignored -> polled.countDown());
+            bulk.poll(record(polls, "bulk")).subscribe(ignored -> polled.countDown());
+        });
+
+        running.dispose();
+
+        assertTrue(polled.await(2, TimeUnit.SECONDS));
+        assertEquals(List.of("urgent", "bulk"), polls.subList(0, 2));
+    }
+
+    @Test
+    public void shouldNotDelaySharesOfLowerPriorityWhilePollersAreAvailable() {
+        final AmazonSQSPollerPool pollers = new AmazonSQSPollerPool(2);
+        try {
+            final AmazonSQSPollerPool.Share bulk = pollers.share(1, 0, new EventMetrics("bulk"));
+            final AmazonSQSPollerPool.Share urgent = pollers.share(1, 1, new EventMetrics("urgent"));
+            final Disposable running = urgent.<List<String>>poll(Flux.never()).subscribe();
+
+            StepVerifier.create(bulk.poll(Flux.just(List.of("bulk"))))
+                    .expectNext(List.of("bulk"))
+                    .verifyComplete();
+            running.dispose();
+        } finally {
+            pollers.dispose();
+        }
+    }
+
+    private static Flux<List<String>> record(final List<String> polls, final String share) {
+        return Flux.defer(() -> {
+            polls.add(share);
+            return Mono.delay(Duration.ofMillis(10)).thenReturn(List.of(share)).flux();
+        });
+    }
+}
@@ -0,0 +1,149 @@
+package com.lorem.logistics.event.amazon.sqs;
+
+import com.amazonaws.services.sqs.model.Message;
+import com.lorem.logistics.event.amazon.sqs.configuration.AmazonSQSProperties;
+import com.lorem.logistics.event.metrics.EventMetrics;
+import org.junit.Before;
+import org.junit.Test;
+import reactor.core.publisher.DirectProcessor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import reactor.test.publisher.PublisherProbe;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class AmazonSQSPrefetchBufferUnitTest {
+
+    private AmazonSQSProperties properties;
+    private AmazonSQSInFlightMessages inFlightMessages;
+    private AmazonSQSAcknowledger acknowledger;
+    private EventMetrics metrics;
+
+    @Before
+    public void before() {
+        properties = mock(AmazonSQSProperties.class);
+        when(properties.getMaxInFlightMessages()).thenReturn(100);
+        when(properties.getPrefetchMessages()).thenReturn(4);
+        when(properties.getVisibilityTimeoutSeconds()).thenReturn(30);
+        when(properties.getDeleteConcurrency()).thenReturn(4);
+        acknowledger = mock(AmazonSQSAcknowledger.class);
+        when(acknowledger.abandon(any())).thenReturn(Mono.empty());
+        metrics = new EventMetrics("test");
+        inFlightMessages = new AmazonSQSInFlightMessages(properties, metrics);
+    }
+
+    @Test
+    public void shouldBoundMessagesWaitingToBeHandled() {
+        final AmazonSQSPrefetchBuffer prefetchBuffer = createPrefetchBuffer();
+        final List<Message> messages = receive(prefetchBuffer, 4, message("1"), message("2"), message("3"));
+
+        assertTrue(prefetchBuffer.tryReserve(1));
+        assertFalse(prefetchBuffer.tryReserve(1));
+        StepVerifier.create(prefetchBuffer.reserve(2))
+                .expectSubscription()
+                .expectNoEvent(Duration.ofMillis(50))
+                .then(() -> assertEquals(messages.subList(0, 2), prefetchBuffer.take(messages.subList(0, 2))))
+                .verifyComplete();
+    }
+
+    @Test
+    public void shouldEvictMessagesLeftWithLessThanHalfOfTheirVisibilityTimeout() {
+        final AmazonSQSPrefetchBuffer prefetchBuffer = createPrefetchBuffer();
+        final Message expiring = message("1");
+        final Message fresh = message("2");
+        receive(prefetchBuffer, 2, expiring, fresh);
+        inFlightMessages.extended(expiring, System.currentTimeMillis() - 20_000);
+        final DirectProcessor<Object> consumer = DirectProcessor.create();
+
+        StepVerifier.create(prefetchBuffer.abandoningEvicted(consumer))
+                .then(() -> assertEquals(List.of(fresh), prefetchBuffer.take(List.of(expiring, fresh))))
+                .then(consumer::onComplete)
+                .verifyComplete();
+
+        verify(acknowledger).abandon(List.of(expiring));
+        assertEquals(1L, metrics.getTotal("SQS evicted messages"));
+        assertTrue(prefetchBuffer.tryReserve(4));
+    }
+
+    @Test
+    public void shouldCancelAbandonsAlongWithTheConsumer() {
+        final PublisherProbe<Void> abandon = PublisherProbe.of(Mono.never());
+        when(acknowledger.abandon(any())).thenReturn(abandon.mono());
+        final AmazonSQSPrefetchBuffer prefetchBuffer = createPrefetchBuffer();
+        final Message expiring = message("1");
+        receive(prefetchBuffer, 1, expiring);
+        inFlightMessages.extended(expiring, System.currentTimeMillis() - 20_000);
+
+        StepVerifier.create(prefetchBuffer.abandoningEvicted(Flux.never()))
+                .then(() -> assertEquals(List.of(), prefetchBuffer.take(List.of(expiring))))
+                .expectNoEvent(Duration.ofMillis(50))
+                .thenCancel()
+                .verify();
+
+        abandon.assertWasCancelled();
+    }
+
+    @Test
+    public void shouldGiveBackTheRoomOfEachMessageOnce() {
+        final AmazonSQSPrefetchBuffer prefetchBuffer = createPrefetchBuffer();
+        final List<Message> messages = receive(prefetchBuffer, 4, message("1"), message("2"));
+
+        assertEquals(messages, prefetchBuffer.take(messages));
+        assertEquals(List.of(), prefetchBuffer.giveBack(messages));
+        assertEquals(messages, prefetchBuffer.take(messages));
+
+        assertTrue(prefetchBuffer.tryReserve(4));
+        assertFalse(prefetchBuffer.tryReserve(1));
+    }
+
+    @Test
+    public void shouldEmptyTheBufferWhenTheConsumerTerminates() {
+        final AmazonSQSPrefetchBuffer prefetchBuffer = createPrefetchBuffer();
+        receive(prefetchBuffer, 4, message("1"), message("2"), message("3"), message("4"));
+
+        StepVerifier.create(prefetchBuffer.abandoningEvicted(Flux.empty())).verifyComplete();
+
+        assertTrue(prefetchBuffer.tryReserve(4));
+    }
+
+    @Test
+    public void shouldNotBoundNorEvictMessagesWhenDisabled() {
+        when(properties.getPrefetchMessages()).thenReturn(null);
+        final AmazonSQSPrefetchBuffer prefetchBuffer = createPrefetchBuffer();
+        final Message expiring = message("1");
+        receive(prefetchBuffer, 10, expiring);
+        inFlightMessages.extended(expiring, System.currentTimeMillis() - 20_000);
+
+        assertTrue(prefetchBuffer.tryReserve(1000));
+        assertEquals(List.of(expiring), prefetchBuffer.take(List.of(expiring)));
+        verify(acknowledger, never()).abandon(any());
+    }
+
+    private AmazonSQSPrefetchBuffer createPrefetchBuffer() {
+        return new AmazonSQSPrefetchBuffer(properties, inFlightMessages, acknowledger, metrics);
+    }
+
+    private List<Message> receive(final AmazonSQSPrefetchBuffer prefetchBuffer, final int permits,
+            final Message... messages) {
+        assertTrue(prefetchBuffer.tryReserve(permits));
+        inFlightMessages.tryReserve(permits);
+        inFlightMessages.received(permits, List.of(messages));
+        prefetchBuffer.received(permits, List.of(messages));
+        return List.of(messages);
+    }
+
+    private static Message message(final String id) {
+        return new Message().withMessageId(id).withReceiptHandle("receipt-" + id);
+    }
+}
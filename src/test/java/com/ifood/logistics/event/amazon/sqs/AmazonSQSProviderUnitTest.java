@@ -0,0 +1,75 @@
+package com.lorem.logistics.event.amazon.sqs;
+
+import com.amazonaws.services.sqs.model.BatchResultErrorEntry;
+import com.amazonaws.services.sqs.model.ChangeMessageVisibilityBatchResult;
+import com.amazonaws.services.sqs.model.ChangeMessageVisibilityBatchResultEntry;
+import com.amazonaws.services.sqs.model.DeleteMessageBatchResult;
+import com.amazonaws.services.sqs.model.DeleteMessageBatchResultEntry;
+import com.amazonaws.services.sqs.model.Message;
+import com.amazonaws.services.sqs.model.ReceiveMessageRequest;
+import com.lorem.logistics.event.amazon.sqs.configuration.AmazonSQSProperties;
+import com.lorem.logistics.event.amazon.sqs.emulator.InMemoryAmazonSQS;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class AmazonSQSProviderUnitTest {
+
+    private InMemoryAmazonSQS amazonSQS;
+    private AmazonSQSProvider provider;
+    private List<Message> deliveries;
+
+    @Before
+    public void before() {
+        amazonSQS = new InMemoryAmazonSQS();
+        amazonSQS.createQueue("queue");
+        amazonSQS.sendMessages("queue", 1);
+        final AmazonSQSProperties properties = mock(AmazonSQSProperties.class);
+        when(properties.getQueueName()).thenReturn("queue");
+        provider = new AmazonSQSProvider(amazonSQS, properties);
+        deliveries = List.of(receive(), receive());
+        assertEquals(deliveries.get(0).getMessageId(), deliveries.get(1).getMessageId());
+        assertNotEquals(deliveries.get(0).getReceiptHandle(), deliveries.get(1).getReceiptHandle());
+    }
+
+    @Test
+    public void shouldDeleteEachDeliveryOfAMessageInTheSameBatch() {
+        final DeleteMessageBatchResult result = provider.delete(deliveries);
+
+        assertEquals(deliveries, result.getSuccessful()
+                .stream()
+                .map(DeleteMessageBatchResultEntry::getId)
+                .map(id -> AmazonSQSProvider.entryMessage(deliveries, id))
+                .collect(Collectors.toList()));
+        assertEquals(1, amazonSQS.getNumberOfDeletedMessages("queue"));
+    }
+
+    @Test
+    public void shouldChangeTheVisibilityOfEachDeliveryOfAMessageInTheSameBatch() {
+        final ChangeMessageVisibilityBatchResult result = provider.changeVisibility(deliveries, message -> 30);
+
+        assertEquals(List.of(deliveries.get(1)), result.getSuccessful()
+                .stream()
+                .map(ChangeMessageVisibilityBatchResultEntry::getId)
+                .map(id -> AmazonSQSProvider.entryMessage(deliveries, id))
+                .collect(Collectors.toList()));
+        assertEquals(List.of(deliveries.get(0)), result.getFailed()
+                .stream()
+                .map(BatchResultErrorEntry::getId)
+                .map(id -> AmazonSQSProvider.entryMessage(deliveries, id))
+                .collect(Collectors.toList()));
+    }
+
+    private Message receive() {
+        return amazonSQS.receiveMessage(new ReceiveMessageRequest("queue").withVisibilityTimeout(0))
+                .getMessages()
+                .get(0);
+    }
+}
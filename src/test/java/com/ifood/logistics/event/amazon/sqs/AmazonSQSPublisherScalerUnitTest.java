@@ -0,0 +1,114 @@
+package com.lorem.logistics.event.amazon.sqs;
+
+import com.amazonaws.services.sqs.model.Message;
+import com.lorem.logistics.event.amazon.sqs.configuration.AmazonSQSProperties;
+import com.lorem.logistics.event.metrics.EventMetrics;
+import org.junit.Before;
+import org.junit.Test;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class AmazonSQSPublisherScalerUnitTest {
+
+    private AmazonSQSInFlightMessages inFlightMessages;
+    private AmazonSQSPublisherScaler scaler;
+
+    @Before
+    public void before() {
+        final AmazonSQSProperties properties = mock(AmazonSQSProperties.class);
+        when(properties.getNumberOfPublishers()).thenReturn(2);
+        when(properties.getMinNumberOfPublishers()).thenReturn(1);
+        when(properties.getMaxNumberOfPublishers()).thenReturn(3);
+        when(properties.getMaxNumberOfMessages()).thenReturn(10);
+        when(properties.getMaxInFlightMessages()).thenReturn(100);
+
+        final EventMetrics metrics = new EventMetrics("test");
+        inFlightMessages = new AmazonSQSInFlightMessages(properties, metrics);
+        scaler = new AmazonSQSPublisherScaler(properties, inFlightMessages, metrics);
+    }
+
+    @Test
+    public void shouldScaleUpWhenReceivesAreFullAndHandlersKeepUp() {
+        StepVerifier.create(scaler.publishers())
+                .expectNext(0, 1)
+                .then(() -> receiveAndHandle(10, 3))
+                .expectNext(3)
+                .then(() -> receiveAndHandle(10, 3))
+                .then(() -> assertEquals(3, scaler.getPublishers()))
+                .then(() -> finish(3))
+                .verifyComplete();
+
+        assertEquals(0, scaler.getPublishers());
+    }
+
+    @Test
+    public void shouldNotScaleUpWhenHandlersAreSaturated() {
+        StepVerifier.create(scaler.publishers())
+                .expectNext(0, 1)
+                .then(() -> IntStream.range(0, 3).forEach(i -> receive(10)))
+                .then(() -> assertEquals(2, scaler.getPublishers()))
+                .then(() -> finish(2))
+                .verifyComplete();
+
+        assertEquals(0, scaler.getPublishers());
+    }
+
+    @Test
+    public void shouldRetirePublisherWhenReceivesAreEmpty() {
+        StepVerifier.create(scaler.publishers())
+                .expectNext(0, 1)
+                .then(() -> {
+                    IntStream.range(0, 6).forEach(i -> scaler.received(0));
+                    assertFalse(scaler.keepPublishing());
+                    assertTrue(scaler.keepPublishing());
+                    scaler.publisherFinished(true);
+                })
+                .then(() -> assertEquals(1, scaler.getPublishers()))
+                .then(() -> finish(1))
+                .verifyComplete();
+
+        assertEquals(0, scaler.getPublishers());
+    }
+
+    @Test
+    public void shouldReplaceAFailedPublisher() {
+        StepVerifier.create(scaler.publishers())
+                .expectNext(0, 1)
+                .then(() -> scaler.publisherFinished(false))
+                .then(() -> assertEquals(1, scaler.getPublishers()))
+                .then(() -> IntStream.range(0, 3).forEach(i -> scaler.received(10)))
+                .expectNext(2)
+                .then(() -> finish(2))
+                .verifyComplete();
+
+        assertEquals(0, scaler.getPublishers());
+    }
+
+    private void receiveAndHandle(final int numberOfMessages, final int times) {
+        IntStream.range(0, times).forEach(i -> inFlightMessages.completed(receive(numberOfMessages)));
+    }
+
+    private List<Message> receive(final int numberOfMessages) {
+        final List<Message> messages = IntStream.range(0, numberOfMessages)
+                .mapToObj(i -> new Message().withMessageId(UUID.randomUUID().toString()))
+                .collect(Collectors.toList());
+        inFlightMessages.tryReserve(numberOfMessages);
+        inFlightMessages.received(numberOfMessages, messages);
+        scaler.received(numberOfMessages);
+        return messages;
+    }
+
+    private void finish(final int publishers) {
+        IntStream.range(0, publishers).forEach(i -> scaler.publisherFinished(false));
+    }
+}
@@ -8,8 +8,10 @@ import org.junit.Before;
 import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import reactor.core.Disposable;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 import reactor.test.StepVerifier;
 import reactor.test.scheduler.VirtualTimeScheduler;
 
@@ -17,13 +19,21 @@ import java.time.Duration;
 import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.IntStream;
 
 import static java.time.Duration.ofSeconds;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class AmazonSQSSourceUnitTest {
@@ -32,17 +42,20 @@ public class AmazonSQSSourceUnitTest {
 
     private AmazonSQSSource amazonSQSSource;
     private AmazonSQSProvider amazonSQSProvider;
+    private AmazonSQSProperties amazonSQSProperties;
     private EventMetrics metrics;
 
     @Before
     public void setup() {
         amazonSQSProvider = mock(AmazonSQSProvider.class);
-        metrics = mock(EventMetrics.class);
+        metrics = new EventMetrics("test");
 
-        final AmazonSQSProperties amazonSQSProperties = mock(AmazonSQSProperties.class);
+        amazonSQSProperties = mock(AmazonSQSProperties.class);
         when(amazonSQSProperties.getRetries()).thenReturn(3);
         when(amazonSQSProperties.getRetryBackoffMillis()).thenReturn(8);
-        amazonSQSSource = new AmazonSQSSource(amazonSQSProvider, amazonSQSProperties);
+        when(amazonSQSProperties.getMaxNumberOfMessages()).thenReturn(1);
+        when(amazonSQSProperties.getMaxInFlightMessages()).thenReturn(Integer.MAX_VALUE);
+        amazonSQSSource = createSource();
     }
 
     @Test
@@ -86,6 +99,121 @@ public class AmazonSQSSourceUnitTest {
         assertEquals("", 0, atomicInteger.get());
     }
 
+    @Test
+    public void testAsynchronousReceive() {
+        final Message expectedMessage = new Message().withMessageId("1");
+        when(amazonSQSProperties.getAsynchronousReceive()).thenReturn(true);
+        when(amazonSQSProvider.receiveAsync())
+                .thenReturn(Mono.fromCallable(() -> new ReceiveMessageResult().withMessages(expectedMessage)));
+
+        final AtomicInteger atomicInteger = new AtomicInteger(3);
+
+        StepVerifier.create(amazonSQSSource.create(() -> atomicInteger.decrementAndGet() > 0, metrics))
+                .expectNext(Collections.singletonList(expectedMessage))
+                .expectNext(Collections.singletonList(expectedMessage))
+                .expectNext(Collections.singletonList(expectedMessage))
+                .verifyComplete();
+
+        verify(amazonSQSProvider, never()).receive();
+    }
+
+    @Test
+    public void testReceiveOnlyWhenThereIsRoomForMessages() {
+        when(amazonSQSProperties.getMaxInFlightMessages()).thenReturn(10);
+        final AmazonSQSInFlightMessages inFlightMessages = new AmazonSQSInFlightMessages(amazonSQSProperties, metrics);
+        amazonSQSSource = new AmazonSQSSource(amazonSQSProvider, amazonSQSProperties, inFlightMessages,
+            mock(AmazonSQSPublisherScaler.class));
+        final List<Message> receivedMessages = new CopyOnWriteArrayList<>();
+        when(amazonSQSProvider.receive()).thenAnswer(i -> new ReceiveMessageResult()
+                .withMessages(new Message().withMessageId(String.valueOf(receivedMessages.size()))));
+
+        StepVerifier.create(amazonSQSSource.create(() -> true, metrics)
+                .doOnNext(receivedMessages::addAll))
+                .expectNextCount(10)
+                .expectNoEvent(Duration.ofMillis(100))
+                .then(() -> inFlightMessages.completed(receivedMessages.subList(0, 1)))
+                .expectNextCount(1)
+                .expectNoEvent(Duration.ofMillis(100))
+                .thenCancel()
+                .verify(ofSeconds(2L));
+
+        verify(amazonSQSProvider, times(11)).receive();
+        assertEquals(10, inFlightMessages.size());
+    }
+
+    @Test
+    public void testReportPublishersPollingAndWaitingForRoom() {
+        when(amazonSQSProperties.getAsynchronousReceive()).thenReturn(true);
+        when(amazonSQSProperties.getMaxInFlightMessages()).thenReturn(1);
+        amazonSQSSource = createSource();
+        when(amazonSQSProvider.receiveAsync()).thenReturn(Mono.delay(Duration.ofMillis(200))
+                .thenReturn(new ReceiveMessageResult().withMessages(new Message().withMessageId("1"))));
+
+        StepVerifier.create(amazonSQSSource.create(() -> true, metrics))
+                .expectSubscription()
+                .then(() -> assertEquals(1L, metrics.getGauge("SQS polling publishers")))
+                .expectNextCount(1)
+                .expectNoEvent(Duration.ofMillis(100))
+                .then(() -> {
+                    assertEquals(0L, metrics.getGauge("SQS polling publishers"));
+                    assertEquals(1L, metrics.getGauge("SQS publishers waiting for room"));
+                })
+                .thenCancel()
+                .verify(ofSeconds(2L));
+
+        assertEquals(0L, metrics.getGauge("SQS publishers waiting for room"));
+    }
+
+    @Test
+    public void testGiveBackRoomWhenReceiveIsCancelled() {
+        when(amazonSQSProperties.getAsynchronousReceive()).thenReturn(true);
+        when(amazonSQSProperties.getMaxNumberOfMessages()).thenReturn(10);
+        when(amazonSQSProperties.getMaxInFlightMessages()).thenReturn(10);
+        when(amazonSQSProperties.getPrefetchMessages()).thenReturn(10);
+        final AmazonSQSInFlightMessages inFlightMessages = new AmazonSQSInFlightMessages(amazonSQSProperties, metrics);
+        final AmazonSQSPrefetchBuffer prefetchBuffer = new AmazonSQSPrefetchBuffer(amazonSQSProperties,
+            inFlightMessages, mock(AmazonSQSAcknowledger.class), metrics);
+        amazonSQSSource = new AmazonSQSSource(amazonSQSProvider, amazonSQSProperties, inFlightMessages,
+            mock(AmazonSQSPublisherScaler.class), null, prefetchBuffer);
+        when(amazonSQSProvider.receiveAsync()).thenReturn(Mono.never());
+
+        StepVerifier.create(amazonSQSSource.create(() -> true, metrics))
+                .expectSubscription()
+                .then(() -> assertEquals(1L, metrics.getGauge("SQS polling publishers")))
+                .thenCancel()
+                .verify(ofSeconds(2L));
+
+        assertTrue(inFlightMessages.tryReserve(10));
+        assertTrue(prefetchBuffer.tryReserve(10));
+    }
+
+    @Test
+    public void testReleaseMessagesTakenByACancelledReceive() throws InterruptedException {
+        final Message message = new Message().withMessageId("1");
+        final CountDownLatch polling = new CountDownLatch(1);
+        final CompletableFuture<Void> visible = new CompletableFuture<>();
+        when(amazonSQSProvider.receive()).thenAnswer(i -> {
+            polling.countDown();
+            visible.join();
+            return new ReceiveMessageResult().withMessages(message);
+        });
+
+        final Disposable subscription = amazonSQSSource.create(() -> true, metrics)
+                .subscribeOn(Schedulers.elastic())
+                .subscribe();
+        assertTrue(polling.await(2, TimeUnit.SECONDS));
+        subscription.dispose();
+        visible.complete(null);
+
+        verify(amazonSQSProvider, timeout(2000)).releaseCancelled(List.of(message));
+        assertEquals(0L, metrics.getTotal("SQS received messages"));
+    }
+
+    private AmazonSQSSource createSource() {
+        return new AmazonSQSSource(amazonSQSProvider, amazonSQSProperties,
+            new AmazonSQSInFlightMessages(amazonSQSProperties, metrics), mock(AmazonSQSPublisherScaler.class));
+    }
+
     private CompletableFuture error(Throwable throwable) {
         return Mono.error(throwable).toFuture();
     }
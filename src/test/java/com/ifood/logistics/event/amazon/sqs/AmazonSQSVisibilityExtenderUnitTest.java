@@ -0,0 +1,103 @@
+package com.lorem.logistics.event.amazon.sqs;
+
+import com.amazonaws.services.sqs.model.ChangeMessageVisibilityBatchResult;
+import com.amazonaws.services.sqs.model.ChangeMessageVisibilityBatchResultEntry;
+import com.amazonaws.services.sqs.model.Message;
+import com.lorem.logistics.event.amazon.sqs.configuration.AmazonSQSProperties;
+import com.lorem.logistics.event.metrics.EventMetrics;
+import org.junit.Before;
+import org.junit.Test;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class AmazonSQSVisibilityExtenderUnitTest {
+
+    private static final int VISIBILITY_TIMEOUT_SECONDS = 30;
+
+    private AmazonSQSProvider provider;
+    private AmazonSQSInFlightMessages inFlightMessages;
+    private AmazonSQSVisibilityExtender extender;
+
+    @Before
+    public void before() {
+        provider = mock(AmazonSQSProvider.class);
+        final AmazonSQSProperties properties = mock(AmazonSQSProperties.class);
+        when(properties.getMaxInFlightMessages()).thenReturn(100);
+        when(properties.getDeleteConcurrency()).thenReturn(2);
+        when(properties.getVisibilityTimeoutSeconds()).thenReturn(VISIBILITY_TIMEOUT_SECONDS);
+        when(properties.getExtendVisibilityTimeout()).thenReturn(true);
+        when(provider.changeVisibility(anyList(), any())).thenAnswer(invocation -> {
+            final List<Message> messages = invocation.getArgument(0);
+            return new ChangeMessageVisibilityBatchResult().withSuccessful(IntStream.range(0, messages.size())
+                    .mapToObj(i -> new ChangeMessageVisibilityBatchResultEntry().withId(String.valueOf(i)))
+                    .collect(Collectors.toList()));
+        });
+
+        final EventMetrics metrics = new EventMetrics("test");
+        inFlightMessages = new AmazonSQSInFlightMessages(properties, metrics);
+        extender = new AmazonSQSVisibilityExtender(provider, properties, inFlightMessages, metrics);
+    }
+
+    @Test
+    public void shouldExtendExpiringMessagesInBatchesOfTen() {
+        inFlightMessages.received(0, messages(25));
+        final long afterVisibilityTimeout = System.currentTimeMillis() + VISIBILITY_TIMEOUT_SECONDS * 1000L + 1;
+
+        StepVerifier.create(extender.extend(afterVisibilityTimeout)).expectNextCount(3).verifyComplete();
+
+        verify(provider, times(3)).changeVisibility(anyList(), any());
+    }
+
+    @Test
+    public void shouldExtendEachDeliveryOfAMessage() {
+        final Message first = new Message().withMessageId("1").withReceiptHandle("receipt-1");
+        final Message second = new Message().withMessageId("1").withReceiptHandle("receipt-2");
+        inFlightMessages.received(0, List.of(first, second));
+        inFlightMessages.extended(first, 0);
+        inFlightMessages.extended(second, 0);
+
+        StepVerifier.create(extender.extend(System.currentTimeMillis())).expectNextCount(1).verifyComplete();
+        StepVerifier.create(extender.extend(System.currentTimeMillis())).verifyComplete();
+
+        verify(provider).changeVisibility(argThat(messages -> messages.size() == 2 && messages.contains(first)
+            && messages.contains(second)), any());
+    }
+
+    @Test
+    public void shouldNotExtendMessagesNoLongerInFlight() {
+        final List<Message> messages = messages(5);
+        inFlightMessages.received(0, messages);
+        inFlightMessages.completed(messages);
+
+        StepVerifier.create(extender.extend(Long.MAX_VALUE)).verifyComplete();
+
+        verify(provider, never()).changeVisibility(anyList(), any());
+    }
+
+    @Test
+    public void shouldNotExtendMessagesFarFromExpiring() {
+        inFlightMessages.received(0, messages(5));
+
+        StepVerifier.create(extender.extend(System.currentTimeMillis())).verifyComplete();
+
+        verify(provider, never()).changeVisibility(anyList(), any());
+    }
+
+    private List<Message> messages(final int numberOfMessages) {
+        return IntStream.range(0, numberOfMessages)
+                .mapToObj(i -> new Message().withMessageId(String.valueOf(i)).withReceiptHandle("receipt-" + i))
+                .collect(Collectors.toList());
+    }
+}
@@ -4,6 +4,11 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
 public class GenericAmazonSQSPropertiesTest {
 
     @Rule
@@ -230,6 +235,119 @@ public class GenericAmazonSQSPropertiesTest {
         properties.validate();
     }
 
+    // minNumberOfPublishers
+    @Test
+    public void shouldBeValidMinNumberOfPublishers() {
+        GenericAmazonSQSProperties properties = new GenericAmazonSQSProperties();
+        properties.setQueueName("any-queue-name");
+        properties.setMinNumberOfPublishers(1);
+
+        properties.validate();
+    }
+
+    @Test
+    public void shouldDefaultMinNumberOfPublishersToNumberOfPublishers() {
+        GenericAmazonSQSProperties properties = new GenericAmazonSQSProperties();
+        properties.setNumberOfPublishers(6);
+
+        assertEquals(Integer.valueOf(6), properties.getMinNumberOfPublishers());
+    }
+
+    @Test
+    public void shouldBeInvalidWhenMinNumberOfPublishersIsLessThanOne() {
+        GenericAmazonSQSProperties properties = new GenericAmazonSQSProperties();
+        properties.setQueueName("any-queue-name");
+        properties.setMinNumberOfPublishers(0);
+
+        expectedException("minNumberOfPublishers");
+
+        properties.validate();
+    }
+
+    @Test
+    public void shouldBeInvalidWhenMinNumberOfPublishersIsGreaterThanNumberOfPublishers() {
+        GenericAmazonSQSProperties properties = new GenericAmazonSQSProperties();
+        properties.setQueueName("any-queue-name");
+        properties.setNumberOfPublishers(2);
+        properties.setMinNumberOfPublishers(3);
+
+        expectedException("minNumberOfPublishers");
+
+        properties.validate();
+    }
+
+    // maxNumberOfPublishers
+    @Test
+    public void shouldBeValidMaxNumberOfPublishers() {
+        GenericAmazonSQSProperties properties = new GenericAmazonSQSProperties();
+        properties.setQueueName("any-queue-name");
+        properties.setMaxNumberOfPublishers(16);
+
+        properties.validate();
+    }
+
+    @Test
+    public void shouldDefaultMaxNumberOfPublishersToNumberOfPublishers() {
+        GenericAmazonSQSProperties properties = new GenericAmazonSQSProperties();
+        properties.setNumberOfPublishers(6);
+
+        assertEquals(Integer.valueOf(6), properties.getMaxNumberOfPublishers());
+    }
+
+    @Test
+    public void shouldBeInvalidWhenMaxNumberOfPublishersIsLessThanNumberOfPublishers() {
+        GenericAmazonSQSProperties properties = new GenericAmazonSQSProperties();
+        properties.setQueueName("any-queue-name");
+        properties.setNumberOfPublishers(4);
+        properties.setMaxNumberOfPublishers(3);
+
+        expectedException("maxNumberOfPublishers");
+
+        properties.validate();
+    }
+
+    // maxInFlightMessages
+    @Test
+    public void shouldBeValidMaxInFlightMessages() {
+        GenericAmazonSQSProperties properties = new GenericAmazonSQSProperties();
+        properties.setQueueName("any-queue-name");
+        properties.setMaxInFlightMessages(10);
+
+        properties.validate();
+    }
+
+    @Test
+    public void shouldDefaultMaxInFlightMessagesTo100() {
+        GenericAmazonSQSProperties properties = new GenericAmazonSQSProperties();
+        properties.setQueueName("any-queue-name");
+        properties.setHandlerBatchSize(50);
+
+        properties.validate();
+        assertEquals(Integer.valueOf(100), properties.getMaxInFlightMessages());
+    }
+
+    @Test
+    public void shouldDefaultMaxInFlightMessagesToTwiceALargerHandlerBatchSize() {
+        GenericAmazonSQSProperties properties = new GenericAmazonSQSProperties();
+        properties.setQueueName("any-queue-name");
+        properties.setHandlerBatchSize(500);
+
+        properties.validate();
+        assertEquals(Integer.valueOf(1000), properties.getMaxInFlightMessages());
+    }
+
+    @Test
+    public void shouldBeInvalidWhenMaxInFlightMessagesIsLessThanMaxNumberOfMessages() {
+        GenericAmazonSQSProperties properties = new GenericAmazonSQSProperties();
+        properties.setQueueName("any-queue-name");
+        properties.setMaxNumberOfMessages(10);
+        properties.setMaxInFlightMessages(9);
+
+        expectedException("maxInFlightMessages");
+
+        properties.validate();
+    }
+
     // autoStart
     @Test
     public void shouldBeValidAutoStart() {
@@ -251,6 +369,472 @@ public class GenericAmazonSQSPropertiesTest {
         properties.validate();
     }
 
+    // visibilityTimeoutSeconds
+    @Test
+    public void shouldBeValidVisibilityTimeoutSeconds() {
+        GenericAmazonSQSProperties properties = new GenericAmazonSQSProperties();
+        properties.setQueueName("any-queue-name");
+        properties.setVisibilityTimeoutSeconds(30);
+
+        properties.validate();
+    }
+
+    @Test
+    public void shouldBeInvalidWhenVisibilityTimeoutSecondsIsLessThanZero() {
+        GenericAmazonSQSProperties properties = new GenericAmazonSQSProperties();
+        properties.setQueueName("any-queue-name");
+        properties.setVisibilityTimeoutSeconds(-1);
+
+        expectedException("visibilityTimeoutSeconds");
+
+        properties.validate();
+    }
+
+    @Test
+    public void shouldBeInvalidWhenVisibilityTimeoutSecondsIsGreaterThanTwelveHours() {
+        GenericAmazonSQSProperties properties = new GenericAmazonSQSProperties();
+        properties.setQueueName("any-queue-name");
+        properties.setVisibilityTimeoutSeconds(43201);
+
+        expectedException("visibilityTimeoutSeconds");
+
+        properties.validate();
+    }
+
+    // extendVisibilityTimeout
+    @Test
+    public void shouldBeValidExtendVisibilityTimeout() {
+        GenericAmazonSQSProperties properties = new GenericAmazonSQSProperties();
+        properties.setQueueName("any-queue-name");
+        properties.setVisibilityTimeoutSeconds(30);
+        properties.setExtendVisibilityTimeout(true);
+
+        properties.validate();
+    }
+
+    @Test
+    public void shouldBeInvalidWhenExtendVisibilityTimeoutIsNull() {
+        GenericAmazonSQSProperties properties = new GenericAmazonSQSProperties();
+        properties.setQueueName("any-queue-name");
+        properties.setExtendVisibilityTimeout(null);
+
+        expectedException("extendVisibilityTimeout");
+
+        properties.validate();
+    }
+
+    @Test
+    public void shouldBeInvalidWhenExtendVisibilityTimeoutWithoutVisibilityTimeoutSeconds() {
+        GenericAmazonSQSProperties properties = new GenericAmazonSQSProperties();
+        properties.setQueueName("any-queue-name");
+        properties.setExtendVisibilityTimeout(true);
+
+        expectedException("extendVisibilityTimeout");
+
+        properties.validate();
+    }
+
+    // asynchronousReceive
+    @Test
+    public void shouldBeValidAsynchronousReceive() {
+        GenericAmazonSQSProperties properties = new GenericAmazonSQSProperties();
+        properties.setQueueName("any-queue-name");
+        properties.setAsynchronousReceive(true);
+
+        properties.validate();
+    }
+
+    @Test
+    public void shouldBeInvalidWhenAsynchronousReceiveIsNull() {
+        GenericAmazonSQSProperties properties = new GenericAmazonSQSProperties();
+        properties.setQueueName("any-queue-name");
+        properties.setAsynchronousReceive(null);
+
+        expectedException("asynchronousReceive");
+
+        properties.validate();
+    }
+
+    // nackPolicy
+    @Test
+    public void shouldBeValidNackPolicy() {
+        GenericAmazonSQSProperties properties = new GenericAmazonSQSProperties();
+        properties.setQueueName("any-queue-name");
+        properties.setNackPolicy(NackPolicy.EXPONENTIAL_BACKOFF);
+
+        properties.validate();
+    }
+
+    @Test
+    public void shouldBeInvalidWhenNackPolicyIsNull() {
+        GenericAmazonSQSProperties properties = new GenericAmazonSQSProperties();
+        properties.setQueueName("any-queue-name");
+        properties.setNackPolicy(null);
+
+        expectedException("nackPolicy");
+
+        properties.validate();
+    }
+
+    // nackDelaySeconds
+    @Test
+    public void shouldBeValidNackDelaySeconds() {
+        GenericAmazonSQSProperties properties = new GenericAmazonSQSProperties();
+        properties.setQueueName("any-queue-name");
+        properties.setNackDelaySeconds(0);
+
+        properties.validate();
+    }
+
+    @Test
+    public void shouldBeInvalidWhenNackDelaySecondsIsNull() {
+        GenericAmazonSQSProperties properties = new GenericAmazonSQSProperties();
+        properties.setQueueName("any-queue-name");
+        properties.setNackDelaySeconds(null);
+
+        expectedException("nackDelaySeconds");
+
+        properties.validate();
+    }
+
+    @Test
+    public void shouldBeInvalidWhenNackDelaySecondsIsLessThanZero() {
+        GenericAmazonSQSProperties properties = new GenericAmazonSQSProperties();
+        properties.setQueueName("any-queue-name");
+        properties.setNackDelaySeconds(-1);
+
+        expectedException("nackDelaySeconds");
+
+        properties.validate();
+    }
+
+    // nackMaxDelaySeconds
+    @Test
+    public void shouldBeValidNackMaxDelaySeconds() {
+        GenericAmazonSQSProperties properties = new GenericAmazonSQSProperties();
+        properties.setQueueName("any-queue-name");
+        properties.setNackMaxDelaySeconds(43200);
+
+        properties.validate();
+    }
+
+    @Test
+    public void shouldBeInvalidWhenNackMaxDelaySecondsIsLessThanNackDelaySeconds() {
+        GenericAmazonSQSProperties properties = new GenericAmazonSQSProperties();
+        properties.setQueueName("any-queue-name");
+        properties.setNackDelaySeconds(60);
+        properties.setNackMaxDelaySeconds(30);
+
+        expectedException("nackMaxDelaySeconds");
+
+        properties.validate();
+    }
+
+    @Test
+    public void shouldBeInvalidWhenNackMaxDelaySecondsIsGreaterThan43200() {
+        GenericAmazonSQSProperties properties = new GenericAmazonSQSProperties();
+        properties.setQueueName("any-queue-name");
+        properties.setNackMaxDelaySeconds(43201);
+
+        expectedException("nackMaxDelaySeconds");
+
+        properties.validate();
+    }
+
+    // deleteMaxDelayMillis
+    @Test
+    public void shouldBeValidDeleteMaxDelayMillis() {
+        GenericAmazonSQSProperties properties = new GenericAmazonSQSProperties();
+        properties.setQueueName("any-queue-name");
+        properties.setDeleteMaxDelayMillis(100);
+
+        properties.validate();
+    }
+
+    @Test
+    public void shouldBeInvalidWhenDeleteMaxDelayMillisIsNull() {
+        GenericAmazonSQSProperties properties = new GenericAmazonSQSProperties();
+        properties.setQueueName("any-queue-name");
+        properties.setDeleteMaxDelayMillis(null);
+
+        expectedException("deleteMaxDelayMillis");
+
+        properties.validate();
+    }
+
+    @Test
+    public void shouldBeInvalidWhenDeleteMaxDelayMillisIsLessThanOne() {
+        GenericAmazonSQSProperties properties = new GenericAmazonSQSProperties();
+        properties.setQueueName("any-queue-name");
+        properties.setDeleteMaxDelayMillis(0);
+
+        expectedException("deleteMaxDelayMillis");
+
+        properties.validate();
+    }
+
+    // deleteConcurrency
+    @Test
+    public void shouldBeValidDeleteConcurrency() {
+        GenericAmazonSQSProperties properties = new GenericAmazonSQSProperties();
+        properties.setQueueName("any-queue-name");
+        properties.setDeleteConcurrency(2);
+
+        properties.validate();
+    }
+
+    @Test
+    public void shouldBeInvalidWhenDeleteConcurrencyIsNull() {
+        GenericAmazonSQSProperties properties = new GenericAmazonSQSProperties();
+        properties.setQueueName("any-queue-name");
+        properties.setDeleteConcurrency(null);
+
+        expectedException("deleteConcurrency");
+
+        properties.validate();
+    }
+
+    @Test
+    public void shouldBeInvalidWhenDeleteConcurrencyIsLessThanOne() {
+        GenericAmazonSQSProperties properties = new GenericAmazonSQSProperties();
+        properties.setQueueName("any-queue-name");
+        properties.setDeleteConcurrency(0);
+
+        expectedException("deleteConcurrency");
+
+        properties.validate();
+    }
+
+    // streamingAcknowledgement
+    @Test
+    public void shouldBeValidStreamingAcknowledgement() {
+        GenericAmazonSQSProperties properties = new GenericAmazonSQSProperties();
+        properties.setQueueName("any-queue-name");
+        properties.setStreamingAcknowledgement(true);
+
+        properties.validate();
+    }
+
+    @Test
+    public void shouldBeInvalidWhenStreamingAcknowledgementIsNull() {
+        GenericAmazonSQSProperties properties = new GenericAmazonSQSProperties();
+        properties.setQueueName("any-queue-name");
+        properties.setStreamingAcknowledgement(null);
+
+        expectedException("streamingAcknowledgement");
+
+        properties.validate();
+    }
+
+    // fifo
+    @Test
+    public void shouldBeValidFifo() {
+        GenericAmazonSQSProperties properties = new GenericAmazonSQSProperties();
+        properties.setQueueName("any-queue-name.fifo");
+        properties.setFifo(true);
+
+        properties.validate();
+    }
+
+    @Test
+    public void shouldBeInvalidWhenFifoIsNull() {
+        GenericAmazonSQSProperties properties = new GenericAmazonSQSProperties();
+        properties.setQueueName("any-queue-name");
+        properties.setFifo(null);
+
+        expectedException("fifo");
+
+        properties.validate();
+    }
+
+    // numberOfLanes
+    @Test
+    public void shouldBeValidNumberOfLanes() {
+        GenericAmazonSQSProperties properties = new GenericAmazonSQSProperties();
+        properties.setQueueName("any-queue-name");
+        properties.setNumberOfLanes(1);
+
+        properties.validate();
+    }
+
+    @Test
+    public void shouldBeInvalidWhenNumberOfLanesIsLessThanOne() {
+        GenericAmazonSQSProperties properties = new GenericAmazonSQSProperties();
+        properties.setQueueName("any-queue-name");
+        properties.setNumberOfLanes(0);
+
+        expectedException("numberOfLanes");
+
+        properties.validate();
+    }
+
+    // handlerBatchSize
+    @Test
+    public void shouldBeValidHandlerBatchSize() {
+        GenericAmazonSQSProperties properties = new GenericAmazonSQSProperties();
+        properties.setQueueName("any-queue-name");
+        properties.setMaxInFlightMessages(500);
+        properties.setHandlerBatchSize(500);
+
+        properties.validate();
+    }
+
+    @Test
+    public void shouldBeInvalidWhenHandlerBatchSizeIsGreaterThanMaxInFlightMessages() {
+        GenericAmazonSQSProperties properties = new GenericAmazonSQSProperties();
+        properties.setQueueName("any-queue-name");
+        properties.setMaxInFlightMessages(100);
+        properties.setHandlerBatchSize(101);
+
+        expectedException("handlerBatchSize");
+
+        properties.validate();
+    }
+
+    @Test
+    public void shouldBeInvalidWhenHandlerBatchSizeIsSetForFifo() {
+        GenericAmazonSQSProperties properties = new GenericAmazonSQSProperties();
+        properties.setQueueName("any-queue-name");
+        properties.setFifo(true);
+        properties.setHandlerBatchSize(50);
+
+        expectedException("handlerBatchSize");
+
+        properties.validate();
+    }
+
+    // handlerBatchMaxDelayMillis
+    @Test
+    public void shouldBeInvalidWhenHandlerBatchMaxDelayMillisIsLessThanOne() {
+        GenericAmazonSQSProperties properties = new GenericAmazonSQSProperties();
+        properties.setQueueName("any-queue-name");
+        properties.setHandlerBatchMaxDelayMillis(0);
+
+        expectedException("handlerBatchMaxDelayMillis");
+
+        properties.validate();
+    }
+
+    // prefetchMessages
+    @Test
+    public void shouldBeValidPrefetchMessages() {
+        GenericAmazonSQSProperties properties = new GenericAmazonSQSProperties();
+        properties.setQueueName("any-queue-name");
+        properties.setPrefetchMessages(50);
+
+        properties.validate();
+    }
+
+    @Test
+    public void shouldBeInvalidWhenPrefetchMessagesIsLessThanMaxNumberOfMessages() {
+        GenericAmazonSQSProperties properties = new GenericAmazonSQSProperties();
+        properties.setQueueName("any-queue-name");
+        properties.setPrefetchMessages(9);
+
+        expectedException("prefetchMessages");
+
+        properties.validate();
+    }
+
+    @Test
+    public void shouldBeInvalidWhenPrefetchMessagesIsGreaterThanMaxInFlightMessages() {
+        GenericAmazonSQSProperties properties = new GenericAmazonSQSProperties();
+        properties.setQueueName("any-queue-name");
+        properties.setPrefetchMessages(101);
+
+        expectedException("prefetchMessages");
+
+        properties.validate();
+    }
+
+    // deduplication
+    @Test
+    public void shouldBeValidDeduplication() {
+        GenericAmazonSQSProperties properties = new GenericAmazonSQSProperties();
+        properties.setQueueName("any-queue-name");
+        properties.setDeduplicationWindowSeconds(3600);
+        properties.setDeduplicationAttribute("eventId");
+
+        properties.validate();
+    }
+
+    @Test
+    public void shouldBeInvalidWhenDeduplicationWindowSecondsIsLessThanOne() {
+        GenericAmazonSQSProperties properties = new GenericAmazonSQSProperties();
+        properties.setQueueName("any-queue-name");
+        properties.setDeduplicationWindowSeconds(0);
+
+        expectedException("deduplicationWindowSeconds");
+
+        properties.validate();
+    }
+
+    @Test
+    public void shouldBeInvalidWhenDeduplicationCacheSizeIsNull() {
+        GenericAmazonSQSProperties properties = new GenericAmazonSQSProperties();
+        properties.setQueueName("any-queue-name");
+        properties.setDeduplicationCacheSize(null);
+
+        expectedException("deduplicationCacheSize");
+
+        properties.validate();
+    }
+
+    // attribute projection
+    @Test
+    public void shouldBeValidAttributeProjection() {
+        GenericAmazonSQSProperties properties = new GenericAmazonSQSProperties();
+        properties.setQueueName("any-queue-name");
+        properties.setMessageAttributeNames(List.of("eventType", "trace.*"));
+        properties.setAttributeNames(List.of("ApproximateFirstReceiveTimestamp"));
+
+        properties.validate();
+    }
+
+    @Test
+    public void shouldBeInvalidWhenMessageAttributeNamesIsNull() {
+        GenericAmazonSQSProperties properties = new GenericAmazonSQSProperties();
+        properties.setQueueName("any-queue-name");
+        properties.setMessageAttributeNames(null);
+
+        expectedException("messageAttributeNames");
+
+        properties.validate();
+    }
+
+    @Test
+    public void shouldBeInvalidWhenAttributeNamesIsNull() {
+        GenericAmazonSQSProperties properties = new GenericAmazonSQSProperties();
+        properties.setQueueName("any-queue-name");
+        properties.setAttributeNames(null);
+
+        expectedException("attributeNames");
+
+        properties.validate();
+    }
+
+    @Test
+    public void shouldBeInvalidWhenMessageAttributeNamesContainNull() {
+        GenericAmazonSQSProperties properties = new GenericAmazonSQSProperties();
+        properties.setQueueName("any-queue-name");
+        properties.setMessageAttributeNames(Arrays.asList("eventType", null));
+
+        expectedException("messageAttributeNames");
+
+        properties.validate();
+    }
+
+    @Test
+    public void shouldBeInvalidWhenAttributeNamesContainNull() {
+        GenericAmazonSQSProperties properties = new GenericAmazonSQSProperties();
+        properties.setQueueName("any-queue-name");
+        properties.setAttributeNames(Arrays.asList("ApproximateFirstReceiveTimestamp", null));
+
+        expectedException("attributeNames");
+
+        properties.validate();
+    }
+
     private void expectedException(final String substring) {
         expectedException.expect(IllegalArgumentException.class);
         expectedException.expectMessage(substring);
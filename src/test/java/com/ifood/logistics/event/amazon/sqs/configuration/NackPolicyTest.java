@@ -0,0 +1,23 @@
+package com.lorem.logistics.event.amazon.sqs.configuration;
+
+import org.junit.Test;
+
+import java.util.OptionalInt;
+
+import static org.junit.Assert.assertEquals;
+
+public class NackPolicyTest {
+
+    @Test
+    public void shouldNotChangeVisibilityWithNone() {
+        assertEquals(OptionalInt.empty(), NackPolicy.NONE.visibilityTimeout(3, 10, 60));
+    }
+
+    @Test
+    public void shouldCalculateVisibilityTimeoutOfEveryNackingPolicy() {
+        assertEquals(OptionalInt.of(0), NackPolicy.IMMEDIATE.visibilityTimeout(3, 10, 60));
+        assertEquals(OptionalInt.of(10), NackPolicy.FIXED_DELAY.visibilityTimeout(3, 10, 60));
+        assertEquals(OptionalInt.of(40), NackPolicy.EXPONENTIAL_BACKOFF.visibilityTimeout(3, 10, 60));
+        assertEquals(OptionalInt.of(60), NackPolicy.EXPONENTIAL_BACKOFF.visibilityTimeout(5, 10, 60));
+    }
+}
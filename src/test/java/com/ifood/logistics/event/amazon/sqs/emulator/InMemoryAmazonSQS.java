@@ -0,0 +1,548 @@
+package com.lorem.logistics.event.amazon.sqs.emulator;
+
+import com.amazonaws.AmazonWebServiceRequest;
+import com.amazonaws.handlers.AsyncHandler;
+import com.amazonaws.services.sqs.AbstractAmazonSQSAsync;
+import com.amazonaws.services.sqs.model.AmazonSQSException;
+import com.amazonaws.services.sqs.model.BatchResultErrorEntry;
+import com.amazonaws.services.sqs.model.ChangeMessageVisibilityBatchRequest;
+import com.amazonaws.services.sqs.model.ChangeMessageVisibilityBatchRequestEntry;
+import com.amazonaws.services.sqs.model.ChangeMessageVisibilityBatchResult;
+import com.amazonaws.services.sqs.model.ChangeMessageVisibilityBatchResultEntry;
+import com.amazonaws.services.sqs.model.ChangeMessageVisibilityRequest;
+import com.amazonaws.services.sqs.model.ChangeMessageVisibilityResult;
+import com.amazonaws.services.sqs.model.CreateQueueRequest;
+import com.amazonaws.services.sqs.model.CreateQueueResult;
+import com.amazonaws.services.sqs.model.DeleteMessageBatchRequest;
+import com.amazonaws.services.sqs.model.DeleteMessageBatchRequestEntry;
+import com.amazonaws.services.sqs.model.DeleteMessageBatchResult;
+import com.amazonaws.services.sqs.model.DeleteMessageBatchResultEntry;
+import com.amazonaws.services.sqs.model.DeleteMessageRequest;
+import com.amazonaws.services.sqs.model.DeleteMessageResult;
+import com.amazonaws.services.sqs.model.DeleteQueueRequest;
+import com.amazonaws.services.sqs.model.DeleteQueueResult;
+import com.amazonaws.services.sqs.model.GetQueueAttributesRequest;
+import com.amazonaws.services.sqs.model.GetQueueAttributesResult;
+import com.amazonaws.services.sqs.model.GetQueueUrlRequest;
+import com.amazonaws.services.sqs.model.GetQueueUrlResult;
+import com.amazonaws.services.sqs.model.ListQueuesRequest;
+import com.amazonaws.services.sqs.model.ListQueuesResult;
+import com.amazonaws.services.sqs.model.Message;
+import com.amazonaws.services.sqs.model.MessageAttributeValue;
+import com.amazonaws.services.sqs.model.MessageSystemAttributeName;
+import com.amazonaws.services.sqs.model.PurgeQueueRequest;
+import com.amazonaws.services.sqs.model.PurgeQueueResult;
+import com.amazonaws.services.sqs.model.QueueAttributeName;
+import com.amazonaws.services.sqs.model.QueueDoesNotExistException;
+import com.amazonaws.services.sqs.model.ReceiveMessageRequest;
+import com.amazonaws.services.sqs.model.ReceiveMessageResult;
+import com.amazonaws.services.sqs.model.SendMessageBatchRequest;
+import com.amazonaws.services.sqs.model.SendMessageBatchRequestEntry;
+import com.amazonaws.services.sqs.model.SendMessageBatchResult;
+import com.amazonaws.services.sqs.model.SendMessageBatchResultEntry;
+import com.amazonaws.services.sqs.model.SendMessageRequest;
+import com.amazonaws.services.sqs.model.SendMessageResult;
+import com.amazonaws.services.sqs.model.SetQueueAttributesRequest;
+import com.amazonaws.services.sqs.model.SetQueueAttributesResult;
+import com.amazonaws.util.BinaryUtils;
+import com.amazonaws.util.Md5Utils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * In-process {@link com.amazonaws.services.sqs.AmazonSQSAsync} emulating SQS queues in memory, for load
+ * and integration tests of consumers without the network. <br>
+ * It emulates long polling, visibility timeouts and their changes, delay seconds, batch sends, deletes and
+ * visibility changes, message and system attributes, redrive to a dead-letter queue after the max receive
+ * count, and FIFO queues, whose messages are received in order per message group, a group being locked
+ * while any of its messages is in flight, and deduplicated by id or content for five minutes. <br>
+ * Queues can be addressed by URL or by name, since consumers are configured with the queue name. Receives,
+ * deletes and visibility changes take the configured latency, and asynchronous calls run on a thread pool of
+ * the client, so cancelling the future of a receive interrupts its long poll. <br>
+ * Operations are O(log n) on the number of messages of the queue, so it scales to millions of messages,
+ * limited by the heap only.
+ */
+public class InMemoryAmazonSQS extends AbstractAmazonSQSAsync {
+
+    private static final String URL_PREFIX = "http://localhost/queue/";
+    private static final String ARN_PREFIX = "arn:aws:sqs:local:000000000000:";
+    private static final String SENDER_ID = "000000000000";
+    private static final int MAX_BATCH_ENTRIES = 10;
+
+    private final ConcurrentMap<String, InMemoryQueue> queues = new ConcurrentHashMap<>();
+    private final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+        final Thread thread = new Thread(runnable, "in-memory-sqs");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final long latencyNanos;
+
+    /**
+     * It constructs an emulator whose calls take no latency.
+     */
+    public InMemoryAmazonSQS() {
+        this(Duration.ZERO);
+    }
+
+    /**
+     * @param latency Latency of each receive, delete and visibility change.
+     */
+    public InMemoryAmazonSQS(final Duration latency) {
+        this.latencyNanos = latency.toNanos();
+    }
+
+    /**
+     * It sends {@code count} messages whose bodies are their sequence, from 0, to a queue, in a single
+     * message group without deduplication if it is FIFO.
+     *
+     * @param queueUrl URL or name of the queue.
+     * @param count Number of messages.
+     */
+    public void sendMessages(final String queueUrl, final int count) {
+        final InMemoryQueue queue = queue(queueUrl);
+        final int delaySeconds = queue.getAttributes().delaySeconds;
+        for (int i = 0; i < count; i++) {
+            queue.send(String.valueOf(i), Collections.emptyMap(), delaySeconds, queue.fifo ? "0" : null, null);
+        }
+    }
+
+    /**
+     * It waits until {@code count} messages were deleted from a queue since it was created.
+     *
+     * @param queueUrl URL or name of the queue.
+     * @param count Number of deleted messages.
+     */
+    public void awaitDeletedMessages(final String queueUrl, final long count) {
+        final InMemoryQueue queue = queue(queueUrl);
+        while (queue.getDeletedMessages() < count) {
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(50));
+        }
+    }
+
+    /**
+     * @param queueUrl URL or name of the queue.
+     * @return Number of messages deleted from the queue since it was created.
+     */
+    public long getNumberOfDeletedMessages(final String queueUrl) {
+        return queue(queueUrl).getDeletedMessages();
+    }
+
+    /**
+     * @param queueUrl URL or name of the queue.
+     * @return Number of visible, in-flight and delayed messages of the queue.
+     */
+    public long getNumberOfMessages(final String queueUrl) {
+        final int[] counts = queue(queueUrl).counts();
+        return counts[0] + counts[1] + counts[2];
+    }
+
+    @Override
+    public CreateQueueResult createQueue(final CreateQueueRequest request) {
+        final String name = request.getQueueName();
+        if (name == null || name.isEmpty() || name.length() > 80) {
+            throw exception("InvalidParameterValue", "Invalid queue name " + name);
+        }
+        final InMemoryQueueAttributes attributes = InMemoryQueueAttributes.create(name, request.getAttributes());
+        final InMemoryQueue queue = queues.computeIfAbsent(name,
+            created -> new InMemoryQueue(created, URL_PREFIX + created, ARN_PREFIX + created, attributes));
+        if (!queue.getAttributes().values.equals(attributes.values)) {
+            throw exception("QueueAlreadyExists", "Queue " + name + " already exists with different attributes");
+        }
+        return new CreateQueueResult().withQueueUrl(queue.url);
+    }
+
+    @Override
+    public DeleteQueueResult deleteQueue(final DeleteQueueRequest request) {
+        queues.remove(queue(request.getQueueUrl()).name).purge();
+        return new DeleteQueueResult();
+    }
+
+    @Override
+    public GetQueueUrlResult getQueueUrl(final GetQueueUrlRequest request) {
+        return new GetQueueUrlResult().withQueueUrl(queue(request.getQueueName()).url);
+    }
+
+    @Override
+    public ListQueuesResult listQueues(final ListQueuesRequest request) {
+        final String prefix = request.getQueueNamePrefix() == null ? "" : request.getQueueNamePrefix();
+        return new ListQueuesResult().withQueueUrls(queues.values()
+                .stream()
+                .filter(queue -> queue.name.startsWith(prefix))
+                .map(queue -> queue.url)
+                .sorted()
+                .collect(Collectors.toList()));
+    }
+
+    @Override
+    public GetQueueAttributesResult getQueueAttributes(final GetQueueAttributesRequest request) {
+        final InMemoryQueue queue = queue(request.getQueueUrl());
+        final int[] counts = queue.counts();
+        final Map<String, String> attributes = new HashMap<>(queue.getAttributes().values);
+        attributes.put(QueueAttributeName.QueueArn.toString(), queue.arn);
+        attributes.put(QueueAttributeName.ApproximateNumberOfMessages.toString(), String.valueOf(counts[0]));
+        attributes.put(QueueAttributeName.ApproximateNumberOfMessagesNotVisible.toString(),
+            String.valueOf(counts[1]));
+        attributes.put(QueueAttributeName.ApproximateNumberOfMessagesDelayed.toString(), String.valueOf(counts[2]));
+        if (queue.fifo) {
+            attributes.put(QueueAttributeName.FifoQueue.toString(), "true");
+        }
+        return new GetQueueAttributesResult().withAttributes(select(attributes, request.getAttributeNames()));
+    }
+
+    @Override
+    public SetQueueAttributesResult setQueueAttributes(final SetQueueAttributesRequest request) {
+        final InMemoryQueue queue = queue(request.getQueueUrl());
+        queue.setAttributes(queue.getAttributes().update(request.getAttributes()));
+        return new SetQueueAttributesResult();
+    }
+
+    @Override
+    public PurgeQueueResult purgeQueue(final PurgeQueueRequest request) {
+        queue(request.getQueueUrl()).purge();
+        return new PurgeQueueResult();
+    }
+
+    @Override
+    public SendMessageResult sendMessage(final SendMessageRequest request) {
+        final InMemoryMessage message = send(queue(request.getQueueUrl()), request.getMessageBody(),
+            request.getMessageAttributes(), request.getDelaySeconds(), request.getMessageGroupId(),
+            request.getMessageDeduplicationId());
+        return new SendMessageResult().withMessageId(message.messageId)
+                .withMD5OfMessageBody(md5(message.body))
+                .withSequenceNumber(sequenceNumber(message));
+    }
+
+    @Override
+    public SendMessageBatchResult sendMessageBatch(final SendMessageBatchRequest request) {
+        final InMemoryQueue queue = queue(request.getQueueUrl());
+        validateBatch(request.getEntries(), SendMessageBatchRequestEntry::getId);
+        final SendMessageBatchResult result = new SendMessageBatchResult();
+        for (final SendMessageBatchRequestEntry entry : request.getEntries()) {
+            try {
+                final InMemoryMessage message = send(queue, entry.getMessageBody(), entry.getMessageAttributes(),
+                    entry.getDelaySeconds(), entry.getMessageGroupId(), entry.getMessageDeduplicationId());
+                result.withSuccessful(new SendMessageBatchResultEntry().withId(entry.getId())
+                        .withMessageId(message.messageId)
+                        .withMD5OfMessageBody(md5(message.body))
+                        .withSequenceNumber(sequenceNumber(message)));
+            } catch (final AmazonSQSException e) {
+                result.withFailed(error(entry.getId(), e));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public ReceiveMessageResult receiveMessage(final ReceiveMessageRequest request) {
+        final InMemoryQueue queue = queue(request.getQueueUrl());
+        final InMemoryQueueAttributes attributes = queue.getAttributes();
+        final int maxNumberOfMessages = request.getMaxNumberOfMessages() == null ? 1 : request.getMaxNumberOfMessages();
+        if (maxNumberOfMessages < 1 || maxNumberOfMessages > MAX_BATCH_ENTRIES) {
+            throw exception("InvalidParameterValue", "MaxNumberOfMessages must be between 1 and 10");
+        }
+        final int waitTimeSeconds = request.getWaitTimeSeconds() == null ? attributes.receiveMessageWaitTimeSeconds
+            : request.getWaitTimeSeconds();
+        final int visibilityTimeoutSeconds = request.getVisibilityTimeout() == null
+            ? attributes.visibilityTimeoutSeconds : request.getVisibilityTimeout();
+        simulateLatency();
+        final List<InMemoryMessage> deadLetters = new ArrayList<>();
+        final List<InMemoryMessage> received;
+        try {
+            received = queue.receive(maxNumberOfMessages, TimeUnit.SECONDS.toMillis(waitTimeSeconds),
+                visibilityTimeoutSeconds, deadLetters);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new ReceiveMessageResult();
+        } finally {
+            redrive(deadLetters, attributes.deadLetterTargetArn);
+        }
+        return new ReceiveMessageResult().withMessages(received.stream()
+                .map(message -> toMessage(message, request.getAttributeNames(), request.getMessageAttributeNames()))
+                .collect(Collectors.toList()));
+    }
+
+    @Override
+    public DeleteMessageResult deleteMessage(final DeleteMessageRequest request) {
+        final InMemoryQueue queue = queue(request.getQueueUrl());
+        simulateLatency();
+        if (!queue.delete(request.getReceiptHandle())) {
+            throw receiptHandleIsInvalid(request.getReceiptHandle());
+        }
+        return new DeleteMessageResult();
+    }
+
+    @Override
+    public DeleteMessageBatchResult deleteMessageBatch(final DeleteMessageBatchRequest request) {
+        final InMemoryQueue queue = queue(request.getQueueUrl());
+        validateBatch(request.getEntries(), DeleteMessageBatchRequestEntry::getId);
+        simulateLatency();
+        final DeleteMessageBatchResult result = new DeleteMessageBatchResult();
+        for (final DeleteMessageBatchRequestEntry entry : request.getEntries()) {
+            if (queue.delete(entry.getReceiptHandle())) {
+                result.withSuccessful(new DeleteMessageBatchResultEntry().withId(entry.getId()));
+            } else {
+                result.withFailed(error(entry.getId(), receiptHandleIsInvalid(entry.getReceiptHandle())));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public ChangeMessageVisibilityResult changeMessageVisibility(final ChangeMessageVisibilityRequest request) {
+        final InMemoryQueue queue = queue(request.getQueueUrl());
+        simulateLatency();
+        changeVisibility(queue, request.getReceiptHandle(), request.getVisibilityTimeout());
+        return new ChangeMessageVisibilityResult();
+    }
+
+    @Override
+    public ChangeMessageVisibilityBatchResult changeMessageVisibilityBatch(
+            final ChangeMessageVisibilityBatchRequest request) {
+        final InMemoryQueue queue = queue(request.getQueueUrl());
+        validateBatch(request.getEntries(), ChangeMessageVisibilityBatchRequestEntry::getId);
+        simulateLatency();
+        final ChangeMessageVisibilityBatchResult result = new ChangeMessageVisibilityBatchResult();
+        for (final ChangeMessageVisibilityBatchRequestEntry entry : request.getEntries()) {
+            try {
+                changeVisibility(queue, entry.getReceiptHandle(), entry.getVisibilityTimeout());
+                result.withSuccessful(new ChangeMessageVisibilityBatchResultEntry().withId(entry.getId()));
+            } catch (final AmazonSQSException e) {
+                result.withFailed(error(entry.getId(), e));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Future<SendMessageResult> sendMessageAsync(final SendMessageRequest request,
+            final AsyncHandler<SendMessageRequest, SendMessageResult> asyncHandler) {
+        return submit(request, asyncHandler, this::sendMessage);
+    }
+
+    @Override
+    public Future<SendMessageBatchResult> sendMessageBatchAsync(final SendMessageBatchRequest request,
+            final AsyncHandler<SendMessageBatchRequest, SendMessageBatchResult> asyncHandler) {
+        return submit(request, asyncHandler, this::sendMessageBatch);
+    }
+
+    @Override
+    public Future<ReceiveMessageResult> receiveMessageAsync(final ReceiveMessageRequest request,
+            final AsyncHandler<ReceiveMessageRequest, ReceiveMessageResult> asyncHandler) {
+        return submit(request, asyncHandler, this::receiveMessage);
+    }
+
+    @Override
+    public Future<DeleteMessageResult> deleteMessageAsync(final DeleteMessageRequest request,
+            final AsyncHandler<DeleteMessageRequest, DeleteMessageResult> asyncHandler) {
+        return submit(request, asyncHandler, this::deleteMessage);
+    }
+
+    @Override
+    public Future<DeleteMessageBatchResult> deleteMessageBatchAsync(final DeleteMessageBatchRequest request,
+            final AsyncHandler<DeleteMessageBatchRequest, DeleteMessageBatchResult> asyncHandler) {
+        return submit(request, asyncHandler, this::deleteMessageBatch);
+    }
+
+    @Override
+    public Future<ChangeMessageVisibilityResult> changeMessageVisibilityAsync(
+            final ChangeMessageVisibilityRequest request,
+            final AsyncHandler<ChangeMessageVisibilityRequest, ChangeMessageVisibilityResult> asyncHandler) {
+        return submit(request, asyncHandler, this::changeMessageVisibility);
+    }
+
+    @Override
+    public Future<ChangeMessageVisibilityBatchResult> changeMessageVisibilityBatchAsync(
+            final ChangeMessageVisibilityBatchRequest request,
+            final AsyncHandler<ChangeMessageVisibilityBatchRequest, ChangeMessageVisibilityBatchResult> asyncHandler) {
+        return submit(request, asyncHandler, this::changeMessageVisibilityBatch);
+    }
+
+    @Override
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    static AmazonSQSException exception(final String errorCode, final String message) {
+        final AmazonSQSException exception = new AmazonSQSException(message);
+        exception.setErrorCode(errorCode);
+        exception.setStatusCode(400);
+        exception.setServiceName("AmazonSQS");
+        return exception;
+    }
+
+    private InMemoryQueue queue(final String queueUrl) {
+        final String name = queueUrl == null ? "" : queueUrl.substring(queueUrl.lastIndexOf('/') + 1);
+        final InMemoryQueue queue = queues.get(name);
+        if (queue == null) {
+            final QueueDoesNotExistException exception =
+                new QueueDoesNotExistException("The specified queue does not exist: " + queueUrl);
+            exception.setErrorCode("AWS.SimpleQueueService.NonExistentQueue");
+            exception.setStatusCode(400);
+            exception.setServiceName("AmazonSQS");
+            throw exception;
+        }
+        return queue;
+    }
+
+    private static InMemoryMessage send(final InMemoryQueue queue, final String body,
+            final Map<String, MessageAttributeValue> messageAttributes, final Integer delaySeconds,
+            final String messageGroupId, final String messageDeduplicationId) {
+        if (body == null || body.isEmpty()) {
+            throw exception("MissingParameter", "The request must contain the parameter MessageBody");
+        }
+        final InMemoryQueueAttributes attributes = queue.getAttributes();
+        String deduplicationId = messageDeduplicationId;
+        if (queue.fifo) {
+            if (messageGroupId == null) {
+                throw exception("MissingParameter", "The request must contain the parameter MessageGroupId");
+            }
+            if (deduplicationId == null && attributes.contentBasedDeduplication) {
+                deduplicationId = md5(body);
+            }
+            if (deduplicationId == null) {
+                throw exception("InvalidParameterValue",
+                    "The queue should either have ContentBasedDeduplication enabled or MessageDeduplicationId "
+                        + "provided");
+            }
+            if (delaySeconds != null && delaySeconds != 0) {
+                throw exception("InvalidParameterValue", "DelaySeconds is not supported per message in FIFO queues");
+            }
+        }
+        final int delay = delaySeconds == null ? attributes.delaySeconds : delaySeconds;
+        return queue.send(body, new HashMap<>(messageAttributes), delay, queue.fifo ? messageGroupId : null,
+            queue.fifo ? deduplicationId : null);
+    }
+
+    private void redrive(final List<InMemoryMessage> deadLetters, final String deadLetterTargetArn) {
+        if (deadLetters.isEmpty()) {
+            return;
+        }
+        final InMemoryQueue deadLetterQueue = queues.get(deadLetterTargetArn.substring(ARN_PREFIX.length()));
+        if (deadLetterQueue != null) {
+            deadLetters.forEach(deadLetterQueue::redrive);
+        }
+    }
+
+    private static void changeVisibility(final InMemoryQueue queue, final String receiptHandle,
+            final Integer visibilityTimeout) {
+        if (visibilityTimeout == null || visibilityTimeout < 0 || visibilityTimeout > 43_200) {
+            throw exception("InvalidParameterValue", "VisibilityTimeout must be between 0 and 43200");
+        }
+        if (!queue.changeVisibility(receiptHandle, visibilityTimeout)) {
+            throw exception("MessageNotInflight", "Message of receipt handle " + receiptHandle + " isn't in flight");
+        }
+    }
+
+    private static Message toMessage(final InMemoryMessage message, final Collection<String> attributeNames,
+            final Collection<String> messageAttributeNames) {
+        final Map<String, String> attributes = new HashMap<>();
+        attributes.put(MessageSystemAttributeName.SenderId.toString(), SENDER_ID);
+        attributes.put(MessageSystemAttributeName.SentTimestamp.toString(), String.valueOf(message.sentTimestamp));
+        attributes.put(MessageSystemAttributeName.ApproximateReceiveCount.toString(),
+            String.valueOf(message.receiveCount));
+        attributes.put(MessageSystemAttributeName.ApproximateFirstReceiveTimestamp.toString(),
+            String.valueOf(message.firstReceiveTimestamp));
+        if (message.messageGroupId != null) {
+            attributes.put(MessageSystemAttributeName.MessageGroupId.toString(), message.messageGroupId);
+            attributes.put(MessageSystemAttributeName.MessageDeduplicationId.toString(),
+                message.messageDeduplicationId);
+            attributes.put(MessageSystemAttributeName.SequenceNumber.toString(), sequenceNumber(message));
+        }
+        return new Message().withMessageId(message.messageId)
+                .withReceiptHandle(message.receiptHandle)
+                .withBody(message.body)
+                .withMD5OfBody(md5(message.body))
+                .withAttributes(select(attributes, attributeNames))
+                .withMessageAttributes(select(message.messageAttributes, messageAttributeNames));
+    }
+
+    /**
+     * It selects the entries named in {@code names}, which select every entry if {@code All} or {@code .*},
+     * and entries by prefix if ending in {@code .*}.
+     */
+    private static <T> Map<String, T> select(final Map<String, T> entries, final Collection<String> names) {
+        if (names.contains("All") || names.contains(".*")) {
+            return new HashMap<>(entries);
+        }
+        return entries.entrySet()
+                .stream()
+                .filter(entry -> names.stream()
+                        .anyMatch(name -> name.equals(entry.getKey())
+                            || name.endsWith(".*") && entry.getKey().startsWith(name.substring(0, name.length() - 2))))
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+    }
+
+    private static <T> void validateBatch(final List<T> entries, final Function<T, String> id) {
+        if (entries.isEmpty()) {
+            throw exception("AWS.SimpleQueueService.EmptyBatchRequest", "The batch request doesn't contain entries");
+        }
+        if (entries.size() > MAX_BATCH_ENTRIES) {
+            throw exception("AWS.SimpleQueueService.TooManyEntriesInBatchRequest",
+                "The batch request contains more than 10 entries");
+        }
+        if (entries.stream().map(id).distinct().count() < entries.size()) {
+            throw exception("AWS.SimpleQueueService.BatchEntryIdsNotDistinct",
+                "Two or more batch entries have the same id");
+        }
+    }
+
+    private static BatchResultErrorEntry error(final String id, final AmazonSQSException exception) {
+        return new BatchResultErrorEntry().withId(id)
+                .withCode(exception.getErrorCode())
+                .withMessage(exception.getErrorMessage())
+                .withSenderFault(true);
+    }
+
+    private static AmazonSQSException receiptHandleIsInvalid(final String receiptHandle) {
+        return exception("ReceiptHandleIsInvalid", "The receipt handle " + receiptHandle + " is invalid");
+    }
+
+    private static String sequenceNumber(final InMemoryMessage message) {
+        return message.messageGroupId == null ? null : String.format("%020d", message.sequenceNumber);
+    }
+
+    private static String md5(final String value) {
+        return BinaryUtils.toHex(Md5Utils.computeMD5Hash(value.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private <Q extends AmazonWebServiceRequest, R> Future<R> submit(final Q request,
+            final AsyncHandler<Q, R> asyncHandler, final Function<Q, R> call) {
+        return executor.submit(() -> {
+            final R result;
+            try {
+                result = call.apply(request);
+            } catch (final RuntimeException e) {
+                if (asyncHandler != null) {
+                    asyncHandler.onError(e);
+                }
+                throw e;
+            }
+            if (asyncHandler != null) {
+                asyncHandler.onSuccess(request, result);
+            }
+            return result;
+        });
+    }
+
+    private void simulateLatency() {
+        if (latencyNanos > 0) {
+            LockSupport.parkNanos(latencyNanos);
+        }
+    }
+}
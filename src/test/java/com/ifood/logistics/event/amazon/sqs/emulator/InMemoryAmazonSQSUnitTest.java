@@ -0,0 +1,225 @@
+package com.lorem.logistics.event.amazon.sqs.emulator;
+
+import com.amazonaws.services.sqs.model.ChangeMessageVisibilityBatchRequestEntry;
+import com.amazonaws.services.sqs.model.CreateQueueRequest;
+import com.amazonaws.services.sqs.model.DeleteMessageBatchRequestEntry;
+import com.amazonaws.services.sqs.model.DeleteMessageBatchResult;
+import com.amazonaws.services.sqs.model.Message;
+import com.amazonaws.services.sqs.model.MessageAttributeValue;
+import com.amazonaws.services.sqs.model.MessageSystemAttributeName;
+import com.amazonaws.services.sqs.model.QueueAttributeName;
+import com.amazonaws.services.sqs.model.QueueDoesNotExistException;
+import com.amazonaws.services.sqs.model.ReceiveMessageRequest;
+import com.amazonaws.services.sqs.model.ReceiveMessageResult;
+import com.amazonaws.services.sqs.model.SendMessageRequest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class InMemoryAmazonSQSUnitTest {
+
+    private InMemoryAmazonSQS amazonSQS;
+
+    @Before
+    public void before() {
+        amazonSQS = new InMemoryAmazonSQS();
+    }
+
+    @After
+    public void after() {
+        amazonSQS.shutdown();
+    }
+
+    @Test
+    public void shouldHideReceivedMessagesUntilTheirVisibilityTimeout() {
+        final String queueUrl = amazonSQS.createQueue("queue").getQueueUrl();
+        amazonSQS.sendMessage(queueUrl, "body");
+
+        final List<Message> received = receive(queueUrl, 10, 30);
+
+        assertEquals(1, received.size());
+        assertEquals("body", received.get(0).getBody());
+        assertEquals(0, receive(queueUrl, 10, 30).size());
+        assertEquals("0", amazonSQS.getQueueAttributes(queueUrl, List.of("ApproximateNumberOfMessages"))
+                .getAttributes()
+                .get("ApproximateNumberOfMessages"));
+        assertEquals("1", amazonSQS.getQueueAttributes(queueUrl, List.of("All"))
+                .getAttributes()
+                .get("ApproximateNumberOfMessagesNotVisible"));
+    }
+
+    @Test
+    public void shouldRedeliverMessagesAfterTheirVisibilityTimeoutCountingReceives() {
+        final String queueUrl = amazonSQS.createQueue("queue").getQueueUrl();
+        amazonSQS.sendMessage(queueUrl, "body");
+
+        final Message first = receive(queueUrl, 10, 0).get(0);
+        final Message second = receive(queueUrl, 10, 0).get(0);
+
+        assertEquals(first.getMessageId(), second.getMessageId());
+        assertEquals("1", first.getAttributes().get(MessageSystemAttributeName.ApproximateReceiveCount.toString()));
+        assertEquals("2", second.getAttributes().get(MessageSystemAttributeName.ApproximateReceiveCount.toString()));
+    }
+
+    @Test
+    public void shouldMakeMessagesVisibleWhenTheirVisibilityChanges() {
+        final String queueUrl = amazonSQS.createQueue("queue").getQueueUrl();
+        amazonSQS.sendMessage(queueUrl, "body");
+        final Message message = receive(queueUrl, 10, 30).get(0);
+
+        amazonSQS.changeMessageVisibilityBatch(queueUrl, List.of(new ChangeMessageVisibilityBatchRequestEntry("1",
+            message.getReceiptHandle()).withVisibilityTimeout(0)));
+
+        assertEquals(message.getMessageId(), receive(queueUrl, 10, 30).get(0).getMessageId());
+    }
+
+    @Test
+    public void shouldDeleteMessagesInBatchFailingInvalidReceiptHandles() {
+        final String queueUrl = amazonSQS.createQueue("queue").getQueueUrl();
+        amazonSQS.sendMessage(queueUrl, "first");
+        amazonSQS.sendMessage(queueUrl, "second");
+        final List<Message> received = receive(queueUrl, 10, 30);
+
+        final DeleteMessageBatchResult result = amazonSQS.deleteMessageBatch(queueUrl,
+            List.of(new DeleteMessageBatchRequestEntry("1", received.get(0).getReceiptHandle()),
+                new DeleteMessageBatchRequestEntry("2", received.get(1).getReceiptHandle()),
+                new DeleteMessageBatchRequestEntry("3", "invalid")));
+
+        assertEquals(2, result.getSuccessful().size());
+        assertEquals("3", result.getFailed().get(0).getId());
+        assertEquals("ReceiptHandleIsInvalid", result.getFailed().get(0).getCode());
+        assertEquals(2, amazonSQS.getNumberOfDeletedMessages(queueUrl));
+        assertEquals(0, amazonSQS.getNumberOfMessages(queueUrl));
+    }
+
+    @Test
+    public void shouldDeleteMessagesVisibleAgain() {
+        final String queueUrl = amazonSQS.createQueue("queue").getQueueUrl();
+        amazonSQS.sendMessage(queueUrl, "first");
+        amazonSQS.sendMessage(queueUrl, "second");
+        final List<Message> received = receive(queueUrl, 10, 0);
+        assertEquals("2", amazonSQS.getQueueAttributes(queueUrl, List.of("ApproximateNumberOfMessages"))
+                .getAttributes()
+                .get("ApproximateNumberOfMessages"));
+
+        amazonSQS.deleteMessage(queueUrl, received.get(0).getReceiptHandle());
+
+        assertEquals(1, amazonSQS.getNumberOfMessages(queueUrl));
+        assertEquals(List.of("second"), bodies(receive(queueUrl, 10, 30)));
+    }
+
+    @Test
+    public void shouldReturnRequestedAttributesOnly() {
+        final String queueUrl = amazonSQS.createQueue("queue").getQueueUrl();
+        amazonSQS.sendMessage(new SendMessageRequest(queueUrl, "body")
+                .addMessageAttributesEntry("type", new MessageAttributeValue().withDataType("String")
+                        .withStringValue("created"))
+                .addMessageAttributesEntry("origin", new MessageAttributeValue().withDataType("String")
+                        .withStringValue("test")));
+
+        final Message message = amazonSQS.receiveMessage(new ReceiveMessageRequest(queueUrl)
+                .withAttributeNames(MessageSystemAttributeName.SentTimestamp.toString())
+                .withMessageAttributeNames("ty.*")).getMessages().get(0);
+
+        assertEquals(List.of(MessageSystemAttributeName.SentTimestamp.toString()),
+            List.copyOf(message.getAttributes().keySet()));
+        assertEquals("created", message.getMessageAttributes().get("type").getStringValue());
+        assertEquals(1, message.getMessageAttributes().size());
+    }
+
+    @Test
+    public void shouldRedriveMessagesReceivedMoreThanTheMaxReceiveCount() {
+        final String deadLetterQueueUrl = amazonSQS.createQueue("queue-dlq").getQueueUrl();
+        final String deadLetterQueueArn =
+            amazonSQS.getQueueAttributes(deadLetterQueueUrl, List.of(QueueAttributeName.QueueArn.toString()))
+                    .getAttributes()
+                    .get(QueueAttributeName.QueueArn.toString());
+        final String queueUrl = amazonSQS.createQueue(new CreateQueueRequest("queue").addAttributesEntry(
+            QueueAttributeName.RedrivePolicy.toString(),
+            "{\"maxReceiveCount\":\"2\",\"deadLetterTargetArn\":\"" + deadLetterQueueArn + "\"}")).getQueueUrl();
+        amazonSQS.sendMessage(queueUrl, "body");
+
+        assertEquals(1, receive(queueUrl, 10, 0).size());
+        assertEquals(1, receive(queueUrl, 10, 0).size());
+        assertEquals(0, receive(queueUrl, 10, 0).size());
+
+        final Message redriven = receive(deadLetterQueueUrl, 10, 30).get(0);
+        assertEquals("body", redriven.getBody());
+        assertEquals("1", redriven.getAttributes().get(MessageSystemAttributeName.ApproximateReceiveCount.toString()));
+        assertEquals(0, amazonSQS.getNumberOfMessages(queueUrl));
+    }
+
+    @Test
+    public void shouldReceiveFifoMessagesInOrderLockingGroupsInFlight() {
+        final String queueUrl = amazonSQS.createQueue(new CreateQueueRequest("queue.fifo")
+                .addAttributesEntry(QueueAttributeName.FifoQueue.toString(), "true")
+                .addAttributesEntry(QueueAttributeName.ContentBasedDeduplication.toString(), "true")).getQueueUrl();
+        for (int i = 0; i < 3; i++) {
+            amazonSQS.sendMessage(new SendMessageRequest(queueUrl, "a" + i).withMessageGroupId("a"));
+            amazonSQS.sendMessage(new SendMessageRequest(queueUrl, "b" + i).withMessageGroupId("b"));
+        }
+
+        assertEquals(List.of("a0", "a1"), bodies(receive(queueUrl, 2, 30)));
+        assertEquals(List.of("b0", "b1", "b2"), bodies(receive(queueUrl, 10, 30)));
+        assertEquals(List.of(), bodies(receive(queueUrl, 10, 30)));
+    }
+
+    @Test
+    public void shouldDeduplicateFifoMessages() {
+        final String queueUrl = amazonSQS.createQueue(new CreateQueueRequest("queue.fifo")
+                .addAttributesEntry(QueueAttributeName.ContentBasedDeduplication.toString(), "true")).getQueueUrl();
+
+        final String first =
+            amazonSQS.sendMessage(new SendMessageRequest(queueUrl, "body").withMessageGroupId("a")).getMessageId();
+        final String second =
+            amazonSQS.sendMessage(new SendMessageRequest(queueUrl, "body").withMessageGroupId("b")).getMessageId();
+
+        assertEquals(first, second);
+        assertEquals(1, amazonSQS.getNumberOfMessages(queueUrl));
+    }
+
+    @Test(timeout = 5000)
+    public void shouldLongPollUntilAMessageIsSent() throws Exception {
+        final String queueUrl = amazonSQS.createQueue("queue").getQueueUrl();
+
+        final Future<ReceiveMessageResult> result =
+            amazonSQS.receiveMessageAsync(new ReceiveMessageRequest(queueUrl).withWaitTimeSeconds(20));
+        TimeUnit.MILLISECONDS.sleep(100);
+        amazonSQS.sendMessage(queueUrl, "body");
+
+        assertEquals("body", result.get().getMessages().get(0).getBody());
+    }
+
+    @Test(expected = QueueDoesNotExistException.class)
+    public void shouldFailOnQueuesThatDoNotExist() {
+        amazonSQS.receiveMessage("queue");
+    }
+
+    @Test
+    public void shouldAddressQueuesByName() {
+        amazonSQS.createQueue("queue");
+        amazonSQS.sendMessages("queue", 3);
+
+        assertTrue(amazonSQS.getQueueUrl("queue").getQueueUrl().endsWith("/queue"));
+        assertEquals(List.of("0", "1", "2"), bodies(receive("queue", 10, 30)));
+    }
+
+    private List<Message> receive(final String queueUrl, final int maxNumberOfMessages,
+            final int visibilityTimeoutSeconds) {
+        return amazonSQS.receiveMessage(new ReceiveMessageRequest(queueUrl).withMaxNumberOfMessages(maxNumberOfMessages)
+                .withVisibilityTimeout(visibilityTimeoutSeconds)
+                .withAttributeNames("All")).getMessages();
+    }
+
+    private static List<String> bodies(final List<Message> messages) {
+        return messages.stream().map(Message::getBody).collect(Collectors.toList());
+    }
+}
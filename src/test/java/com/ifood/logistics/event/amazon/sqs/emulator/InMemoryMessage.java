@@ -0,0 +1,39 @@
+package com.lorem.logistics.event.amazon.sqs.emulator;
+
+import com.amazonaws.services.sqs.model.MessageAttributeValue;
+
+import java.util.Map;
+
+/**
+ * State of a message stored by an {@link InMemoryQueue}, guarded by the lock of its queue.
+ */
+final class InMemoryMessage {
+
+    final String messageId;
+    final String body;
+    final Map<String, MessageAttributeValue> messageAttributes;
+    final long sentTimestamp;
+    final String messageGroupId;
+    final String messageDeduplicationId;
+    final long sequenceNumber;
+
+    int receiveCount;
+    long firstReceiveTimestamp;
+    String receiptHandle;
+    long generation;
+    boolean inFlight;
+    boolean delayed;
+    boolean deleted;
+
+    InMemoryMessage(final String messageId, final String body,
+            final Map<String, MessageAttributeValue> messageAttributes, final long sentTimestamp,
+            final String messageGroupId, final String messageDeduplicationId, final long sequenceNumber) {
+        this.messageId = messageId;
+        this.body = body;
+        this.messageAttributes = messageAttributes;
+        this.sentTimestamp = sentTimestamp;
+        this.messageGroupId = messageGroupId;
+        this.messageDeduplicationId = messageDeduplicationId;
+        this.sequenceNumber = sequenceNumber;
+    }
+}
@@ -0,0 +1,386 @@
+package com.lorem.logistics.event.amazon.sqs.emulator;
+
+import com.amazonaws.services.sqs.model.MessageAttributeValue;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A queue of {@link InMemoryAmazonSQS}. <br>
+ * Visible messages wait in arrival order, or per message group in sequence order for FIFO queues, while
+ * delayed and in-flight messages wait in a priority queue by the time they become visible again. Changing
+ * the visibility of a message bumps its generation, so its previous entries in the priority queue are
+ * skipped instead of being searched and removed. Likewise, a deleted message is skipped once it's taken from
+ * the visible messages rather than removed from them. Every operation takes the lock of the queue, and long
+ * polling receives wait on its condition until a message becomes visible.
+ */
+final class InMemoryQueue {
+
+    private static final long DEDUPLICATION_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+    final String name;
+    final String url;
+    final String arn;
+    final boolean fifo;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition visible = lock.newCondition();
+    private final Map<String, InMemoryMessage> messages = new HashMap<>();
+    private final Queue<InMemoryMessage> available = new ArrayDeque<>();
+    private final Map<String, PriorityQueue<InMemoryMessage>> availableGroups = new LinkedHashMap<>();
+    private final Map<String, Integer> inFlightGroups = new HashMap<>();
+    private final PriorityQueue<Invisible> invisible =
+        new PriorityQueue<>(Comparator.comparingLong(entry -> entry.visibleAt));
+    private final Map<String, DeduplicatedMessage> deduplication = new LinkedHashMap<>();
+    private final AtomicLong deletedMessages = new AtomicLong();
+
+    private volatile InMemoryQueueAttributes attributes;
+    private long sequenceNumber;
+    private int availableCount;
+    private int inFlightCount;
+    private int delayedCount;
+
+    InMemoryQueue(final String name, final String url, final String arn, final InMemoryQueueAttributes attributes) {
+        this.name = name;
+        this.url = url;
+        this.arn = arn;
+        this.fifo = attributes.fifo;
+        this.attributes = attributes;
+    }
+
+    InMemoryQueueAttributes getAttributes() {
+        return attributes;
+    }
+
+    void setAttributes(final InMemoryQueueAttributes attributes) {
+        this.attributes = attributes;
+    }
+
+    /**
+     * It stores a message, returning the one already stored with the same deduplication id within the
+     * deduplication interval, if any.
+     */
+    InMemoryMessage send(final String body, final Map<String, MessageAttributeValue> messageAttributes,
+            final int delaySeconds, final String messageGroupId, final String messageDeduplicationId) {
+        lock.lock();
+        try {
+            final long now = System.currentTimeMillis();
+            if (messageDeduplicationId != null) {
+                evictDeduplication(now);
+                final DeduplicatedMessage duplicate = deduplication.get(messageDeduplicationId);
+                if (duplicate != null) {
+                    return duplicate.message;
+                }
+            }
+            final InMemoryMessage message = new InMemoryMessage(UUID.randomUUID().toString(), body,
+                messageAttributes, now, messageGroupId, messageDeduplicationId, ++sequenceNumber);
+            if (messageDeduplicationId != null) {
+                deduplication.put(messageDeduplicationId,
+                    new DeduplicatedMessage(message, now + DEDUPLICATION_INTERVAL_MILLIS));
+            }
+            store(message, delaySeconds, now);
+            return message;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * It stores a message moved from the queue it was redriven from, keeping its id and attributes.
+     */
+    void redrive(final InMemoryMessage redriven) {
+        lock.lock();
+        try {
+            store(new InMemoryMessage(redriven.messageId, redriven.body, redriven.messageAttributes,
+                redriven.sentTimestamp, redriven.messageGroupId, redriven.messageDeduplicationId, ++sequenceNumber), 0,
+                System.currentTimeMillis());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * It receives up to {@code maxNumberOfMessages} messages, waiting up to {@code waitMillis} for one to
+     * be visible. Messages received more than the max receive count of the redrive policy are removed and
+     * added to {@code deadLetters} instead of being received.
+     */
+    List<InMemoryMessage> receive(final int maxNumberOfMessages, final long waitMillis,
+            final int visibilityTimeoutSeconds, final List<InMemoryMessage> deadLetters)
+            throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(waitMillis);
+        lock.lockInterruptibly();
+        try {
+            final List<InMemoryMessage> received = new ArrayList<>();
+            while (true) {
+                final long now = System.currentTimeMillis();
+                makeVisible(now);
+                takeAvailable(maxNumberOfMessages, visibilityTimeoutSeconds, now, received, deadLetters);
+                final long remaining = deadline - System.nanoTime();
+                if (!received.isEmpty() || remaining <= 0) {
+                    return received;
+                }
+                visible.awaitNanos(Math.min(remaining, nanosUntilNextVisible(now)));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * It deletes the message of the receipt handle. Deleting a message already deleted succeeds.
+     *
+     * @return If the receipt handle is valid.
+     */
+    boolean delete(final String receiptHandle) {
+        final String messageId = messageId(receiptHandle);
+        if (messageId == null) {
+            return false;
+        }
+        lock.lock();
+        try {
+            final InMemoryMessage message = messages.remove(messageId);
+            if (message != null) {
+                remove(message);
+                deletedMessages.incrementAndGet();
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * It makes the in-flight message of the receipt handle visible after {@code visibilityTimeoutSeconds},
+     * counted from now.
+     *
+     * @return If the message of the receipt handle is in flight.
+     */
+    boolean changeVisibility(final String receiptHandle, final int visibilityTimeoutSeconds) {
+        final String messageId = messageId(receiptHandle);
+        if (messageId == null) {
+            return false;
+        }
+        lock.lock();
+        try {
+            final InMemoryMessage message = messages.get(messageId);
+            if (message == null || !message.inFlight || !receiptHandle.equals(message.receiptHandle)) {
+                return false;
+            }
+            final long now = System.currentTimeMillis();
+            message.generation++;
+            invisible.add(new Invisible(message, now + TimeUnit.SECONDS.toMillis(visibilityTimeoutSeconds)));
+            makeVisible(now);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void purge() {
+        lock.lock();
+        try {
+            messages.values().forEach(message -> message.deleted = true);
+            messages.clear();
+            available.clear();
+            availableGroups.clear();
+            inFlightGroups.clear();
+            invisible.clear();
+            availableCount = 0;
+            inFlightCount = 0;
+            delayedCount = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return Number of visible, in-flight and delayed messages.
+     */
+    int[] counts() {
+        lock.lock();
+        try {
+            makeVisible(System.currentTimeMillis());
+            return new int[] { availableCount, inFlightCount, delayedCount };
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    long getDeletedMessages() {
+        return deletedMessages.get();
+    }
+
+    private void store(final InMemoryMessage message, final int delaySeconds, final long now) {
+        messages.put(message.messageId, message);
+        if (delaySeconds > 0) {
+            message.delayed = true;
+            delayedCount++;
+            invisible.add(new Invisible(message, now + TimeUnit.SECONDS.toMillis(delaySeconds)));
+        } else {
+            makeAvailable(message);
+        }
+    }
+
+    private void makeAvailable(final InMemoryMessage message) {
+        availableCount++;
+        if (fifo) {
+            availableGroups
+                    .computeIfAbsent(message.messageGroupId,
+                        group -> new PriorityQueue<>(Comparator.comparingLong(queued -> queued.sequenceNumber)))
+                    .add(message);
+        } else {
+            available.add(message);
+        }
+        visible.signal();
+    }
+
+    private void makeVisible(final long now) {
+        while (!invisible.isEmpty() && invisible.peek().visibleAt <= now) {
+            final Invisible entry = invisible.poll();
+            final InMemoryMessage message = entry.message;
+            if (message.deleted || message.generation != entry.generation) {
+                continue;
+            }
+            if (message.inFlight) {
+                leaveFlight(message);
+            } else {
+                message.delayed = false;
+                delayedCount--;
+            }
+            makeAvailable(message);
+        }
+    }
+
+    private void takeAvailable(final int maxNumberOfMessages, final int visibilityTimeoutSeconds, final long now,
+            final List<InMemoryMessage> received, final List<InMemoryMessage> deadLetters) {
+        final int maxReceiveCount = attributes.maxReceiveCount;
+        if (!fifo) {
+            while (received.size() < maxNumberOfMessages && !available.isEmpty()) {
+                final InMemoryMessage message = available.poll();
+                if (message.deleted) {
+                    continue;
+                }
+                availableCount--;
+                take(message, maxReceiveCount, visibilityTimeoutSeconds, now, received, deadLetters);
+            }
+            return;
+        }
+        final Iterator<Map.Entry<String, PriorityQueue<InMemoryMessage>>> groups =
+            availableGroups.entrySet().iterator();
+        while (received.size() < maxNumberOfMessages && groups.hasNext()) {
+            final Map.Entry<String, PriorityQueue<InMemoryMessage>> group = groups.next();
+            if (inFlightGroups.containsKey(group.getKey())) {
+                continue;
+            }
+            final PriorityQueue<InMemoryMessage> groupMessages = group.getValue();
+            while (received.size() < maxNumberOfMessages && !groupMessages.isEmpty()) {
+                final InMemoryMessage message = groupMessages.poll();
+                if (message.deleted) {
+                    continue;
+                }
+                availableCount--;
+                take(message, maxReceiveCount, visibilityTimeoutSeconds, now, received, deadLetters);
+            }
+            if (groupMessages.isEmpty()) {
+                groups.remove();
+            }
+        }
+    }
+
+    private void take(final InMemoryMessage message, final int maxReceiveCount, final int visibilityTimeoutSeconds,
+            final long now, final List<InMemoryMessage> received, final List<InMemoryMessage> deadLetters) {
+        if (maxReceiveCount > 0 && message.receiveCount >= maxReceiveCount) {
+            messages.remove(message.messageId);
+            message.deleted = true;
+            deadLetters.add(message);
+            return;
+        }
+        message.receiveCount++;
+        if (message.firstReceiveTimestamp == 0) {
+            message.firstReceiveTimestamp = now;
+        }
+        message.generation++;
+        message.receiptHandle = message.messageId + "#" + message.generation;
+        message.inFlight = true;
+        inFlightCount++;
+        if (fifo) {
+            inFlightGroups.merge(message.messageGroupId, 1, Integer::sum);
+        }
+        invisible.add(new Invisible(message, now + TimeUnit.SECONDS.toMillis(visibilityTimeoutSeconds)));
+        received.add(message);
+    }
+
+    private void remove(final InMemoryMessage message) {
+        message.deleted = true;
+        if (message.inFlight) {
+            leaveFlight(message);
+            visible.signal();
+        } else if (message.delayed) {
+            delayedCount--;
+        } else {
+            availableCount--;
+        }
+    }
+
+    private void leaveFlight(final InMemoryMessage message) {
+        message.inFlight = false;
+        inFlightCount--;
+        if (fifo) {
+            inFlightGroups.computeIfPresent(message.messageGroupId, (group, count) -> count == 1 ? null : count - 1);
+        }
+    }
+
+    private long nanosUntilNextVisible(final long now) {
+        return invisible.isEmpty() ? Long.MAX_VALUE
+            : TimeUnit.MILLISECONDS.toNanos(Math.max(1, invisible.peek().visibleAt - now));
+    }
+
+    private void evictDeduplication(final long now) {
+        final Iterator<DeduplicatedMessage> iterator = deduplication.values().iterator();
+        while (iterator.hasNext() && iterator.next().expiresAt <= now) {
+            iterator.remove();
+        }
+    }
+
+    private static String messageId(final String receiptHandle) {
+        final int separator = receiptHandle == null ? -1 : receiptHandle.lastIndexOf('#');
+        return separator <= 0 ? null : receiptHandle.substring(0, separator);
+    }
+
+    private static final class Invisible {
+
+        private final InMemoryMessage message;
+        private final long generation;
+        private final long visibleAt;
+
+        private Invisible(final InMemoryMessage message, final long visibleAt) {
+            this.message = message;
+            this.generation = message.generation;
+            this.visibleAt = visibleAt;
+        }
+    }
+
+    private static final class DeduplicatedMessage {
+
+        private final InMemoryMessage message;
+        private final long expiresAt;
+
+        private DeduplicatedMessage(final InMemoryMessage message, final long expiresAt) {
+            this.message = message;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.lorem.logistics.event.amazon.sqs.emulator;
+
+import com.amazonaws.services.sqs.model.AmazonSQSException;
+import com.amazonaws.services.sqs.model.QueueAttributeName;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Attributes of an {@link InMemoryQueue}, parsed from the attributes it was created or last updated with.
+ */
+final class InMemoryQueueAttributes {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    final Map<String, String> values;
+    final boolean fifo;
+    final boolean contentBasedDeduplication;
+    final int visibilityTimeoutSeconds;
+    final int receiveMessageWaitTimeSeconds;
+    final int delaySeconds;
+    final int maxReceiveCount;
+    final String deadLetterTargetArn;
+
+    private InMemoryQueueAttributes(final Map<String, String> values, final boolean fifo) {
+        this.values = Collections.unmodifiableMap(values);
+        this.fifo = fifo;
+        this.contentBasedDeduplication =
+            Boolean.parseBoolean(values.get(QueueAttributeName.ContentBasedDeduplication.toString()));
+        this.visibilityTimeoutSeconds = integer(values, QueueAttributeName.VisibilityTimeout, 30, 43_200);
+        this.receiveMessageWaitTimeSeconds =
+            integer(values, QueueAttributeName.ReceiveMessageWaitTimeSeconds, 0, 20);
+        this.delaySeconds = integer(values, QueueAttributeName.DelaySeconds, 0, 900);
+        final String redrivePolicy = values.get(QueueAttributeName.RedrivePolicy.toString());
+        if (redrivePolicy == null || redrivePolicy.isEmpty()) {
+            this.maxReceiveCount = 0;
+            this.deadLetterTargetArn = null;
+        } else {
+            final JsonNode policy = parse(redrivePolicy);
+            this.maxReceiveCount = policy.path("maxReceiveCount").asInt();
+            this.deadLetterTargetArn = policy.path("deadLetterTargetArn").asText(null);
+            if (maxReceiveCount < 1 || deadLetterTargetArn == null) {
+                throw invalidAttribute(QueueAttributeName.RedrivePolicy.toString());
+            }
+        }
+    }
+
+    /**
+     * It parses the attributes a queue is created with, which is FIFO if its name ends with {@code .fifo}.
+     */
+    static InMemoryQueueAttributes create(final String queueName, final Map<String, String> attributes) {
+        final boolean fifo = queueName.endsWith(".fifo");
+        final String fifoQueue = attributes.get(QueueAttributeName.FifoQueue.toString());
+        if (fifoQueue != null && Boolean.parseBoolean(fifoQueue) != fifo) {
+            throw invalidAttribute(QueueAttributeName.FifoQueue.toString());
+        }
+        return new InMemoryQueueAttributes(new HashMap<>(attributes), fifo);
+    }
+
+    /**
+     * It parses these attributes updated by {@code attributes}.
+     */
+    InMemoryQueueAttributes update(final Map<String, String> attributes) {
+        if (attributes.containsKey(QueueAttributeName.FifoQueue.toString())) {
+            throw invalidAttribute(QueueAttributeName.FifoQueue.toString());
+        }
+        final Map<String, String> updated = new HashMap<>(values);
+        updated.putAll(attributes);
+        return new InMemoryQueueAttributes(updated, fifo);
+    }
+
+    private static int integer(final Map<String, String> values, final QueueAttributeName name,
+            final int defaultValue, final int max) {
+        final String value = values.get(name.toString());
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            final int parsed = Integer.parseInt(value);
+            if (parsed < 0 || parsed > max) {
+                throw invalidAttribute(name.toString());
+            }
+            return parsed;
+        } catch (final NumberFormatException e) {
+            throw invalidAttribute(name.toString());
+        }
+    }
+
+    private static JsonNode parse(final String redrivePolicy) {
+        try {
+            return OBJECT_MAPPER.readTree(redrivePolicy);
+        } catch (final IOException e) {
+            throw invalidAttribute(QueueAttributeName.RedrivePolicy.toString());
+        }
+    }
+
+    static AmazonSQSException invalidAttribute(final String name) {
+        return InMemoryAmazonSQS.exception("InvalidAttributeValue", "Invalid value for the parameter " + name);
+    }
+}
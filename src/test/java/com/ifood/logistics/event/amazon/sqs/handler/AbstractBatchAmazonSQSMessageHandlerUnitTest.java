@@ -0,0 +1,81 @@
+package com.lorem.logistics.event.amazon.sqs.handler;
+
+import com.amazonaws.services.sqs.model.Message;
+import org.junit.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class AbstractBatchAmazonSQSMessageHandlerUnitTest {
+
+    private final Message first = new Message().withMessageId("first").withBody("ok");
+    private final Message second = new Message().withMessageId("second").withBody("fail");
+    private final Message third = new Message().withMessageId("third").withBody("ok");
+    private final List<Message> messages = Arrays.asList(first, second, third);
+
+    @Test
+    public void shouldFailTheMessagesFailedByTheHandler() {
+        final AbstractBatchAmazonSQSMessageHandler handler = new AbstractBatchAmazonSQSMessageHandler() {
+
+            @Override
+            protected Mono<List<Message>> handleBatch(final List<Message> messages) {
+                return Mono.just(List.of(second));
+            }
+        };
+
+        StepVerifier.create(handler.handle(messages))
+                .expectNext(Arrays.asList(MessageDecorator.withSuccess(first), MessageDecorator.withFail(second),
+                    MessageDecorator.withSuccess(third)))
+                .verifyComplete();
+    }
+
+    @Test
+    public void shouldSucceedEveryMessageWhenNoneFailed() {
+        final AbstractBatchAmazonSQSMessageHandler handler = new AbstractBatchAmazonSQSMessageHandler() {
+
+            @Override
+            protected Mono<List<Message>> handleBatch(final List<Message> messages) {
+                return Mono.empty();
+            }
+        };
+
+        StepVerifier.create(handler.handle(messages))
+                .expectNext(Arrays.asList(MessageDecorator.withSuccess(first), MessageDecorator.withSuccess(second),
+                    MessageDecorator.withSuccess(third)))
+                .verifyComplete();
+    }
+
+    @Test
+    public void shouldFailEveryMessageWhenTheHandlerFails() {
+        final AbstractBatchAmazonSQSMessageHandler handler = new AbstractBatchAmazonSQSMessageHandler() {
+
+            @Override
+            protected Mono<List<Message>> handleBatch(final List<Message> messages) {
+                return Mono.error(new IllegalStateException("failed"));
+            }
+        };
+
+        StepVerifier.create(handler.handle(messages))
+                .expectNext(Arrays.asList(MessageDecorator.withFail(first), MessageDecorator.withFail(second),
+                    MessageDecorator.withFail(third)))
+                .verifyComplete();
+    }
+
+    @Test
+    public void shouldFailOnlyTheFailedDeliveryOfAMessageDeliveredTwiceInTheBatch() {
+        final Message redelivered = new Message().withMessageId("second").withBody("fail").withReceiptHandle("2");
+        final AbstractBatchAmazonSQSMessageHandler handler = new AbstractBatchAmazonSQSMessageHandler() {
+
+            @Override
+            protected Mono<List<Message>> handleBatch(final List<Message> messages) {
+                return Mono.just(List.of(second));
+            }
+        };
+
+        StepVerifier.create(handler.handle(Arrays.asList(second, redelivered)))
+                .expectNext(Arrays.asList(MessageDecorator.withFail(second), MessageDecorator.withSuccess(redelivered)))
+                .verifyComplete();
+    }
+}
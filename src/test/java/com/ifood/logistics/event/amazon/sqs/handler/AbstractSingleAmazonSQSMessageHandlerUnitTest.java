@@ -0,0 +1,51 @@
+package com.lorem.logistics.event.amazon.sqs.handler;
+
+import com.amazonaws.services.sqs.model.Message;
+import org.junit.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import reactor.util.context.Context;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class AbstractSingleAmazonSQSMessageHandlerUnitTest {
+
+    private final Message slow = new Message().withMessageId("slow").withBody("200");
+    private final Message fast = new Message().withMessageId("fast").withBody("50");
+    private final Message failed = new Message().withMessageId("failed").withBody("fail");
+    private final List<Message> messages = Arrays.asList(slow, fast, failed);
+
+    private final AbstractSingleAmazonSQSMessageHandler handler = new AbstractSingleAmazonSQSMessageHandler() {
+
+        @Override
+        protected Mono<Void> handleMessage(final Message message) {
+            if ("fail".equals(message.getBody())) {
+                return Mono.error(new IllegalStateException("failed"));
+            }
+            return Mono.delay(Duration.ofMillis(Long.parseLong(message.getBody()))).then();
+        }
+    };
+
+    @Test
+    public void shouldEmitHandledMessagesTogether() {
+        StepVerifier.create(handler.handle(messages))
+                .expectNextMatches(decorators -> decorators.size() == 3
+                        && decorators.get(2).equals(MessageDecorator.withSuccess(slow)))
+                .verifyComplete();
+    }
+
+    @Test
+    public void shouldStreamHandledMessages() {
+        StepVerifier
+                .create(handler.handle(messages)
+                        .subscriberContext(
+                            Context.of(AbstractSingleAmazonSQSMessageHandler.STREAMING_ACKNOWLEDGEMENT, true)))
+                .expectNext(Collections.singletonList(MessageDecorator.withFail(failed)))
+                .expectNext(Collections.singletonList(MessageDecorator.withSuccess(fast)))
+                .expectNext(Collections.singletonList(MessageDecorator.withSuccess(slow)))
+                .verifyComplete();
+    }
+}
@@ -0,0 +1,75 @@
+package com.lorem.logistics.event.amazon.sqs.handler;
+
+import com.amazonaws.services.sqs.model.Message;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+public class AbstractTypedAmazonSQSMessageHandlerUnitTest {
+
+    private static final String PAYLOAD = "{\"orderId\":\"42\",\"status\":\"DELIVERED\"}";
+    private static final String ENVELOPE = "{\"Type\":\"Notification\",\"MessageId\":\"1\",\"TopicArn\":\"arn\","
+        + "\"MessageAttributes\":{\"type\":{\"Type\":\"String\",\"Value\":\"order\"}},\"Message\":"
+        + "\"{\\\"orderId\\\":\\\"42\\\",\\\"status\\\":\\\"DELIVERED\\\"}\",\"Timestamp\":\"2019-01-01T00:00:00Z\"}";
+
+    private final List<Map<String, String>> payloads = Collections.synchronizedList(new ArrayList<>());
+
+    @Test
+    public void shouldHandleDeserializedBodies() {
+        final Message message = new Message().withMessageId("1").withBody(PAYLOAD);
+
+        StepVerifier.create(handler(false).handle(Collections.singletonList(message)))
+                .expectNext(Collections.singletonList(MessageDecorator.withSuccess(message)))
+                .verifyComplete();
+
+        assertEquals(List.of(Map.of("orderId", "42", "status", "DELIVERED")), payloads);
+    }
+
+    @Test
+    public void shouldUnwrapSnsEnvelopes() {
+        final Message enveloped = new Message().withMessageId("1").withBody(ENVELOPE);
+        final Message raw = new Message().withMessageId("2").withBody(PAYLOAD);
+
+        StepVerifier.create(handler(true).handle(Arrays.asList(enveloped, raw)))
+                .expectNextMatches(decorators -> decorators.size() == 2
+                        && decorators.stream().allMatch(MessageDecorator::isSuccessfullyProcessed))
+                .verifyComplete();
+
+        assertEquals(List.of(Map.of("orderId", "42", "status", "DELIVERED"),
+            Map.of("orderId", "42", "status", "DELIVERED")), payloads);
+    }
+
+    @Test
+    public void shouldFailMessagesThatCanNotBeDeserialized() {
+        final Message message = new Message().withMessageId("1").withBody("{\"orderId\":");
+
+        StepVerifier.create(handler(true).handle(Collections.singletonList(message)))
+                .expectNext(Collections.singletonList(MessageDecorator.withFail(message)))
+                .verifyComplete();
+
+        assertEquals(List.of(), payloads);
+    }
+
+    private AbstractTypedAmazonSQSMessageHandler<Map<String, String>> handler(final boolean unwrapSnsEnvelope) {
+        return new AbstractTypedAmazonSQSMessageHandler<>(
+            new JacksonMessageDeserializer<>(new ObjectMapper(), new TypeReference<Map<String, String>>() {
+            }), unwrapSnsEnvelope) {
+
+            @Override
+            protected Mono<Void> handlePayload(final Map<String, String> payload, final Message message) {
+                payloads.add(payload);
+                return Mono.empty();
+            }
+        };
+    }
+}
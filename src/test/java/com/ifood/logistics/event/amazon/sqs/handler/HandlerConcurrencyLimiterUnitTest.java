@@ -0,0 +1,74 @@
+package com.lorem.logistics.event.amazon.sqs.handler;
+
+import com.amazonaws.services.sqs.model.Message;
+import com.lorem.logistics.event.metrics.EventMetrics;
+import org.junit.Before;
+import org.junit.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoProcessor;
+import reactor.test.StepVerifier;
+import reactor.util.context.Context;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+
+public class HandlerConcurrencyLimiterUnitTest {
+
+    private HandlerConcurrencyLimiter limiter;
+
+    @Before
+    public void before() {
+        limiter = new HandlerConcurrencyLimiter(1, new EventMetrics("test"));
+    }
+
+    @Test
+    public void shouldWaitForRunningInvocation() {
+        final MonoProcessor<Void> first = MonoProcessor.create();
+        limiter.limit(() -> first).subscribe();
+
+        StepVerifier.create(limiter.limit(() -> Mono.just("second")))
+                .expectSubscription()
+                .expectNoEvent(Duration.ofMillis(50))
+                .then(first::onComplete)
+                .expectNext("second")
+                .verifyComplete();
+
+        assertEquals(0, limiter.getActive());
+    }
+
+    @Test
+    public void shouldGiveBackPermitOfCancelledInvocation() {
+        limiter.limit(Mono::never).subscribe().dispose();
+
+        StepVerifier.create(limiter.limit(() -> Mono.just("next"))).expectNext("next").verifyComplete();
+    }
+
+    @Test
+    public void shouldBoundSingleMessageHandlerInvocations() {
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        final AbstractSingleAmazonSQSMessageHandler handler = new AbstractSingleAmazonSQSMessageHandler() {
+
+            @Override
+            protected Mono<Void> handleMessage(final Message message) {
+                return Mono.fromRunnable(() -> maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max))
+                        .delayElement(Duration.ofMillis(10))
+                        .doFinally(signalType -> running.decrementAndGet())
+                        .then();
+            }
+        };
+        final List<Message> messages = Arrays.asList(new Message(), new Message(), new Message());
+
+        StepVerifier
+                .create(handler.handle(messages)
+                        .subscriberContext(Context.of(HandlerConcurrencyLimiter.class, limiter)))
+                .expectNextMatches(decorators -> decorators.size() == 3)
+                .verifyComplete();
+
+        assertEquals(1, maxRunning.get());
+    }
+}
@@ -0,0 +1,65 @@
+package com.lorem.logistics.event.benchmark;
+
+import com.lorem.logistics.event.metrics.EventMetrics;
+import com.lorem.logistics.event.metrics.LatencyHistogram;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.profile.InternalProfiler;
+import org.openjdk.jmh.results.AggregationPolicy;
+import org.openjdk.jmh.results.IterationResult;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.ScalarResult;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * JMH profiler reporting the p99 of the handle latency and of the message age of the consumer under
+ * benchmark, see {@link #profile(EventMetrics)}, as secondary results averaged over the iterations. <br>
+ * The benchmark resets the latency histograms at the start of each iteration, so each iteration reports
+ * the p99 of its own messages. It's enabled by adding {@code -prof} followed by the name of this class to
+ * the arguments of {@code org.openjdk.jmh.Main}.
+ */
+public class ConsumerLatencyProfiler implements InternalProfiler {
+
+    private static final String[] HISTOGRAMS = { "SQS handle latency", "SQS message age" };
+
+    private static volatile EventMetrics eventMetrics;
+
+    /**
+     * It sets the metrics of the consumer under benchmark.
+     *
+     * @param metrics Metrics of the consumer.
+     */
+    static void profile(final EventMetrics metrics) {
+        eventMetrics = metrics;
+    }
+
+    @Override
+    public String getDescription() {
+        return "p99 of the handle latency and message age of the consumer under benchmark";
+    }
+
+    @Override
+    public void beforeIteration(final BenchmarkParams benchmarkParams, final IterationParams iterationParams) {
+    }
+
+    @Override
+    public Collection<? extends Result> afterIteration(final BenchmarkParams benchmarkParams,
+            final IterationParams iterationParams, final IterationResult result) {
+        final List<Result> results = new ArrayList<>();
+        final EventMetrics metrics = eventMetrics;
+        if (metrics == null) {
+            return results;
+        }
+        for (final String histogramName : HISTOGRAMS) {
+            final LatencyHistogram histogram = metrics.latencies().get(histogramName);
+            if (histogram != null) {
+                results.add(new ScalarResult(histogramName + " p99", histogram.getPercentileMicros(99) / 1000.0,
+                    "ms", AggregationPolicy.AVG));
+            }
+        }
+        return results;
+    }
+}
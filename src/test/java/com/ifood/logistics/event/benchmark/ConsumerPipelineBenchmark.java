@@ -0,0 +1,138 @@
+package com.lorem.logistics.event.benchmark;
+
+import com.amazonaws.services.sqs.model.Message;
+import com.lorem.logistics.event.amazon.sqs.AmazonSQSConsumer;
+import com.lorem.logistics.event.amazon.sqs.configuration.GenericAmazonSQSProperties;
+import com.lorem.logistics.event.amazon.sqs.emulator.InMemoryAmazonSQS;
+import com.lorem.logistics.event.amazon.sqs.handler.AbstractMultipleAmazonSQSMessageHandler;
+import com.lorem.logistics.event.amazon.sqs.handler.AbstractSingleAmazonSQSMessageHandler;
+import com.lorem.logistics.event.amazon.sqs.handler.AmazonSQSMessageHandler;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the whole consumer pipeline, from receive to delete, against an {@link InMemoryAmazonSQS}
+ * whose calls take {@code latencyMillis}. Each invocation sends a backlog of {@code backlog} messages, set
+ * e.g. by {@code -p backlog=10000}, and waits until all of them are deleted, so the primary score is in
+ * backlogs per second and the {@code messages} secondary result in messages per second. <br>
+ * The p99 of the handle latency and of the message age, from send to delete, of each iteration are
+ * reported by the {@link ConsumerLatencyProfiler}, and the allocation rate by the gc profiler. <br>
+ * Run with {@code mvn -P benchmark test -Dbenchmark=ConsumerPipelineBenchmark}, adding {@code -prof gc} and
+ * {@code -prof com.lorem.logistics.event.benchmark.ConsumerLatencyProfiler} to the arguments of
+ * {@code org.openjdk.jmh.Main}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ConsumerPipelineBenchmark {
+
+    private static final String QUEUE_NAME = "benchmark";
+
+    @Param({ "1000" })
+    private int backlog;
+
+    @Param({ "1", "4" })
+    private int publishers;
+
+    @Param({ "1", "10" })
+    private int batchSize;
+
+    @Param({ "single", "multiple" })
+    private String handler;
+
+    @Param({ "0", "5" })
+    private int latencyMillis;
+
+    private InMemoryAmazonSQS amazonSQS;
+    private AmazonSQSConsumer consumer;
+
+    @Setup
+    public void setup() {
+        final GenericAmazonSQSProperties properties = new GenericAmazonSQSProperties();
+        properties.setQueueName(QUEUE_NAME);
+        properties.setNumberOfPublishers(publishers);
+        properties.setMaxNumberOfMessages(batchSize);
+        properties.setWaitTimeSeconds(1);
+        properties.setMaxInFlightMessages(backlog);
+        properties.setAutoStart(false);
+
+        amazonSQS = new InMemoryAmazonSQS(Duration.ofMillis(latencyMillis));
+        amazonSQS.createQueue(QUEUE_NAME);
+        consumer = new AmazonSQSConsumer(amazonSQS, properties, createHandler());
+        consumer.start();
+        ConsumerLatencyProfiler.profile(consumer.getMetrics());
+    }
+
+    @Setup(Level.Iteration)
+    public void resetLatencies() {
+        consumer.getMetrics().snapshotAndReset();
+    }
+
+    @TearDown
+    public void tearDown() {
+        consumer.stop();
+        amazonSQS.shutdown();
+    }
+
+    @Benchmark
+    public void consumeBacklog(final Messages messages) {
+        final long deleted = amazonSQS.getNumberOfDeletedMessages(QUEUE_NAME) + backlog;
+        amazonSQS.sendMessages(QUEUE_NAME, backlog);
+        amazonSQS.awaitDeletedMessages(QUEUE_NAME, deleted);
+        messages.messages += backlog;
+    }
+
+    private AmazonSQSMessageHandler createHandler() {
+        if ("single".equals(handler)) {
+            return new AbstractSingleAmazonSQSMessageHandler() {
+
+                @Override
+                protected Mono<Void> handleMessage(final Message message) {
+                    return Mono.empty();
+                }
+            };
+        }
+        return new AbstractMultipleAmazonSQSMessageHandler() {
+
+            @Override
+            protected Mono<Void> handleMessages(final List<Message> messages) {
+                return Mono.empty();
+            }
+        };
+    }
+
+    /**
+     * Messages consumed, reported per second.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Messages {
+
+        public long messages;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            messages = 0;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.lorem.logistics.event.benchmark;
+
+import com.lorem.logistics.event.metrics.Counter;
+import com.lorem.logistics.event.metrics.EventMetrics;
+import com.lorem.logistics.event.metrics.Timer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of a metric update from 64 threads, looking the metric up by name versus through its handle.
+ * <br>
+ * Run with {@code mvn -P benchmark test -Dbenchmark=EventMetricsBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Threads(64)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class EventMetricsBenchmark {
+
+    private static final String METRIC = "SQS deleted messages";
+    private static final String HISTOGRAM = "SQS delete latency";
+
+    private EventMetrics eventMetrics;
+    private Counter counter;
+    private Timer timer;
+
+    @Setup
+    public void setup() {
+        eventMetrics = new EventMetrics("benchmark");
+        counter = eventMetrics.counter(METRIC);
+        timer = eventMetrics.timer(HISTOGRAM);
+    }
+
+    @Benchmark
+    public void addToMetricByName() {
+        eventMetrics.addToMetric(METRIC, 10);
+    }
+
+    @Benchmark
+    public void addToCounterHandle() {
+        counter.add(10);
+    }
+
+    @Benchmark
+    public void recordLatencyByName() {
+        eventMetrics.recordLatency(HISTOGRAM, 1500, TimeUnit.MICROSECONDS);
+    }
+
+    @Benchmark
+    public void recordTimerHandle() {
+        timer.record(1500, TimeUnit.MICROSECONDS);
+    }
+}
@@ -0,0 +1,139 @@
+package com.lorem.logistics.event.benchmark;
+
+import com.amazonaws.services.sqs.model.Message;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lorem.logistics.event.amazon.sqs.handler.AbstractSingleAmazonSQSMessageHandler;
+import com.lorem.logistics.event.amazon.sqs.handler.AbstractTypedAmazonSQSMessageHandler;
+import com.lorem.logistics.event.amazon.sqs.handler.AmazonSQSMessageHandler;
+import com.lorem.logistics.event.amazon.sqs.handler.JacksonMessageDeserializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Cost of handling a batch of {@value #BATCH_SIZE} JSON messages, raw or wrapped in SNS envelopes, per
+ * message:
+ * <ul>
+ * <li>{@code none}, a handler not reading the body, as the baseline of the handling itself;</li>
+ * <li>{@code tree}, a handler reading the body as a tree, and the message of the SNS envelope again, through
+ * the object mapper;</li>
+ * <li>{@code typed}, an {@link AbstractTypedAmazonSQSMessageHandler} with a {@link JacksonMessageDeserializer},
+ * streaming through the SNS envelope.</li>
+ * </ul>
+ * Run with {@code mvn -P benchmark test -Dbenchmark=MessageDeserializationBenchmark}, adding {@code -prof gc} to
+ * the arguments of {@code org.openjdk.jmh.Main} for the allocation rate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class MessageDeserializationBenchmark {
+
+    private static final int BATCH_SIZE = 10;
+    private static final String PAYLOAD = "{\"orderId\":\"%d\",\"merchantId\":\"b2f4c8e0\",\"status\":\"DELIVERED\","
+        + "\"latitude\":-23.5505,\"longitude\":-46.6333,\"items\":[\"burger\",\"fries\",\"soda\"]}";
+    private static final String ENVELOPE = "{\"Type\":\"Notification\",\"MessageId\":\"%d\","
+        + "\"TopicArn\":\"arn:aws:sns:us-east-1:000000000000:orders\",\"Message\":%s,"
+        + "\"Timestamp\":\"2019-01-01T00:00:00.000Z\",\"SignatureVersion\":\"1\",\"Signature\":\"c2lnbmF0dXJl\"}";
+
+    @Param({ "raw", "sns" })
+    private String body;
+
+    @Param({ "none", "tree", "typed" })
+    private String handler;
+
+    private List<Message> messages;
+    private AmazonSQSMessageHandler messageHandler;
+
+    @Setup
+    public void setup(final Blackhole blackhole) {
+        final ObjectMapper objectMapper = new ObjectMapper();
+        messages = IntStream.range(0, BATCH_SIZE).mapToObj(i -> {
+            final String payload = String.format(PAYLOAD, i);
+            return new Message().withMessageId(String.valueOf(i))
+                    .withBody("raw".equals(body) ? payload : envelope(objectMapper, i, payload));
+        }).collect(Collectors.toList());
+        messageHandler = createHandler(objectMapper, blackhole);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public Object handle() {
+        return messageHandler.handle(messages).blockLast();
+    }
+
+    private AmazonSQSMessageHandler createHandler(final ObjectMapper objectMapper, final Blackhole blackhole) {
+        if ("typed".equals(handler)) {
+            return new AbstractTypedAmazonSQSMessageHandler<Order>(
+                new JacksonMessageDeserializer<>(objectMapper, Order.class), true) {
+
+                @Override
+                protected Mono<Void> handlePayload(final Order payload, final Message message) {
+                    blackhole.consume(payload);
+                    return Mono.empty();
+                }
+            };
+        }
+        return new AbstractSingleAmazonSQSMessageHandler() {
+
+            @Override
+            protected Mono<Void> handleMessage(final Message message) {
+                blackhole.consume("tree".equals(handler) ? readTree(objectMapper, message.getBody()) : message);
+                return Mono.empty();
+            }
+        };
+    }
+
+    private static Order readTree(final ObjectMapper objectMapper, final String body) {
+        try {
+            final JsonNode node = objectMapper.readTree(body);
+            final JsonNode message = node.get("Message");
+            return message == null ? objectMapper.treeToValue(node, Order.class)
+                : objectMapper.readValue(message.asText(), Order.class);
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String envelope(final ObjectMapper objectMapper, final int id, final String payload) {
+        try {
+            return String.format(ENVELOPE, id, objectMapper.writeValueAsString(payload));
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Payload of the benchmarked messages.
+     */
+    public static class Order {
+
+        public String orderId;
+        public String merchantId;
+        public String status;
+        public double latitude;
+        public double longitude;
+        public List<String> items;
+    }
+}
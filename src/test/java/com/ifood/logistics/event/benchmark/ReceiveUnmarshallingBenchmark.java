@@ -0,0 +1,100 @@
+package com.lorem.logistics.event.benchmark;
+
+import com.amazonaws.services.sqs.model.ReceiveMessageResult;
+import com.amazonaws.services.sqs.model.transform.ReceiveMessageResultStaxUnmarshaller;
+import com.amazonaws.transform.StaxUnmarshallerContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.xml.stream.XMLInputFactory;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of unmarshalling a receive response of {@value #BATCH_SIZE} messages, per message, depending on the
+ * attributes requested:
+ * <ul>
+ * <li>{@code all}, all system and message attributes, as requested by default before the projection was
+ * configurable, about 1.5 kB per message;</li>
+ * <li>{@code projected}, only {@code SentTimestamp} and the message attribute the handler reads, about 0.6 kB
+ * per message.</li>
+ * </ul>
+ * Run with {@code mvn -P benchmark test -Dbenchmark=ReceiveUnmarshallingBenchmark}, adding {@code -prof gc} to
+ * the arguments of {@code org.openjdk.jmh.Main} for the allocation rate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ReceiveUnmarshallingBenchmark {
+
+    private static final int BATCH_SIZE = 10;
+    private static final String BODY = "{\"orderId\":\"%d\",\"merchantId\":\"b2f4c8e0\",\"status\":\"DELIVERED\"}";
+    private static final Map<String, String> SYSTEM_ATTRIBUTES = Map.of("SenderId", "AIDAIENQZJOLO23YVJ4VO",
+        "ApproximateFirstReceiveTimestamp", "1546300800123", "ApproximateReceiveCount", "1", "SentTimestamp",
+        "1546300800000");
+    private static final Map<String, String> MESSAGE_ATTRIBUTES = Map.of("eventType", "OrderDelivered",
+        "eventId", "5f0c6a2e-8d1b-4c3a-9e7f-2b6d4a8c1e3f", "traceId", "1-5c2ba580-4f7e2a6b9c1d3e5f7a9b2c4d",
+        "origin", "logistics-dispatcher", "schemaVersion", "3");
+
+    @Param({ "all", "projected" })
+    private String projection;
+
+    private byte[] response;
+    private XMLInputFactory xmlInputFactory;
+
+    @Setup
+    public void setup() throws Exception {
+        final StringBuilder xml = new StringBuilder("<ReceiveMessageResponse><ReceiveMessageResult>");
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            xml.append("<Message><MessageId>").append(i).append("</MessageId>")
+                    .append("<ReceiptHandle>AQEBwJnKyrHigUMZj6rYigCgxlaS3SLy0a").append(i).append("</ReceiptHandle>")
+                    .append("<MD5OfBody>fafb00f5732ab283681e124bf8747ed1</MD5OfBody>")
+                    .append("<Body>").append(String.format(BODY, i).replace("\"", "&quot;")).append("</Body>");
+            SYSTEM_ATTRIBUTES.forEach((name, value) -> {
+                if ("all".equals(projection) || "SentTimestamp".equals(name)) {
+                    xml.append("<Attribute><Name>").append(name).append("</Name><Value>").append(value)
+                            .append("</Value></Attribute>");
+                }
+            });
+            xml.append("<MD5OfMessageAttributes>d25a6aea97eb8f585bfa92d314504a92</MD5OfMessageAttributes>");
+            MESSAGE_ATTRIBUTES.forEach((name, value) -> {
+                if ("all".equals(projection) || "eventType".equals(name)) {
+                    xml.append("<MessageAttribute><Name>").append(name).append("</Name><Value><StringValue>")
+                            .append(value)
+                            .append("</StringValue><DataType>String</DataType></Value></MessageAttribute>");
+                }
+            });
+            xml.append("</Message>");
+        }
+        xml.append("</ReceiveMessageResult><ResponseMetadata><RequestId>b6633655-283d-45b4-aee4-4e84e0ae6afa")
+                .append("</RequestId></ResponseMetadata></ReceiveMessageResponse>");
+        response = xml.toString().getBytes(StandardCharsets.UTF_8);
+        xmlInputFactory = XMLInputFactory.newInstance();
+        if (unmarshall().getMessages().size() != BATCH_SIZE) {
+            throw new IllegalStateException("Benchmarked response must have " + BATCH_SIZE + " messages");
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public ReceiveMessageResult unmarshall() throws Exception {
+        return ReceiveMessageResultStaxUnmarshaller.getInstance()
+                .unmarshall(new StaxUnmarshallerContext(
+                    xmlInputFactory.createXMLEventReader(new ByteArrayInputStream(response))));
+    }
+}
@@ -0,0 +1,137 @@
+package com.lorem.logistics.event.metrics;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class EventMetricsUnitTest {
+
+    private final EventMetrics metrics = new EventMetrics("test");
+
+    @Test
+    public void shouldSnapshotIntervalDeltas() throws InterruptedException {
+        metrics.addToMetric("received", 10);
+        metrics.recordLatency("handle", 5, TimeUnit.MILLISECONDS);
+        Thread.sleep(20);
+
+        final MetricsSnapshot first = metrics.snapshotAndReset();
+        metrics.addToMetric("received", 3);
+        final MetricsSnapshot second = metrics.snapshotAndReset();
+
+        assertEquals(10L, (long) first.getMetrics().get("received"));
+        assertEquals(1, first.getLatencies().get("handle").getCount());
+        assertEquals(3L, (long) second.getMetrics().get("received"));
+        assertEquals(0, second.getLatencies().get("handle").getCount());
+        assertEquals(first.getEnd(), second.getStart());
+        assertFalse(first.getInterval().isNegative());
+        assertEquals(13L, (long) metrics.sum().get("received"));
+    }
+
+    @Test
+    public void shouldComputeRatesPerSecond() throws InterruptedException {
+        metrics.addToMetric("received", 100);
+        Thread.sleep(50);
+
+        final MetricsSnapshot snapshot = metrics.snapshotAndReset();
+
+        final double expected = 100 * 1e9 / snapshot.getInterval().toNanos();
+        assertEquals(expected, snapshot.getRatePerSecond("received"), 0.001);
+        assertEquals(expected, snapshot.getRatesPerSecond().get("received"), 0.001);
+        assertEquals(0, snapshot.getRatePerSecond("deleted"), 0);
+        assertTrue(snapshot.getRatePerSecond("received") <= 2000);
+    }
+
+    @Test
+    public void shouldReadGaugesAtSnapshot() {
+        metrics.registerGauge("in-flight", () -> 7);
+
+        assertEquals(7L, (long) metrics.snapshotAndReset().getGauges().get("in-flight"));
+    }
+
+    @Test
+    public void shouldUpdateMetricsThroughHandles() {
+        final Counter counter = metrics.counter("received");
+        final Timer timer = metrics.timer("handle");
+        final Gauge gauge = metrics.gauge("in-flight");
+
+        counter.add(5);
+        metrics.incrementMetric("received");
+        timer.record(2, TimeUnit.MILLISECONDS);
+        gauge.set(3);
+        gauge.add(-1);
+
+        final MetricsSnapshot snapshot = metrics.snapshotAndReset();
+        assertEquals(6L, (long) snapshot.getMetrics().get("received"));
+        assertEquals(1, snapshot.getLatencies().get("handle").getCount());
+        assertEquals(2L, (long) snapshot.getGauges().get("in-flight"));
+
+        counter.increment();
+        assertEquals(7, counter.sum());
+        assertEquals(7L, (long) metrics.sum().get("received"));
+    }
+
+    @Test
+    public void shouldKeepTotalsAcrossSnapshots() {
+        metrics.addToMetric("received", 10);
+        metrics.snapshotAndReset();
+        metrics.addToMetric("received", 3);
+
+        assertEquals(13, metrics.getTotal("received"));
+        assertEquals(0, metrics.getTotal("deleted"));
+        assertEquals(13L, (long) metrics.sum().get("received"));
+        assertEquals(3L, (long) metrics.snapshotAndReset().getMetrics().get("received"));
+    }
+
+    @Test
+    public void shouldKeepLatenciesAcrossSnapshots() {
+        final Timer timer = metrics.timer("handle");
+        timer.record(2, TimeUnit.MILLISECONDS);
+        metrics.recordLatency("handle", 4, TimeUnit.MILLISECONDS);
+
+        assertEquals(2, metrics.snapshotAndReset().getLatencies().get("handle").getCount());
+        timer.record(8, TimeUnit.MILLISECONDS);
+
+        assertEquals(3, metrics.latencies().get("handle").getCount());
+        assertEquals(1, metrics.snapshotAndReset().getLatencies().get("handle").getCount());
+        assertEquals(3, metrics.latencies().get("handle").getCount());
+    }
+
+    @Test
+    public void shouldTellExportersAboutRegisteredMetrics() {
+        final List<String> registered = new ArrayList<>();
+        metrics.incrementMetric("received");
+        metrics.addExporter(new MetricsExporter() {
+
+            @Override
+            public void counterRegistered(final EventMetrics eventMetrics, final String metricName) {
+                registered.add("counter " + metricName);
+            }
+
+            @Override
+            public void gaugeRegistered(final EventMetrics eventMetrics, final String gaugeName) {
+                registered.add("gauge " + gaugeName);
+            }
+
+            @Override
+            public void timerRegistered(final EventMetrics eventMetrics, final String histogramName) {
+                registered.add("timer " + histogramName);
+            }
+        });
+
+        metrics.incrementMetric("received");
+        metrics.counter("deleted");
+        metrics.gauge("in-flight");
+        metrics.registerGauge("in-flight", () -> 1);
+        metrics.timer("handle");
+        metrics.recordLatency("handle", 1, TimeUnit.MILLISECONDS);
+
+        assertEquals(asList("counter received", "counter deleted", "gauge in-flight", "timer handle"), registered);
+    }
+}
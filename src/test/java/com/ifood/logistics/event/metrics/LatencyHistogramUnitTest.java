@@ -0,0 +1,83 @@
+package com.lorem.logistics.event.metrics;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LatencyHistogramUnitTest {
+
+    private final LatencyHistogram histogram = new LatencyHistogram();
+
+    @Test
+    public void shouldReportZeroWhenEmpty() {
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getPercentileMicros(99));
+        assertEquals(0, histogram.getMaxMicros());
+    }
+
+    @Test
+    public void shouldReportPercentilesWithinPrecision() {
+        IntStream.rangeClosed(1, 10000).forEach(millis -> histogram.record(millis, TimeUnit.MILLISECONDS));
+
+        assertEquals(10000, histogram.getCount());
+        assertWithinPrecision(5_000_000, histogram.getPercentileMicros(50));
+        assertWithinPrecision(9_900_000, histogram.getPercentileMicros(99));
+        assertWithinPrecision(9_990_000, histogram.getPercentileMicros(99.9));
+        assertEquals(10_000_000, histogram.getMaxMicros());
+        assertEquals(10_000_000, histogram.getPercentileMicros(100));
+    }
+
+    @Test
+    public void shouldCountLatenciesUpToEachBound() {
+        IntStream.rangeClosed(1, 100).forEach(millis -> histogram.record(millis, TimeUnit.MILLISECONDS));
+
+        final long[] cumulativeCounts = histogram.getCumulativeCounts(10_000, 50_000, 1_000_000);
+
+        assertWithinPrecision(10, cumulativeCounts[0]);
+        assertWithinPrecision(50, cumulativeCounts[1]);
+        assertEquals(100, cumulativeCounts[2]);
+        assertEquals(100, cumulativeCounts[3]);
+        assertEquals(5_050_000, histogram.getTotalMicros());
+    }
+
+    @Test
+    public void shouldRecordSmallValuesExactly() {
+        histogram.record(3, TimeUnit.MICROSECONDS);
+        histogram.record(900, TimeUnit.NANOSECONDS);
+
+        assertEquals(0, histogram.getPercentileMicros(50));
+        assertEquals(3, histogram.getPercentileMicros(100));
+    }
+
+    @Test
+    public void shouldClampOutOfRangeValues() {
+        histogram.record(-5, TimeUnit.MILLISECONDS);
+        histogram.record(365, TimeUnit.DAYS);
+
+        assertEquals(2, histogram.getCount());
+        assertEquals(0, histogram.getPercentileMicros(50));
+        assertEquals((1L << 40) - 1, histogram.getPercentileMicros(100));
+    }
+
+    @Test
+    public void shouldMoveLatenciesToSnapshot() {
+        histogram.record(2, TimeUnit.MILLISECONDS);
+        histogram.record(7, TimeUnit.MILLISECONDS);
+
+        final LatencyHistogram snapshot = histogram.snapshotAndReset();
+        histogram.record(1, TimeUnit.MILLISECONDS);
+
+        assertEquals(2, snapshot.getCount());
+        assertEquals(7000, snapshot.getMaxMicros());
+        assertEquals(1, histogram.getCount());
+        assertEquals(1000, histogram.getMaxMicros());
+    }
+
+    private void assertWithinPrecision(final long expected, final long actual) {
+        assertTrue(expected + " != " + actual, Math.abs(expected - actual) <= expected * 0.016);
+    }
+}
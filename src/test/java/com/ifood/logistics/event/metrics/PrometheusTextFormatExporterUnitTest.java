@@ -0,0 +1,81 @@
+package com.lorem.logistics.event.metrics;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PrometheusTextFormatExporterUnitTest {
+
+    private final PrometheusTextFormatExporter exporter = new PrometheusTextFormatExporter();
+
+    @Test
+    public void shouldWriteMetricsOfAllConsumers() {
+        final EventMetrics orders = new EventMetrics("orders");
+        final EventMetrics drivers = new EventMetrics("drivers \"eu\"");
+        orders.addToMetric("SQS deleted messages", 5);
+        orders.addExporter(exporter);
+        drivers.addExporter(exporter);
+        drivers.counter("SQS deleted messages").add(2);
+        orders.gauge("SQS in-flight messages").set(3);
+        orders.timer("SQS handle latency").record(2, TimeUnit.MILLISECONDS);
+        orders.snapshotAndReset();
+        orders.incrementMetric("SQS deleted messages");
+
+        final String text = exporter.scrape();
+
+        assertEquals(String.join("\n",
+            "# TYPE sqs_deleted_messages_total counter",
+            "sqs_deleted_messages_total{consumer=\"orders\"} 6",
+            "sqs_deleted_messages_total{consumer=\"drivers \\\"eu\\\"\"} 2",
+            "# TYPE sqs_handle_latency_max_seconds gauge",
+            "sqs_handle_latency_max_seconds{consumer=\"orders\"} 0.002",
+            "# TYPE sqs_handle_latency_seconds histogram",
+            "sqs_handle_latency_seconds_bucket{consumer=\"orders\",le=\"0.001\"} 0",
+            "sqs_handle_latency_seconds_bucket{consumer=\"orders\",le=\"0.0025\"} 1",
+            "sqs_handle_latency_seconds_bucket{consumer=\"orders\",le=\"0.005\"} 1",
+            "sqs_handle_latency_seconds_bucket{consumer=\"orders\",le=\"0.01\"} 1",
+            "sqs_handle_latency_seconds_bucket{consumer=\"orders\",le=\"0.025\"} 1",
+            "sqs_handle_latency_seconds_bucket{consumer=\"orders\",le=\"0.05\"} 1",
+            "sqs_handle_latency_seconds_bucket{consumer=\"orders\",le=\"0.1\"} 1",
+            "sqs_handle_latency_seconds_bucket{consumer=\"orders\",le=\"0.25\"} 1",
+            "sqs_handle_latency_seconds_bucket{consumer=\"orders\",le=\"0.5\"} 1",
+            "sqs_handle_latency_seconds_bucket{consumer=\"orders\",le=\"1\"} 1",
+            "sqs_handle_latency_seconds_bucket{consumer=\"orders\",le=\"2.5\"} 1",
+            "sqs_handle_latency_seconds_bucket{consumer=\"orders\",le=\"5\"} 1",
+            "sqs_handle_latency_seconds_bucket{consumer=\"orders\",le=\"10\"} 1",
+            "sqs_handle_latency_seconds_bucket{consumer=\"orders\",le=\"30\"} 1",
+            "sqs_handle_latency_seconds_bucket{consumer=\"orders\",le=\"60\"} 1",
+            "sqs_handle_latency_seconds_bucket{consumer=\"orders\",le=\"+Inf\"} 1",
+            "sqs_handle_latency_seconds_sum{consumer=\"orders\"} 0.002",
+            "sqs_handle_latency_seconds_count{consumer=\"orders\"} 1",
+            "# TYPE sqs_in_flight_messages gauge",
+            "sqs_in_flight_messages{consumer=\"orders\"} 3",
+            ""), text);
+    }
+
+    @Test
+    public void shouldWriteCumulativeLatencyBucketsInSeconds() {
+        final EventMetrics orders = new EventMetrics("orders");
+        orders.addExporter(exporter);
+        final Timer timer = orders.timer("SQS handle latency");
+        timer.record(2, TimeUnit.MILLISECONDS);
+        timer.record(40, TimeUnit.MILLISECONDS);
+        orders.snapshotAndReset();
+        timer.record(90, TimeUnit.SECONDS);
+
+        final List<String> lines = List.of(exporter.scrape().split("\n"));
+
+        assertTrue(lines.contains("sqs_handle_latency_seconds_bucket{consumer=\"orders\",le=\"0.001\"} 0"));
+        assertTrue(lines.contains("sqs_handle_latency_seconds_bucket{consumer=\"orders\",le=\"0.025\"} 1"));
+        assertTrue(lines.contains("sqs_handle_latency_seconds_bucket{consumer=\"orders\",le=\"0.05\"} 2"));
+        assertTrue(lines.contains("sqs_handle_latency_seconds_bucket{consumer=\"orders\",le=\"60\"} 2"));
+        assertTrue(lines.contains("sqs_handle_latency_seconds_bucket{consumer=\"orders\",le=\"+Inf\"} 3"));
+        assertTrue(lines.contains("sqs_handle_latency_seconds_sum{consumer=\"orders\"} 90.042"));
+        assertTrue(lines.contains("sqs_handle_latency_seconds_count{consumer=\"orders\"} 3"));
+        assertTrue(lines.contains("sqs_handle_latency_max_seconds{consumer=\"orders\"} 90.0"));
+    }
+}
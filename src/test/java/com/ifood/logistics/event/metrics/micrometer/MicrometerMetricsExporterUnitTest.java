@@ -0,0 +1,32 @@
+package com.lorem.logistics.event.metrics.micrometer;
+
+import com.lorem.logistics.event.metrics.EventMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+public class MicrometerMetricsExporterUnitTest {
+
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+    private final EventMetrics metrics = new EventMetrics("orders");
+
+    @Test
+    public void shouldBindMetricsToRegistry() {
+        metrics.addToMetric("SQS deleted messages", 5);
+        metrics.addExporter(new MicrometerMetricsExporter(registry));
+        metrics.gauge("SQS in-flight messages").set(3);
+        metrics.timer("SQS handle latency").record(2, TimeUnit.MILLISECONDS);
+        metrics.snapshotAndReset();
+        metrics.incrementMetric("SQS deleted messages");
+        metrics.timer("SQS handle latency").record(4, TimeUnit.MILLISECONDS);
+
+        assertEquals(6, registry.get("sqs.deleted.messages").tag("consumer", "orders").functionCounter().count(), 0);
+        assertEquals(3, registry.get("sqs.in-flight.messages").tag("consumer", "orders").gauge().value(), 0);
+        assertEquals(0.004, registry.get("sqs.handle.latency").tag("quantile", "0.99").gauge().value(), 0);
+        assertEquals(0.004, registry.get("sqs.handle.latency.max").gauge().value(), 0);
+    }
+}